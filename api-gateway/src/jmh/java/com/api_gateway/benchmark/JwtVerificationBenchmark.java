@@ -0,0 +1,72 @@
+package com.api_gateway.benchmark;
+
+import com.api_gateway.util.FastJwtVerifier;
+import com.api_gateway.util.JwtUtil;
+import com.api_gateway.util.VerifiedJwt;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT verification: current jjwt path vs FastJwtVerifier
+ *
+ * validateToken / getAllClaims → what JwtAuthenticationFilter used to call per request
+ * fastVerify                   → allocation-light HMAC path (jwt.verifier=fast)
+ *
+ * secretLength picks the HMAC: 32 bytes → HS256, 54 (repo default) → HS384.
+ * Run with "-prof gc" (default in the jmh profile) for bytes allocated per op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    @Param({"32", "54"})
+    public int secretLength;
+
+    private JwtUtil jwtUtil;
+    private FastJwtVerifier fastJwtVerifier;
+    private String token;
+
+    @Setup
+    public void setUp(){
+        String secret = "MySecretKeyForJWTTokenGenerationMustBe256BitsLong12345".substring(0, secretLength);
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", secret);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        fastJwtVerifier = new FastJwtVerifier(jwtUtil);
+
+        // Same claim set auth_service puts in its tokens
+        Date now = new Date();
+        token = Jwts.builder()
+                .claim("email", "alice@bookstore.com")
+                .claim("role", "USER")
+                .subject("alice")
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + TimeUnit.HOURS.toMillis(24)))
+                .signWith(jwtUtil.getSigningKey())
+                .compact();
+    }
+
+    @Benchmark
+    public boolean jjwtValidateToken(){
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Claims jjwtGetAllClaims(){
+        return jwtUtil.getAllClaims(token);
+    }
+
+    @Benchmark
+    public VerifiedJwt fastVerify(){
+        return fastJwtVerifier.verify(token);
+    }
+}
@@ -0,0 +1,96 @@
+package com.api_gateway.benchmark;
+
+import com.api_gateway.filter.PrefixRewriteFilter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.filter.factory.RewritePathGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route path rewriting: rewritePath (regex) vs PrefixRewriteFilter
+ *
+ * Each op runs the path-transforming part of the book route:
+ *   rewrite → RouteToRequestUrlFilter → terminal (reads the lb:// request URL)
+ * on a fresh exchange, so the numbers include what routing does with the
+ * rewritten URI, not just the string work.
+ *
+ * noRewrite → same chain without a rewrite filter (exchange + routing baseline)
+ * regex     → what GatewayConfig used to build: rewritePath("/api/books/(?<segment>.*)", ...)
+ * prefix    → PrefixRewriteFilter("/api/books/", "/books/")
+ *
+ * Run with "-prof gc" (default in the jmh profile) for bytes allocated per op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathRewriteBenchmark {
+
+    @Param({"/api/books/123", "/api/books/in-stock?page=2&size=20", "/api/books/search?q=caf%C3%A9%20cr%C3%A8me"})
+    public String path;
+
+    private MockServerHttpRequest request;
+    private Route route;
+    private GatewayFilter regex;
+    private GatewayFilter prefix;
+    private RouteToRequestUrlFilter routeToRequestUrl;
+
+    @Setup
+    public void setUp(){
+        request = MockServerHttpRequest.get("http://localhost:8080" + path).build();
+        route = Route.async()
+                .id("book-service")
+                .uri(URI.create("lb://BOOK-SERVICE"))
+                .predicate(exchange -> true)
+                .build();
+        regex = new RewritePathGatewayFilterFactory().apply(new RewritePathGatewayFilterFactory.Config()
+                .setRegexp("/api/books/(?<segment>.*)")
+                .setReplacement("/books/${segment}"));
+        prefix = new PrefixRewriteFilter("/api/books/", "/books/");
+        routeToRequestUrl = new RouteToRequestUrlFilter();
+    }
+
+    @Benchmark
+    public URI noRewrite(){
+        return run(null);
+    }
+
+    @Benchmark
+    public URI regex(){
+        return run(regex);
+    }
+
+    @Benchmark
+    public URI prefix(){
+        return run(prefix);
+    }
+
+    private URI run(GatewayFilter rewrite){
+        ServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        URI[] routed = new URI[1];
+        GatewayFilterChain terminal = e -> {
+            routed[0] = e.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+            return Mono.empty();
+        };
+        GatewayFilterChain routing = e -> routeToRequestUrl.filter(e, terminal);
+        if(rewrite == null){
+            routing.filter(exchange).block();
+        } else {
+            rewrite.filter(exchange, routing).block();
+        }
+        return routed[0];
+    }
+}
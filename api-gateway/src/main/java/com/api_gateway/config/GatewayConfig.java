@@ -1,6 +1,12 @@
 package com.api_gateway.config;
 
+import com.api_gateway.filter.ConcurrencyLimitFilter;
+import com.api_gateway.filter.HedgingFilter;
 import com.api_gateway.filter.JwtAuthenticationFilter;
+import com.api_gateway.filter.PrefixRewriteFilter;
+import com.api_gateway.filter.RateLimitFilter;
+import com.api_gateway.filter.RequestCoalescingFilter;
+import com.api_gateway.filter.ResponseCacheFilter;
 import com.netflix.discovery.converters.Auto;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.route.RouteLocator;
@@ -15,11 +21,27 @@ import org.springframework.stereotype.Component;
  *
  * Route Pattern:
  * 1. Match path (predicate)
- * 2. Apply filters (JWT validation, rewrite path)
+ * 2. Apply filters (JWT validation, rate limit, rewrite path)
  * 3. Route to service via Eureka (lb://)
  *
  * Example:
  * GET /api/books/123 → lb://BOOK-SERVICE/books/123
+ *
+ * Filter order (lower runs first, see each filter's ORDER):
+ *   MIN  LatencyMetricsFilter      → (global) total time per route + status
+ *   -100 JwtAuthenticationFilter   → 401 before anything else
+ *    -90 RateLimitFilter           → 429 per user
+ *    -85 ResponseCacheFilter       → cached GETs / 304, invalidated by writes
+ *    -80 RequestCoalescingFilter   → identical GETs share one upstream call
+ *    -10 ConcurrencyLimitFilter    → 503 when the route's learned limit is reached
+ *     -5 HedgingFilter             → slow GET? second attempt on another instance
+ *     -1 NettyWriteResponseFilter  (Spring) writes the upstream body
+ *      0 PrefixRewriteFilter (regex-free rewritePath), then load balancer + routing
+ *  MAX-1 UpstreamTimingFilter      → (global) time until downstream headers
+ * Filters that read the response body must stay below -1.
+ *
+ * Every route drops X-Hedge-Exclude from the client: hedged attempts
+ * pass the instance to avoid in their Reactor context, never in a header.
  */
 
 @Component
@@ -28,6 +50,23 @@ public class GatewayConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private ResponseCacheFilter responseCacheFilter;
+
+    @Autowired
+    private RequestCoalescingFilter requestCoalescingFilter;
+
+    @Autowired
+    private ConcurrencyLimitFilter concurrencyLimitFilter;
+
+    @Autowired
+    private HedgingFilter hedgingFilter;
+
+    private static final String HEDGE_EXCLUDE_HEADER = "X-Hedge-Exclude";
+
     @Bean
     public RouteLocator customRouteLocator(RouteLocatorBuilder builder){
         return builder.routes()
@@ -37,7 +76,8 @@ public class GatewayConfig {
                         .filters(f->f
                                 //Remove /auth prefix before forwarding
                                 // /auth/login -> /login
-                                .rewritePath("/auth/(?<segment>.*)","/${segment}")
+                                .filter(new PrefixRewriteFilter("/auth/", "/"))
+                                .removeRequestHeader(HEDGE_EXCLUDE_HEADER)
                         )
                         .uri("lb://AUTH-SERVICE") // Load-balanced via Eureka
                 )
@@ -48,9 +88,20 @@ public class GatewayConfig {
                         .filters(f->f
                                 //Remove /api/books prefix
                                 // /api/books/123 -> /books/123
-                                .rewritePath("/api/books/(?<segment>.*)","/books/${segment}")
+                                .filter(new PrefixRewriteFilter("/api/books/", "/books/"))
+                                .removeRequestHeader(HEDGE_EXCLUDE_HEADER)
                                 // Apply JWT validation filter
                                 .filter(jwtAuthenticationFilter)
+                                // Per-user quota (needs X-User-Id from JWT filter)
+                                .filter(rateLimitFilter)
+                                // Serve unchanged catalog reads from the gateway (ETag / 304)
+                                .filter(responseCacheFilter)
+                                // Collapse identical in-flight GETs into one upstream call
+                                .filter(requestCoalescingFilter)
+                                // Shed load before book-service starts queueing
+                                .filter(concurrencyLimitFilter)
+                                // Cut tail latency of GETs stuck on one slow instance
+                                .filter(hedgingFilter)
                         )
                         .uri("lb://BOOK-SERVICE")
                 )
@@ -61,11 +112,16 @@ public class GatewayConfig {
                         .filters(f->f
                                 //Remove /api/orders prefix
                                 // /api/orders/my-orders-> /orders/my orders
-                                .rewritePath("/api/orders/(?<segment>.*)",
-                                        "/orders/${segment}"
-                                )
+                                .filter(new PrefixRewriteFilter("/api/orders/", "/orders/"))
+                                .removeRequestHeader(HEDGE_EXCLUDE_HEADER)
                                 //Apply JWT validation filter
                                 .filter(jwtAuthenticationFilter)
+                                //Per-user quota (needs X-User-Id from JWT filter)
+                                .filter(rateLimitFilter)
+                                // Orders change stock: drop cached reads of the ordered book
+                                .filter(responseCacheFilter)
+                                // Shed load before order-service starts queueing (orders shed last)
+                                .filter(concurrencyLimitFilter)
                         )
                        .uri("lb://ORDER-SERVICE")
                 ).build();
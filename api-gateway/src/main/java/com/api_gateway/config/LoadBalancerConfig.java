@@ -0,0 +1,24 @@
+package com.api_gateway.config;
+
+import com.bookstore.loadbalancer.InstanceStatsRegistry;
+import com.bookstore.loadbalancer.LoadBalancerEndpoint;
+import com.bookstore.loadbalancer.PeakEwmaLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Load Balancer Configuration
+ *
+ * Every lb:// route (AUTH-SERVICE, BOOK-SERVICE, ORDER-SERVICE) uses the
+ * latency-aware PeakEwmaLoadBalancer instead of round robin.
+ * Scores per instance: GET /actuator/loadbalancer
+ *
+ * The balancer itself lives in loadbalancer-common (shared with
+ * order-service); its registry and endpoint are registered here.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+@Import({InstanceStatsRegistry.class, LoadBalancerEndpoint.class})
+public class LoadBalancerConfig {
+}
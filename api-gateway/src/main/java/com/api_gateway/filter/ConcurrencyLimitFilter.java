@@ -0,0 +1,168 @@
+package com.api_gateway.filter;
+
+import com.api_gateway.util.AdaptiveConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adaptive Concurrency Limit / Load Shedding Filter
+ *
+ * WHY: Under overload book-service and order-service queue requests in
+ * Tomcat and every request gets slow. Rejecting the excess at the edge
+ * keeps the services inside their healthy range.
+ *
+ * Each route learns its own limit from observed RTT (AdaptiveConcurrencyLimit).
+ * Over the limit → 503 + Retry-After at once, no queueing.
+ *
+ * Priorities (share of the limit a request may use):
+ *   CRITICAL → POST /api/orders/**                        (100%)
+ *   NORMAL   → everything else                            (gateway.concurrency.normal-share)
+ *   LOW      → ADMIN listings: GET /api/orders, /api/books (gateway.concurrency.low-share)
+ * So when the limit is reached, admin listings are shed first and placing
+ * an order is shed last.
+ *
+ * Runs after the cache/coalescing filters: only requests that really go
+ * downstream take a slot.
+ */
+@Component
+public class ConcurrencyLimitFilter implements GatewayFilter, Ordered {
+
+    public static final int ORDER = -10;
+
+    enum Priority { CRITICAL, NORMAL, LOW }
+
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+    // route:priority → shed counter, registered on first use
+    private final Map<String, Counter> shed = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double normalShare;
+    private final double lowShare;
+
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry,
+                                  @Value("${gateway.concurrency.enabled:true}") boolean enabled,
+                                  @Value("${gateway.concurrency.initial-limit:50}") int initialLimit,
+                                  @Value("${gateway.concurrency.min-limit:10}") int minLimit,
+                                  @Value("${gateway.concurrency.max-limit:500}") int maxLimit,
+                                  @Value("${gateway.concurrency.rtt-tolerance:1.5}") double tolerance,
+                                  @Value("${gateway.concurrency.normal-share:0.9}") double normalShare,
+                                  @Value("${gateway.concurrency.low-share:0.6}") double lowShare) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.normalShare = normalShare;
+        this.lowShare = lowShare;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if(!enabled){
+            return chain.filter(exchange);
+        }
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "unknown";
+        AdaptiveConcurrencyLimit limit = limits.computeIfAbsent(routeId, this::newLimit);
+
+        Priority priority = priority(exchange.getRequest());
+        int inFlight = limit.tryAcquire(share(priority));
+        if(inFlight < 0){
+            shedCounter(routeId, priority).increment();
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            return exchange.getResponse().setComplete();
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        return chain.filter(exchange)
+                .doOnSuccess(v -> {
+                    if(released.compareAndSet(false, true)){
+                        HttpStatusCode status = exchange.getResponse().getStatusCode();
+                        boolean overloaded = status != null
+                                && (status.value() == 503 || status.value() == 504);
+                        limit.release(System.nanoTime() - start, inFlight, overloaded);
+                    }
+                })
+                .doOnError(e -> {
+                    if(released.compareAndSet(false, true)){
+                        limit.release(System.nanoTime() - start, inFlight, true);
+                    }
+                })
+                .doFinally(signal -> {
+                    // Cancelled by the client: free the slot, no RTT sample
+                    if(released.compareAndSet(false, true)){
+                        limit.release();
+                    }
+                });
+    }
+
+    private AdaptiveConcurrencyLimit newLimit(String routeId){
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance);
+        Gauge.builder("gateway.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .tag("route", routeId).register(meterRegistry);
+        Gauge.builder("gateway.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .tag("route", routeId).register(meterRegistry);
+        return limit;
+    }
+
+    private Counter shedCounter(String routeId, Priority priority){
+        return shed.computeIfAbsent(routeId + ':' + priority, key -> Counter.builder("gateway.concurrency.shed")
+                .tag("route", routeId)
+                .tag("priority", priority.name())
+                .register(meterRegistry));
+    }
+
+    private double share(Priority priority){
+        return switch (priority) {
+            case CRITICAL -> 1.0;
+            case NORMAL -> normalShare;
+            case LOW -> lowShare;
+        };
+    }
+
+    static Priority priority(ServerHttpRequest request){
+        String path = request.getURI().getRawPath();
+        HttpMethod method = request.getMethod();
+        if(method == HttpMethod.POST && path.startsWith("/api/orders")){
+            return Priority.CRITICAL;
+        }
+        if(method == HttpMethod.GET && "ADMIN".equals(request.getHeaders().getFirst("X-User-Role"))
+                && (path.equals("/api/orders") || path.equals("/api/books"))){
+            return Priority.LOW;
+        }
+        return Priority.NORMAL;
+    }
+}
@@ -0,0 +1,223 @@
+package com.api_gateway.filter;
+
+import com.api_gateway.util.HedgeRace;
+import com.api_gateway.util.LatencyPercentileTracker;
+import com.bookstore.loadbalancer.PeakEwmaLoadBalancer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedged Requests Filter (idempotent GETs only)
+ *
+ * WHY: Catalog pages are bound by p99, and p99 is mostly one book-service
+ * instance having a hiccup (GC pause, noisy neighbour).
+ *
+ * Flow:
+ * 1. Send the GET as usual (primary)
+ * 2. No response headers after the route's recent p95 (gateway.hedging.percentile)?
+ *    → send the same GET to a DIFFERENT instance (hedge)
+ * 3. Whichever answers first is streamed to the client, the other is cancelled
+ *
+ * Hedge budget: every request earns budget-percent/100 of a hedge token,
+ * every hedge spends one → hedges stay within a few % of extra load even
+ * when the whole fleet is slow.
+ *
+ * The hedge gets a copy of the exchange attributes taken before the primary
+ * is routed, so both attempts go through load balancing and routing
+ * independently. The primary's instance is passed to the load balancer in
+ * the hedge's Reactor context (see PeakEwmaLoadBalancer#HEDGE_EXCLUDE).
+ */
+@Component
+public class HedgingFilter implements GatewayFilter, Ordered {
+
+    public static final int ORDER = -5;
+
+    private static final long TOKEN = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final Map<String, LatencyPercentileTracker> trackers = new ConcurrentHashMap<>();
+    private final AtomicLong budget = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final int minSamples;
+    private final long minDelayNanos;
+    private final long depositPerRequest;
+
+    private final Counter hedged;
+    private final Counter hedgeWins;
+    private final Counter budgetExhausted;
+
+    public HedgingFilter(MeterRegistry meterRegistry,
+                         @Value("${gateway.hedging.enabled:true}") boolean enabled,
+                         @Value("${gateway.hedging.percentile:0.95}") double percentile,
+                         @Value("${gateway.hedging.min-samples:100}") int minSamples,
+                         @Value("${gateway.hedging.min-delay-ms:5}") long minDelayMs,
+                         @Value("${gateway.hedging.budget-percent:5}") double budgetPercent) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMs);
+        this.depositPerRequest = Math.round(budgetPercent / 100 * TOKEN);
+        this.hedged = Counter.builder("gateway.hedge.requests").tag("result", "sent").register(meterRegistry);
+        this.hedgeWins = Counter.builder("gateway.hedge.requests").tag("result", "won").register(meterRegistry);
+        this.budgetExhausted = Counter.builder("gateway.hedge.requests").tag("result", "budget_exhausted").register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if(!enabled || exchange.getRequest().getMethod() != HttpMethod.GET){
+            return chain.filter(exchange);
+        }
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "unknown";
+        LatencyPercentileTracker tracker = trackers.computeIfAbsent(routeId, this::newTracker);
+        deposit();
+
+        long start = System.nanoTime();
+        long delayNanos = tracker.percentileNanos();
+
+        // Not enough history yet: single attempt, still timed
+        if(delayNanos < 0){
+            return chain.filter(exchange)
+                    .doOnSuccess(v -> tracker.record(System.nanoTime() - start));
+        }
+
+        HedgeRace race = new HedgeRace(exchange.getResponse());
+
+        // Copy attributes BEFORE the primary is routed (routing marks the exchange as routed)
+        Map<String, Object> hedgeAttributes = new HashMap<>(exchange.getAttributes());
+        AtomicInteger launched = new AtomicInteger(1);
+        AtomicInteger failed = new AtomicInteger();
+
+        Mono<Void> primary = Mono.firstWithSignal(
+                        chain.filter(exchange.mutate().response(race.contender(HedgeRace.PRIMARY)).build()),
+                        race.lost(HedgeRace.PRIMARY))
+                .onErrorResume(e -> attemptFailed(e, race, HedgeRace.PRIMARY, launched, failed));
+
+        Mono<Void> hedge = Mono.delay(Duration.ofNanos(Math.max(delayNanos, minDelayNanos)))
+                .filter(tick -> !race.isDecided())
+                .filter(tick -> withdraw())
+                .flatMap(tick -> {
+                    launched.incrementAndGet();
+                    hedged.increment();
+                    ServerWebExchange hedgeExchange = hedgeExchange(exchange, hedgeAttributes,
+                            race.contender(HedgeRace.HEDGE));
+                    return Mono.firstWithSignal(avoidPrimary(chain.filter(hedgeExchange), exchange),
+                                    race.lost(HedgeRace.HEDGE))
+                            .onErrorResume(e -> attemptFailed(e, race, HedgeRace.HEDGE, launched, failed));
+                });
+        // Stop waiting for the hedge timer once the primary has answered
+        hedge = Mono.firstWithSignal(hedge, race.lost(HedgeRace.HEDGE));
+
+        return Mono.when(primary, hedge)
+                .doOnSuccess(v -> {
+                    tracker.record(System.nanoTime() - start);
+                    if(race.winner() == HedgeRace.HEDGE){
+                        hedgeWins.increment();
+                    }
+                });
+    }
+
+    /**
+     * A failed attempt only fails the request if it was writing the response
+     * or no other attempt is left to answer.
+     */
+    private Mono<Void> attemptFailed(Throwable e, HedgeRace race, int attempt,
+                                     AtomicInteger launched, AtomicInteger failed){
+        if(race.winner() == attempt || failed.incrementAndGet() >= launched.get()){
+            return Mono.error(e);
+        }
+        return Mono.empty();
+    }
+
+    /**
+     * Tells the load balancer (through the attempt's Reactor context) which
+     * instance the primary went to.
+     */
+    private static Mono<Void> avoidPrimary(Mono<Void> attempt, ServerWebExchange primary){
+        Response<ServiceInstance> primaryChoice =
+                primary.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if(primaryChoice == null || !primaryChoice.hasServer()){
+            return attempt;
+        }
+        ServiceInstance instance = primaryChoice.getServer();
+        String excluded = instance.getHost() + ":" + instance.getPort();
+        return attempt.contextWrite(context -> context.put(PeakEwmaLoadBalancer.HEDGE_EXCLUDE, excluded));
+    }
+
+    private ServerWebExchange hedgeExchange(ServerWebExchange exchange, Map<String, Object> attributes,
+                                            ServerHttpResponse response){
+        return new ServerWebExchangeDecorator(exchange) {
+            @Override
+            public ServerHttpResponse getResponse() {
+                return response;
+            }
+
+            @Override
+            public Map<String, Object> getAttributes() {
+                return attributes;
+            }
+        };
+    }
+
+    private void deposit(){
+        long current;
+        do {
+            current = budget.get();
+            if(current >= MAX_TOKENS){
+                return;
+            }
+        } while(!budget.compareAndSet(current, Math.min(MAX_TOKENS, current + depositPerRequest)));
+    }
+
+    private boolean withdraw(){
+        long current;
+        do {
+            current = budget.get();
+            if(current < TOKEN){
+                budgetExhausted.increment();
+                return false;
+            }
+        } while(!budget.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    private LatencyPercentileTracker newTracker(String routeId){
+        LatencyPercentileTracker tracker = new LatencyPercentileTracker(percentile, minSamples);
+        Gauge.builder("gateway.hedge.delay.ms", tracker, t -> t.percentileNanos() / 1_000_000.0)
+                .tag("route", routeId).register(meterRegistry);
+        return tracker;
+    }
+}
@@ -0,0 +1,56 @@
+package com.api_gateway.filter;
+
+import com.api_gateway.metrics.LatencyHistograms;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Latency Metrics Filter (every route)
+ *
+ * Global filter that runs first and finishes last, so "total" covers
+ * everything the gateway does for a request (JWT, rate limit, cache,
+ * upstream call, body streaming). Also records the JWT verification time
+ * left by JwtAuthenticationFilter, under the same route + status class.
+ *
+ * Cancelled requests (client went away) are not recorded.
+ */
+@Component
+public class LatencyMetricsFilter implements GlobalFilter, Ordered {
+
+    private final LatencyHistograms histograms;
+
+    public LatencyMetricsFilter(LatencyHistograms histograms) {
+        this.histograms = histograms;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnSuccess(v -> record(exchange, LatencyHistograms.statusClass(exchange.getResponse().getStatusCode()), start))
+                .doOnError(e -> record(exchange, "error", start));
+    }
+
+    private void record(ServerWebExchange exchange, String statusClass, long start){
+        long total = System.nanoTime() - start;
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "unknown";
+        histograms.record(routeId, statusClass, LatencyHistograms.TOTAL, total);
+
+        Long jwtNanos = exchange.getAttribute(LatencyHistograms.JWT_NANOS_ATTR);
+        if(jwtNanos != null){
+            histograms.record(routeId, statusClass, LatencyHistograms.JWT, jwtNanos);
+        }
+    }
+}
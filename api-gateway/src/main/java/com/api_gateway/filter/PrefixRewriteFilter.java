@@ -0,0 +1,80 @@
+package com.api_gateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * Prefix Rewrite Filter (regex-free rewritePath)
+ *
+ * Same result as rewritePath("/api/books/(?<segment>.*)", "/books/${segment}")
+ * for every path the route predicate lets through:
+ *   /api/books/123?x=1 → /books/123?x=1
+ * Paths that don't start with the prefix are passed on unchanged.
+ *
+ * Instead of regex match + replaceAll + re-encoding the URI from its parts,
+ * the new URI is written into one exactly-sized StringBuilder from the raw
+ * (already encoded) components and parsed once.
+ */
+public class PrefixRewriteFilter implements GatewayFilter {
+
+    private final String fromPrefix;
+    private final String toPrefix;
+
+    public PrefixRewriteFilter(String fromPrefix, String toPrefix) {
+        if(!fromPrefix.startsWith("/") || !toPrefix.startsWith("/")){
+            throw new IllegalArgumentException("Prefixes must start with '/': " + fromPrefix + " → " + toPrefix);
+        }
+        this.fromPrefix = fromPrefix;
+        this.toPrefix = toPrefix;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        URI uri = request.getURI();
+        String rawPath = uri.getRawPath();
+        // Same bookkeeping as RewritePath, whether or not the prefix matches
+        ServerWebExchangeUtils.addOriginalRequestUrl(exchange, uri);
+        if(rawPath == null || !rawPath.startsWith(fromPrefix)){
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, uri);
+            return chain.filter(exchange);
+        }
+
+        URI rewritten = URI.create(rewrite(uri, rawPath));
+        ServerHttpRequest modifiedRequest = request.mutate().uri(rewritten).build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, rewritten);
+        return chain.filter(exchange.mutate().request(modifiedRequest).build());
+    }
+
+    String rewrite(URI uri, String rawPath){
+        String scheme = uri.getScheme();
+        String authority = uri.getRawAuthority();
+        String query = uri.getRawQuery();
+        String fragment = uri.getRawFragment();
+
+        int length = toPrefix.length() + rawPath.length() - fromPrefix.length();
+        if(scheme != null) length += scheme.length() + 1;
+        if(authority != null) length += authority.length() + 2;
+        if(query != null) length += query.length() + 1;
+        if(fragment != null) length += fragment.length() + 1;
+
+        StringBuilder sb = new StringBuilder(length);
+        if(scheme != null) sb.append(scheme).append(':');
+        if(authority != null) sb.append("//").append(authority);
+        sb.append(toPrefix).append(rawPath, fromPrefix.length(), rawPath.length());
+        if(query != null) sb.append('?').append(query);
+        if(fragment != null) sb.append('#').append(fragment);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "PrefixRewrite[" + fromPrefix + " → " + toPrefix + "]";
+    }
+}
@@ -0,0 +1,103 @@
+package com.api_gateway.filter;
+
+import com.api_gateway.util.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-User Rate Limit Filter
+ *
+ * Runs AFTER JwtAuthenticationFilter (needs the X-User-Id it adds).
+ * Each user gets a token bucket per route, with quotas per role:
+ *   USER  → gateway.rate-limit.user.*
+ *   ADMIN → gateway.rate-limit.admin.*
+ *
+ * Over quota → 429 Too Many Requests + Retry-After (seconds).
+ * The decision is a single CAS (see TokenBucketRateLimiter), so it never
+ * blocks the reactive chain.
+ */
+@Component
+public class RateLimitFilter implements GatewayFilter, Ordered {
+
+    public static final int ORDER = -90;
+
+    private final boolean enabled;
+    private final TokenBucketRateLimiter userLimiter;
+    private final TokenBucketRateLimiter adminLimiter;
+    private final MeterRegistry meterRegistry;
+    // route:role → rejection counter, registered on first use
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(MeterRegistry meterRegistry,
+                           @Value("${gateway.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${gateway.rate-limit.user.replenish-rate:20}") double userRate,
+                           @Value("${gateway.rate-limit.user.burst-capacity:40}") int userBurst,
+                           @Value("${gateway.rate-limit.admin.replenish-rate:100}") double adminRate,
+                           @Value("${gateway.rate-limit.admin.burst-capacity:200}") int adminBurst,
+                           @Value("${gateway.rate-limit.idle-seconds:300}") long idleSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.userLimiter = new TokenBucketRateLimiter(userRate, userBurst, idleSeconds);
+        this.adminLimiter = new TokenBucketRateLimiter(adminRate, adminBurst, idleSeconds);
+        meterRegistry.gauge("gateway.ratelimit.buckets", userLimiter, TokenBucketRateLimiter::size);
+        meterRegistry.gauge("gateway.ratelimit.admin.buckets", adminLimiter, TokenBucketRateLimiter::size);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if(!enabled){
+            return chain.filter(exchange);
+        }
+
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        String userId = headers.getFirst("X-User-Id");
+        if(userId == null){
+            // No identity (JWT filter not applied) - nothing to key on
+            return chain.filter(exchange);
+        }
+        String role = headers.getFirst("X-User-Role");
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "unknown";
+
+        TokenBucketRateLimiter limiter = "ADMIN".equals(role) ? adminLimiter : userLimiter;
+        long waitNanos = limiter.tryAcquire(routeId + ':' + userId);
+        if(waitNanos == 0){
+            return chain.filter(exchange);
+        }
+
+        // Rejected: tell the client when to come back
+        rejectedCounter(routeId, role != null ? role : "none").increment();
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return exchange.getResponse().setComplete();
+    }
+
+    private Counter rejectedCounter(String routeId, String role){
+        return rejected.computeIfAbsent(routeId + ':' + role, key -> Counter.builder("gateway.ratelimit.rejected")
+                .tag("route", routeId)
+                .tag("role", role)
+                .register(meterRegistry));
+    }
+}
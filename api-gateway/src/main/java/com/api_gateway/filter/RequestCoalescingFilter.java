@@ -0,0 +1,126 @@
+package com.api_gateway.filter;
+
+import com.api_gateway.util.ResponseRecorder;
+import com.api_gateway.util.ResponseSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Request Coalescing (single-flight) Filter
+ *
+ * WHY: When a popular book is linked, hundreds of identical
+ * GET /api/books/{id} arrive at once. Without this each one is a separate
+ * call to book-service and a separate DB read.
+ *
+ * Flow:
+ * 1. First GET for a key becomes the "leader" and goes upstream
+ * 2. Identical GETs arriving while it is in flight wait for it
+ * 3. Leader's response (status + headers + body) is replayed to every waiter
+ *
+ * Key = path + query + role + Accept (responses may differ by role/format)
+ *
+ * Waiters go upstream themselves if:
+ * - the leader takes longer than gateway.coalescing.max-wait-ms
+ * - the body is larger than gateway.coalescing.max-body-bytes
+ * - the leader failed, was cancelled or got a 5xx
+ */
+@Component
+public class RequestCoalescingFilter implements GatewayFilter, Ordered {
+
+    public static final int ORDER = -80;
+
+    private final Map<String, Sinks.One<ResponseSnapshot>> inFlight = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Duration maxWait;
+    private final int maxBodyBytes;
+
+    private final Counter leaders;
+    private final Counter coalesced;
+    private final Counter fallbacks;
+
+    public RequestCoalescingFilter(MeterRegistry meterRegistry,
+                                   @Value("${gateway.coalescing.enabled:true}") boolean enabled,
+                                   @Value("${gateway.coalescing.max-wait-ms:2000}") long maxWaitMs,
+                                   @Value("${gateway.coalescing.max-body-bytes:262144}") int maxBodyBytes) {
+        this.enabled = enabled;
+        this.maxWait = Duration.ofMillis(maxWaitMs);
+        this.maxBodyBytes = maxBodyBytes;
+        this.leaders = Counter.builder("gateway.coalescing.requests").tag("result", "leader").register(meterRegistry);
+        this.coalesced = Counter.builder("gateway.coalescing.requests").tag("result", "coalesced").register(meterRegistry);
+        this.fallbacks = Counter.builder("gateway.coalescing.requests").tag("result", "fallback").register(meterRegistry);
+        meterRegistry.gauge("gateway.coalescing.in.flight", inFlight, Map::size);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if(!enabled || request.getMethod() != HttpMethod.GET){
+            return chain.filter(exchange);
+        }
+
+        String key = key(request);
+        Sinks.One<ResponseSnapshot> mine = Sinks.one();
+        Sinks.One<ResponseSnapshot> leader = inFlight.putIfAbsent(key, mine);
+
+        if(leader == null){
+            // Leader: go upstream, publish the response to waiters as soon as the body completes
+            leaders.increment();
+            ResponseRecorder recorder = new ResponseRecorder(exchange.getResponse(), maxBodyBytes, snapshot -> {
+                if(snapshot.status().is5xxServerError()){
+                    mine.tryEmitEmpty();
+                } else {
+                    mine.tryEmitValue(snapshot);
+                }
+            });
+            return chain.filter(exchange.mutate().response(recorder).build())
+                    .doFinally(signal -> {
+                        inFlight.remove(key, mine);
+                        mine.tryEmitEmpty(); // no-op if a snapshot was already published
+                    });
+        }
+
+        // Follower: wait for the leader, fall back to our own upstream call
+        return leader.asMono()
+                .timeout(maxWait, Mono.empty())
+                .flatMap(snapshot -> {
+                    coalesced.increment();
+                    return snapshot.writeTo(exchange.getResponse()).thenReturn(Boolean.TRUE);
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    fallbacks.increment();
+                    return chain.filter(exchange).thenReturn(Boolean.TRUE);
+                }))
+                .then();
+    }
+
+    static String key(ServerHttpRequest request){
+        HttpHeaders headers = request.getHeaders();
+        String query = request.getURI().getRawQuery();
+        String role = headers.getFirst("X-User-Role");
+        String accept = headers.getFirst(HttpHeaders.ACCEPT);
+        return request.getURI().getRawPath()
+                + '?' + (query != null ? query : "")
+                + '|' + (role != null ? role : "")
+                + '|' + (accept != null ? accept : "");
+    }
+}
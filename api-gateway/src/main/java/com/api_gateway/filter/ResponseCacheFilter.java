@@ -0,0 +1,383 @@
+package com.api_gateway.filter;
+
+import com.api_gateway.util.ResponseRecorder;
+import com.api_gateway.util.ResponseSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Response Cache Filter (book catalog reads)
+ *
+ * WHY: ~95% of traffic is catalog reads that hardly change between writes.
+ *
+ * Cached (GET, 200 only):
+ *   /api/books            → all books
+ *   /api/books/in-stock   → paged in-stock books
+ *   /api/books/{id}       → single book
+ * Key = path + query + role + Accept, bounded by entry count, total bytes and TTL.
+ *
+ * ETag / 304:
+ * - Every cached entry carries an ETag (MD5 of the body), already sent
+ *   on the miss that filled it
+ * - If-None-Match matching the entry → 304, book-service is never called
+ *   (each listed tag compared exactly, W/ ignored - weak comparison, RFC 9110 13.1.2)
+ *
+ * Invalidation (any non-GET the gateway sees):
+ *   PUT/DELETE/POST /api/books/{id}[/...]  → that book + all list entries
+ *   POST /api/orders?bookId={id}           → that book + all list entries
+ *   POST /api/orders/cart                  → everything (the books are in the body)
+ *   other writes on the book route          → everything
+ * A book's entries are found through a bookId → keys index and the list
+ * entries through their own key set, so a write never walks the whole cache.
+ * "Everything" bumps an epoch instead: older entries stop being served and
+ * are dropped by the next eviction.
+ *
+ * A miss is only stored if no write touched its book (or the lists) while
+ * it was in flight - tracked per book, so a write on book 7 does not stop
+ * book 8 from being cached.
+ * Stock changed by order-service calling book-service directly is not
+ * visible here - gateway.response-cache.ttl-seconds bounds that staleness.
+ */
+@Component
+public class ResponseCacheFilter implements GatewayFilter, Ordered {
+
+    public static final int ORDER = -85;
+
+    private static final String BOOKS_PATH = "/api/books";
+    private static final String ORDERS_PATH = "/api/orders";
+    private static final String CART_PATH = ORDERS_PATH + "/cart";
+
+    // Book generations are striped: two books sharing a stripe only cost a skipped store
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> keysByBook = new ConcurrentHashMap<>();
+    private final Set<String> listKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicLong totalBytes = new AtomicLong();
+    // Bumped by writes; a response that started before a write is not stored
+    private final AtomicLongArray bookGenerations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong listGeneration = new AtomicLong();
+    // Bumped by writes on unknown books; entries stored under an older epoch are stale
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final long maxTotalBytes;
+    private final int maxEntryBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter notModified;
+    private final Counter invalidations;
+
+    public ResponseCacheFilter(MeterRegistry meterRegistry,
+                               @Value("${gateway.response-cache.enabled:true}") boolean enabled,
+                               @Value("${gateway.response-cache.ttl-seconds:30}") long ttlSeconds,
+                               @Value("${gateway.response-cache.max-entries:10000}") int maxEntries,
+                               @Value("${gateway.response-cache.max-total-bytes:67108864}") long maxTotalBytes,
+                               @Value("${gateway.response-cache.max-entry-bytes:262144}") int maxEntryBytes) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+        this.maxTotalBytes = maxTotalBytes;
+        this.maxEntryBytes = maxEntryBytes;
+
+        this.hits = Counter.builder("gateway.response.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("gateway.response.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.notModified = Counter.builder("gateway.response.cache.requests").tag("result", "not_modified").register(meterRegistry);
+        this.invalidations = Counter.builder("gateway.response.cache.invalidations").register(meterRegistry);
+        meterRegistry.gauge("gateway.response.cache.size", cache, Map::size);
+        meterRegistry.gauge("gateway.response.cache.bytes", totalBytes);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if(!enabled){
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getRawPath();
+
+        if(request.getMethod() != HttpMethod.GET){
+            Long bookId = writtenBookId(request, path);
+            if(bookId == null && !path.startsWith(BOOKS_PATH) && !path.equals(CART_PATH)){
+                return chain.filter(exchange); // nothing that changes a book
+            }
+            // Before: reads in flight are not stored. After: drop entries, including reads that raced the write
+            bump(bookId);
+            return chain.filter(exchange).doFinally(signal -> invalidate(bookId));
+        }
+
+        Long bookId = cacheableBookId(path);
+        if(bookId == null){
+            return chain.filter(exchange);
+        }
+
+        String key = RequestCoalescingFilter.key(request);
+        Entry entry = cache.get(key);
+        long now = System.currentTimeMillis();
+
+        if(entry != null && entry.expiresAt > now && entry.epoch == epoch.get()){
+            String ifNoneMatch = request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+            ServerHttpResponse response = exchange.getResponse();
+            if(ifNoneMatch != null && matchesAny(ifNoneMatch, entry.etag)){
+                notModified.increment();
+                response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                response.getHeaders().setETag(entry.etag);
+                return response.setComplete();
+            }
+            hits.increment();
+            response.getHeaders().setETag(entry.etag);
+            response.getHeaders().set("X-Cache", "HIT");
+            return entry.snapshot.writeTo(response);
+        }
+        if(entry != null){
+            remove(key, entry);
+        }
+
+        // Miss: record the upstream response (if it's a 200 that fits, store it)
+        misses.increment();
+        long startEpoch = epoch.get();
+        long startGeneration = generation(bookId);
+        ServerHttpResponse response = exchange.getResponse();
+        ResponseRecorder recorder = new ResponseRecorder(response, maxEntryBytes, body -> {
+            if(response.getStatusCode() != null && response.getStatusCode().value() == HttpStatus.OK.value()){
+                response.getHeaders().setETag(etag(body));
+            }
+        }, snapshot -> {
+            if(snapshot.status().value() == HttpStatus.OK.value()
+                    && epoch.get() == startEpoch && generation(bookId) == startGeneration){
+                Entry stored = new Entry(snapshot, bookId, startEpoch, System.currentTimeMillis() + ttlMillis);
+                put(key, stored);
+                // A write that slipped in between the check and the put may have missed it
+                if(epoch.get() != startEpoch || generation(bookId) != startGeneration){
+                    remove(key, stored);
+                }
+            }
+        });
+        return chain.filter(exchange.mutate().response(recorder).build());
+    }
+
+    /**
+     * bookId == null → everything; otherwise that book plus every list entry.
+     */
+    private void invalidate(Long bookId){
+        invalidations.increment();
+        bump(bookId);
+        if(bookId == null){
+            return; // the epoch bump retires every entry
+        }
+        Set<String> keys = keysByBook.remove(bookId);
+        if(keys != null){
+            keys.forEach(this::remove);
+        }
+        listKeys.forEach(this::remove);
+    }
+
+    private void bump(Long bookId){
+        if(bookId == null){
+            epoch.incrementAndGet();
+            return;
+        }
+        bookGenerations.incrementAndGet(stripe(bookId));
+        listGeneration.incrementAndGet();
+    }
+
+    private long generation(long bookId){
+        return bookId == LIST ? listGeneration.get() : bookGenerations.get(stripe(bookId));
+    }
+
+    private static int stripe(long bookId){
+        return (int) (bookId ^ (bookId >>> 32)) & (GENERATION_STRIPES - 1);
+    }
+
+    private void put(String key, Entry entry){
+        if(cache.size() >= maxEntries || totalBytes.get() + entry.size() > maxTotalBytes){
+            evict(entry.size());
+        }
+        Entry previous = cache.put(key, entry);
+        totalBytes.addAndGet(entry.size() - (previous != null ? previous.size() : 0));
+        if(entry.bookId == LIST){
+            listKeys.add(key);
+        } else {
+            keysByBook.compute(entry.bookId, (id, keys) -> {
+                Set<String> set = keys != null ? keys : ConcurrentHashMap.<String>newKeySet();
+                set.add(key);
+                return set;
+            });
+        }
+    }
+
+    private void remove(String key){
+        Entry entry = cache.get(key);
+        if(entry != null){
+            remove(key, entry);
+        }
+    }
+
+    private void remove(String key, Entry entry){
+        if(!cache.remove(key, entry)){
+            return;
+        }
+        totalBytes.addAndGet(-entry.size());
+        if(entry.bookId == LIST){
+            listKeys.remove(key);
+        } else {
+            keysByBook.computeIfPresent(entry.bookId, (id, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    /**
+     * Drop expired and stale entries, then arbitrary ones until there is room.
+     */
+    private void evict(int incomingBytes){
+        long now = System.currentTimeMillis();
+        long current = epoch.get();
+        cache.forEach((key, entry) -> {
+            if(entry.expiresAt <= now || entry.epoch != current){
+                remove(key, entry);
+            }
+        });
+        Iterator<Map.Entry<String, Entry>> it = cache.entrySet().iterator();
+        while(it.hasNext() && (cache.size() >= maxEntries || totalBytes.get() + incomingBytes > maxTotalBytes)){
+            Map.Entry<String, Entry> e = it.next();
+            remove(e.getKey(), e.getValue());
+        }
+    }
+
+    // ==== Path matching ====
+
+    private static final long LIST = -1L;
+
+    /**
+     * LIST for /api/books and /api/books/in-stock, the id for /api/books/{id}, null if not cacheable.
+     */
+    static Long cacheableBookId(String path){
+        if(path.equals(BOOKS_PATH) || path.equals(BOOKS_PATH + "/") || path.equals(BOOKS_PATH + "/in-stock")){
+            return LIST;
+        }
+        if(path.startsWith(BOOKS_PATH + "/")){
+            return parseId(path, BOOKS_PATH.length() + 1, path.length());
+        }
+        return null;
+    }
+
+    /**
+     * Book touched by a write: /api/books/{id}[/...] or /api/orders?bookId={id}.
+     */
+    static Long writtenBookId(ServerHttpRequest request, String path){
+        if(path.startsWith(BOOKS_PATH + "/")){
+            int start = BOOKS_PATH.length() + 1;
+            int end = path.indexOf('/', start);
+            return parseId(path, start, end < 0 ? path.length() : end);
+        }
+        if(path.startsWith(ORDERS_PATH)){
+            String bookId = request.getQueryParams().getFirst("bookId");
+            return bookId != null ? parseId(bookId, 0, bookId.length()) : null;
+        }
+        return null;
+    }
+
+    /**
+     * If-None-Match: "*" or a list of entity-tags, each optionally W/ prefixed.
+     * Scanned in place; a malformed member ends the scan (no match).
+     */
+    static boolean matchesAny(String ifNoneMatch, String etag){
+        int i = 0;
+        int n = ifNoneMatch.length();
+        while(i < n){
+            char c = ifNoneMatch.charAt(i);
+            if(c == ' ' || c == '\t' || c == ','){
+                i++;
+                continue;
+            }
+            if(c == '*'){
+                return true;
+            }
+            if(ifNoneMatch.startsWith("W/", i)){
+                i += 2;
+            }
+            if(i >= n || ifNoneMatch.charAt(i) != '"'){
+                return false;
+            }
+            int close = ifNoneMatch.indexOf('"', i + 1);
+            if(close < 0){
+                return false;
+            }
+            int length = close + 1 - i;
+            if(length == etag.length() && ifNoneMatch.regionMatches(i, etag, 0, length)){
+                return true;
+            }
+            i = close + 1;
+        }
+        return false;
+    }
+
+    private static String etag(byte[] body){
+        return "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    private static Long parseId(String s, int start, int end){
+        if(start >= end || end - start > 18){
+            return null;
+        }
+        long id = 0;
+        for(int i = start; i < end; i++){
+            char c = s.charAt(i);
+            if(c < '0' || c > '9'){
+                return null;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    private static final class Entry {
+        final ResponseSnapshot snapshot;
+        final String etag;
+        final long bookId;
+        final long epoch;
+        final long expiresAt;
+
+        Entry(ResponseSnapshot snapshot, long bookId, long epoch, long expiresAt){
+            this.snapshot = snapshot;
+            this.etag = etag(snapshot.body());
+            this.bookId = bookId;
+            this.epoch = epoch;
+            this.expiresAt = expiresAt;
+        }
+
+        int size(){
+            return snapshot.size();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.api_gateway.filter;
+
+import com.api_gateway.metrics.LatencyHistograms;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Upstream Timing Filter (every route)
+ *
+ * Runs right before NettyRoutingFilter, which completes once the
+ * downstream's status + headers have arrived. So "upstream" = connect +
+ * send + downstream processing, without any gateway filter work and
+ * without streaming the body to the client.
+ * A hedged GET records the attempt that answered first (the other is cancelled).
+ */
+@Component
+public class UpstreamTimingFilter implements GlobalFilter, Ordered {
+
+    private final LatencyHistograms histograms;
+
+    public UpstreamTimingFilter(LatencyHistograms histograms) {
+        this.histograms = histograms;
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyRoutingFilter.ORDER - 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnSuccess(v -> record(exchange, LatencyHistograms.statusClass(exchange.getResponse().getStatusCode()), start))
+                .doOnError(e -> record(exchange, "error", start));
+    }
+
+    private void record(ServerWebExchange exchange, String statusClass, long start){
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        histograms.record(route != null ? route.getId() : "unknown", statusClass,
+                LatencyHistograms.UPSTREAM, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,56 @@
+package com.api_gateway.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * GET /actuator/latency
+ *
+ * route → status class → phase → percentiles in ms, for the last interval
+ * (gateway.latency.interval-seconds) and since startup.
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+    private final LatencyHistograms histograms;
+
+    public LatencyEndpoint(LatencyHistograms histograms) {
+        this.histograms = histograms;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Map<String, Object>>> latency(){
+        Map<String, Map<String, Map<String, Object>>> result = new TreeMap<>();
+        histograms.getSeries().forEach((key, series) -> {
+            Map<String, Object> phase = new LinkedHashMap<>();
+            phase.put("lastInterval", summary(series.lastInterval()));
+            phase.put("sinceStart", summary(series.cumulative()));
+            result.computeIfAbsent(key.routeId(), r -> new TreeMap<>())
+                    .computeIfAbsent(key.statusClass(), s -> new TreeMap<>())
+                    .put(key.phase(), phase);
+        });
+        return result;
+    }
+
+    private static Map<String, Object> summary(Histogram histogram){
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("p50", millis(histogram.getValueAtPercentile(50)));
+        summary.put("p90", millis(histogram.getValueAtPercentile(90)));
+        summary.put("p99", millis(histogram.getValueAtPercentile(99)));
+        summary.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+        summary.put("max", millis(histogram.getMaxValue()));
+        return summary;
+    }
+
+    private static double millis(long micros){
+        return micros / 1_000.0;
+    }
+}
@@ -0,0 +1,131 @@
+package com.api_gateway.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * High-resolution latency histograms per route, status class and phase.
+ *
+ * Phases:
+ *   total    → whole request as seen by the gateway (LatencyMetricsFilter)
+ *   jwt      → time spent verifying the token (JwtAuthenticationFilter)
+ *   upstream → routing until the downstream's response headers (UpstreamTimingFilter)
+ *
+ * Recording is lock-free (HdrHistogram Recorder, values in microseconds).
+ * Every gateway.latency.interval-seconds the recorders are swapped: the
+ * interval histogram becomes the "last interval" view and is added to the
+ * cumulative one. Readers (Micrometer gauges, /actuator/latency) only see
+ * those snapshots, never the live recorder.
+ */
+@Component
+public class LatencyHistograms {
+
+    public static final String JWT_NANOS_ATTR = LatencyHistograms.class.getName() + ".jwtNanos";
+
+    public static final String TOTAL = "total";
+    public static final String JWT = "jwt";
+    public static final String UPSTREAM = "upstream";
+
+    private static final double[] PUBLISHED = {50, 90, 99, 99.9};
+    private static final String[] QUANTILE_TAGS = {"0.5", "0.9", "0.99", "0.999"};
+
+    private final Map<Key, Series> series = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final Duration interval;
+    private Disposable rotation;
+
+    public LatencyHistograms(MeterRegistry meterRegistry,
+                             @Value("${gateway.latency.interval-seconds:10}") long intervalSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.interval = Duration.ofSeconds(intervalSeconds);
+    }
+
+    @PostConstruct
+    void start(){
+        rotation = Flux.interval(interval, interval)
+                .subscribe(tick -> series.values().forEach(Series::rotate));
+    }
+
+    @PreDestroy
+    void stop(){
+        if(rotation != null){
+            rotation.dispose();
+        }
+    }
+
+    public void record(String routeId, String statusClass, String phase, long nanos){
+        series.computeIfAbsent(new Key(routeId, statusClass, phase), this::newSeries)
+                .recorder.recordValue(Math.max(0, nanos / 1_000));
+    }
+
+    public Map<Key, Series> getSeries(){
+        return series;
+    }
+
+    public static String statusClass(HttpStatusCode status){
+        return status == null ? "none" : (status.value() / 100) + "xx";
+    }
+
+    private Series newSeries(Key key){
+        Series s = new Series();
+        for(int i = 0; i < PUBLISHED.length; i++){
+            double percentile = PUBLISHED[i];
+            Gauge.builder("gateway.latency", s, x -> x.intervalPercentileMillis(percentile))
+                    .tag("route", key.routeId())
+                    .tag("status", key.statusClass())
+                    .tag("phase", key.phase())
+                    .tag("quantile", QUANTILE_TAGS[i])
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+        return s;
+    }
+
+    public record Key(String routeId, String statusClass, String phase) {
+    }
+
+    /**
+     * One recorder + its published snapshots.
+     */
+    public static class Series {
+
+        private final Recorder recorder = new Recorder(3);
+        // guarded by this
+        private Histogram recycle;
+        // must come from the recorder itself to be recyclable later
+        private Histogram lastInterval = recorder.getIntervalHistogram();
+        private final Histogram cumulative = new Histogram(3);
+
+        synchronized void rotate(){
+            Histogram interval = recorder.getIntervalHistogram(recycle);
+            cumulative.add(interval);
+            recycle = lastInterval;
+            lastInterval = interval;
+        }
+
+        public synchronized Histogram lastInterval(){
+            return lastInterval.copy();
+        }
+
+        public synchronized Histogram cumulative(){
+            return cumulative.copy();
+        }
+
+        synchronized double intervalPercentileMillis(double percentile){
+            return lastInterval.getValueAtPercentile(percentile) / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.api_gateway.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit learned from round-trip times (gradient algorithm).
+ *
+ * Idea: the fastest recent RTT is what the downstream needs with no
+ * queueing. While the current RTT stays within tolerance x that, we can let
+ * more requests in. When requests start queueing in Tomcat, RTT rises →
+ * the gradient drops below 1 and the limit shrinks until RTT recovers.
+ *
+ * Per sample:
+ *   gradient = clamp(tolerance x minRtt / shortRtt, 0.5, 1.0)
+ *   newLimit = limit x gradient + sqrt(limit)      (sqrt = room to probe upwards)
+ *   limit    = limit x (1 - smoothing) + newLimit x smoothing
+ * minRtt is the minimum over the current and previous window, so a
+ * permanently slower downstream (bigger catalog, new deploy) is re-learned.
+ * A dropped request (timeout, 503/504) cuts the limit by backoffRatio.
+ * Samples taken while less than half the limit was in use never raise the
+ * limit, otherwise an idle period would inflate it without evidence.
+ *
+ * tryAcquire() is a single CAS loop; only the sample update is synchronized.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_WINDOW_ALPHA = 0.1;
+    private static final long MIN_RTT_WINDOW_NANOS = 30_000_000_000L;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // guarded by this
+    private double estimatedLimit;
+    private double shortRttNanos;
+    private long previousWindowMinRtt = Long.MAX_VALUE;
+    private long windowMinRtt = Long.MAX_VALUE;
+    private long windowStart = System.nanoTime();
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance){
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Take a slot if fewer than limit x share requests are in flight.
+     * share &lt; 1 keeps headroom for higher-priority traffic.
+     *
+     * @return in-flight count including this request, or -1 if rejected
+     */
+    public int tryAcquire(double share){
+        int allowed = Math.max(1, (int) (limit * share));
+        while(true){
+            int current = inFlight.get();
+            if(current >= allowed){
+                return -1;
+            }
+            if(inFlight.compareAndSet(current, current + 1)){
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Give the slot back and feed the RTT into the limit.
+     *
+     * @param inFlightAtStart value returned by tryAcquire
+     * @param dropped the request timed out or the downstream said it is overloaded
+     */
+    public void release(long rttNanos, int inFlightAtStart, boolean dropped){
+        inFlight.decrementAndGet();
+        onSample(rttNanos, inFlightAtStart, dropped);
+    }
+
+    /**
+     * Give the slot back without a sample (client cancelled).
+     */
+    public void release(){
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart, boolean dropped){
+        if(dropped){
+            estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+            limit = (int) estimatedLimit;
+            return;
+        }
+        if(rttNanos <= 0){
+            return;
+        }
+        shortRttNanos = shortRttNanos == 0 ? rttNanos
+                : shortRttNanos + (rttNanos - shortRttNanos) * SHORT_WINDOW_ALPHA;
+
+        long now = System.nanoTime();
+        if(now - windowStart > MIN_RTT_WINDOW_NANOS){
+            previousWindowMinRtt = windowMinRtt;
+            windowMinRtt = Long.MAX_VALUE;
+            windowStart = now;
+        }
+        windowMinRtt = Math.min(windowMinRtt, rttNanos);
+        long minRtt = Math.min(windowMinRtt, previousWindowMinRtt);
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * minRtt / shortRttNanos));
+        // App-limited: not enough traffic to justify a higher limit
+        if(gradient >= 1.0 && inFlightAtStart < estimatedLimit / 2){
+            return;
+        }
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() { return limit; }
+    public int getInFlight() { return inFlight.get(); }
+}
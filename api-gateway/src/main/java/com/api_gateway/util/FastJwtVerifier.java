@@ -0,0 +1,453 @@
+package com.api_gateway.util;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * Allocation-light JWT verifier (HMAC-SHA fast path)
+ *
+ * WHY: jjwt decodes every segment into new arrays, runs a full Jackson parse
+ * and builds a Claims map - all on the Netty event loop. The gateway only
+ * needs "sub", "role" and "exp", so this verifier:
+ * 1. Base64url-decodes straight from the token chars into per-thread buffers
+ * 2. Verifies the HMAC with a per-thread, pre-keyed Mac (no key derivation)
+ * 3. Scans the payload JSON for sub/role/exp without building a tree
+ *
+ * Anything unusual (other header fields, escaped strings, nested claims,
+ * "nbf", padding, non-ASCII...) is handed to jjwt via JwtUtil, so the fast
+ * path never accepts a token that jjwt would reject.
+ *
+ * NOTE: Keys.hmacShaKeyFor picks the algorithm from the key length, so the
+ * default 54-byte secret produces HS384 tokens. HS256/384/512 are all
+ * supported here, with the same minimum key lengths jjwt enforces.
+ *
+ * Enable with: jwt.verifier=fast (default: jjwt)
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.verifier", havingValue = "fast")
+public class FastJwtVerifier {
+
+    private static final int[] BASE64URL = new int[128];
+
+    static {
+        Arrays.fill(BASE64URL, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for(int i = 0; i < alphabet.length(); i++){
+            BASE64URL[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private static final int[] MAC_BITS = {256, 384, 512};
+    private static final String[] MAC_ALGORITHMS = {"HmacSHA256", "HmacSHA384", "HmacSHA512"};
+
+    private final JwtUtil jwtUtil;
+    private final byte[] keyBytes;
+    private final ThreadLocal<Scratch> scratch;
+
+    public FastJwtVerifier(JwtUtil jwtUtil){
+        this.jwtUtil = jwtUtil;
+        this.keyBytes = jwtUtil.getSigningKey().getEncoded();
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(keyBytes));
+    }
+
+    /**
+     * Verify a compact JWS. Returns null if the token is invalid or expired.
+     */
+    public VerifiedJwt verify(String token){
+        int result;
+        Scratch s = scratch.get();
+        try {
+            result = tryFastPath(token, s);
+        } catch (RuntimeException e) {
+            result = FALLBACK;
+        }
+
+        if(result == VALID){
+            return new VerifiedJwt(s.sub, s.role, s.expiresAt);
+        }
+        if(result == INVALID){
+            return null;
+        }
+        return VerifiedJwt.from(jwtUtil.parseVerifiedClaims(token));
+    }
+
+    // ==== Fast path ====
+
+    private static final int VALID = 0;
+    private static final int INVALID = 1;
+    private static final int FALLBACK = 2;
+
+    private int tryFastPath(String token, Scratch s){
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if(firstDot <= 0 || secondDot < 0 || secondDot == firstDot + 1
+                || secondDot == token.length() - 1 || token.indexOf('.', secondDot + 1) >= 0){
+            return FALLBACK;
+        }
+
+        // Step 1: header must be exactly {"alg":"HSxxx"} (optionally "typ":"JWT")
+        int headerLen = decode(token, 0, firstDot, s.header);
+        if(headerLen < 0){
+            return FALLBACK;
+        }
+        int macIndex = parseHeader(s.header.bytes, headerLen);
+        if(macIndex < 0 || keyBytes.length * 8 < MAC_BITS[macIndex]){
+            return FALLBACK;
+        }
+
+        // Step 2: signature length must match the algorithm
+        int sigLen = decode(token, secondDot + 1, token.length(), s.signature);
+        if(sigLen != MAC_BITS[macIndex] / 8){
+            return FALLBACK;
+        }
+
+        // Step 3: HMAC over "header.payload" (ASCII) with the per-thread Mac
+        Mac mac = s.mac(macIndex);
+        byte[] ascii = s.ascii.ensure(secondDot);
+        for(int i = 0; i < secondDot; i++){
+            char c = token.charAt(i);
+            if(c > 127){
+                return FALLBACK;
+            }
+            ascii[i] = (byte) c;
+        }
+        mac.update(ascii, 0, secondDot);
+        byte[] expected = s.expected;
+        try {
+            mac.doFinal(expected, 0);
+        } catch (GeneralSecurityException e) {
+            return FALLBACK;
+        }
+        int diff = 0;
+        for(int i = 0; i < sigLen; i++){
+            diff |= expected[i] ^ s.signature.bytes[i];
+        }
+        if(diff != 0){
+            System.out.println("❌ Invalid JWT: signature mismatch");
+            return INVALID;
+        }
+
+        // Step 4: payload claims
+        int payloadLen = decode(token, firstDot + 1, secondDot, s.payload);
+        if(payloadLen < 0 || !parsePayload(s.payload.bytes, payloadLen, s)){
+            return FALLBACK;
+        }
+        if(System.currentTimeMillis() >= s.expiresAt){
+            System.out.println("❌ Invalid JWT: token expired");
+            return INVALID;
+        }
+        return VALID;
+    }
+
+    /**
+     * Base64url (no padding) decode of token[from, to) into the buffer.
+     * Returns decoded length, or -1 on anything that isn't canonical base64url.
+     */
+    private static int decode(String token, int from, int to, Buffer out){
+        int n = to - from;
+        if(n % 4 == 1){
+            return -1;
+        }
+        byte[] dst = out.ensure(n * 3 / 4);
+        int di = 0;
+        int bits = 0;
+        int acc = 0;
+        for(int i = from; i < to; i++){
+            char c = token.charAt(i);
+            int v = c < 128 ? BASE64URL[c] : -1;
+            if(v < 0){
+                return -1;
+            }
+            acc = (acc << 6) | v;
+            bits += 6;
+            if(bits >= 8){
+                bits -= 8;
+                dst[di++] = (byte) (acc >> bits);
+            }
+        }
+        // Leftover bits must be zero for a canonical encoding
+        if((acc & ((1 << bits) - 1)) != 0){
+            return -1;
+        }
+        return di;
+    }
+
+    /**
+     * Returns the Mac index for {"alg":"HS256|HS384|HS512"} with an optional "typ":"JWT",
+     * or -1 if the header contains anything else.
+     */
+    private static int parseHeader(byte[] b, int len){
+        JsonScanner json = new JsonScanner(b, len);
+        if(!json.expect('{')){
+            return -1;
+        }
+        int macIndex = -1;
+        boolean first = true;
+        while(true){
+            if(json.peek() == '}' && first){
+                break;
+            }
+            int keyStart = json.stringStart();
+            if(keyStart < 0){
+                return -1;
+            }
+            int keyEnd = json.stringEnd();
+            if(keyEnd < 0 || !json.expect(':')){
+                return -1;
+            }
+            int valueStart = json.stringStart();
+            if(valueStart < 0){
+                return -1;
+            }
+            int valueEnd = json.stringEnd();
+            if(valueEnd < 0){
+                return -1;
+            }
+            if(json.equalsAscii(keyStart, keyEnd, "alg") && macIndex < 0){
+                if(json.equalsAscii(valueStart, valueEnd, "HS256")) macIndex = 0;
+                else if(json.equalsAscii(valueStart, valueEnd, "HS384")) macIndex = 1;
+                else if(json.equalsAscii(valueStart, valueEnd, "HS512")) macIndex = 2;
+                else return -1;
+            } else if(!(json.equalsAscii(keyStart, keyEnd, "typ") && json.equalsAscii(valueStart, valueEnd, "JWT"))){
+                return -1;
+            }
+            first = false;
+            if(json.expect(',')){
+                continue;
+            }
+            break;
+        }
+        if(!json.expect('}') || !json.atEnd()){
+            return -1;
+        }
+        return macIndex;
+    }
+
+    /**
+     * Scan a flat claims object for sub / role / exp.
+     * Other claims are skipped; nested values, escapes in wanted fields,
+     * duplicate wanted fields, fractional exp and "nbf" all return false.
+     */
+    private static boolean parsePayload(byte[] b, int len, Scratch s){
+        JsonScanner json = new JsonScanner(b, len);
+        s.sub = null;
+        s.role = null;
+        s.expiresAt = Long.MAX_VALUE;
+        boolean seenSub = false, seenRole = false, seenExp = false;
+
+        if(!json.expect('{')){
+            return false;
+        }
+        if(json.peek() == '}'){
+            json.expect('}');
+            return json.atEnd();
+        }
+        do {
+            int keyStart = json.stringStart();
+            int keyEnd = keyStart < 0 ? -1 : json.stringEnd();
+            if(keyEnd < 0 || !json.expect(':')){
+                return false;
+            }
+            if(json.equalsAscii(keyStart, keyEnd, "sub")){
+                if(seenSub || (s.sub = json.readSimpleString()) == null) return false;
+                seenSub = true;
+            } else if(json.equalsAscii(keyStart, keyEnd, "role")){
+                if(seenRole || (s.role = json.readSimpleString()) == null) return false;
+                seenRole = true;
+            } else if(json.equalsAscii(keyStart, keyEnd, "exp")){
+                long exp = json.readLong();
+                if(seenExp || exp < 0 || exp > Long.MAX_VALUE / 1000) return false;
+                s.expiresAt = exp * 1000;
+                seenExp = true;
+            } else if(json.equalsAscii(keyStart, keyEnd, "nbf")){
+                return false;
+            } else if(!json.skipScalar()){
+                return false;
+            }
+        } while(json.expect(','));
+
+        return json.expect('}') && json.atEnd();
+    }
+
+    // ==== Per-thread state ====
+
+    private static final class Buffer {
+        byte[] bytes = new byte[256];
+
+        byte[] ensure(int size){
+            if(bytes.length < size){
+                bytes = new byte[Math.max(size, bytes.length * 2)];
+            }
+            return bytes;
+        }
+    }
+
+    private static final class Scratch {
+        final byte[] key;
+        final Mac[] macs = new Mac[MAC_ALGORITHMS.length];
+        final Buffer header = new Buffer();
+        final Buffer payload = new Buffer();
+        final Buffer signature = new Buffer();
+        final Buffer ascii = new Buffer();
+        final byte[] expected = new byte[64];
+
+        // Result of the last successful parse on this thread
+        String sub;
+        String role;
+        long expiresAt;
+
+        Scratch(byte[] key){
+            this.key = key;
+        }
+
+        Mac mac(int index){
+            Mac mac = macs[index];
+            if(mac == null){
+                try {
+                    mac = Mac.getInstance(MAC_ALGORITHMS[index]);
+                    mac.init(new SecretKeySpec(key, MAC_ALGORITHMS[index]));
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+                macs[index] = mac;
+            }
+            return mac;
+        }
+    }
+
+    /**
+     * Minimal forward-only JSON scanner over a byte range.
+     */
+    private static final class JsonScanner {
+        private final byte[] b;
+        private final int len;
+        private int pos;
+
+        JsonScanner(byte[] b, int len){
+            this.b = b;
+            this.len = len;
+        }
+
+        private void skipWs(){
+            while(pos < len && (b[pos] == ' ' || b[pos] == '\t' || b[pos] == '\n' || b[pos] == '\r')){
+                pos++;
+            }
+        }
+
+        int peek(){
+            skipWs();
+            return pos < len ? b[pos] : -1;
+        }
+
+        boolean expect(char c){
+            skipWs();
+            if(pos < len && b[pos] == c){
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        boolean atEnd(){
+            skipWs();
+            return pos == len;
+        }
+
+        /** Consume an opening quote; returns index of first content byte or -1. */
+        int stringStart(){
+            return expect('"') ? pos : -1;
+        }
+
+        /** Consume up to the closing quote of an escape-free string; returns end index or -1. */
+        int stringEnd(){
+            while(pos < len){
+                byte c = b[pos];
+                if(c == '"'){
+                    return pos++;
+                }
+                if(c == '\\' || (c >= 0 && c < 0x20)){
+                    return -1;
+                }
+                pos++;
+            }
+            return -1;
+        }
+
+        String readSimpleString(){
+            int start = stringStart();
+            if(start < 0){
+                return null;
+            }
+            int end = stringEnd();
+            return end < 0 ? null : new String(b, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        long readLong(){
+            skipWs();
+            long v = 0;
+            int start = pos;
+            while(pos < len && b[pos] >= '0' && b[pos] <= '9'){
+                if(pos - start >= 18){
+                    return -1;
+                }
+                v = v * 10 + (b[pos++] - '0');
+            }
+            if(pos == start){
+                return -1;
+            }
+            // exp must be an integral NumericDate for the fast path
+            if(pos < len && (b[pos] == '.' || b[pos] == 'e' || b[pos] == 'E')){
+                return -1;
+            }
+            return v;
+        }
+
+        /** Skip a string (escapes allowed), number, true, false or null. Objects/arrays are rejected. */
+        boolean skipScalar(){
+            skipWs();
+            if(pos >= len){
+                return false;
+            }
+            byte c = b[pos];
+            if(c == '"'){
+                pos++;
+                while(pos < len){
+                    byte x = b[pos++];
+                    if(x == '\\'){
+                        pos++;
+                    } else if(x == '"'){
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if(c == '{' || c == '['){
+                return false;
+            }
+            int start = pos;
+            while(pos < len && b[pos] != ',' && b[pos] != '}' && b[pos] != ' ' && b[pos] != '\n'
+                    && b[pos] != '\r' && b[pos] != '\t'){
+                pos++;
+            }
+            return pos > start;
+        }
+
+        boolean equalsAscii(int start, int end, String s){
+            if(end - start != s.length()){
+                return false;
+            }
+            for(int i = 0; i < s.length(); i++){
+                if(b[start + i] != s.charAt(i)){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.api_gateway.util;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides which of two attempts (primary, hedge) owns the client response.
+ *
+ * Each attempt writes through its own Contender response. The first one to
+ * set a status - i.e. the first upstream to answer with headers - wins;
+ * from then on the other attempt's writes go nowhere and its lost() signal
+ * fires so the caller can cancel it (closing its upstream connection).
+ *
+ * Because the winner streams straight into the real response, nothing is
+ * buffered and large bodies are fine.
+ */
+public class HedgeRace {
+
+    public static final int PRIMARY = 1;
+    public static final int HEDGE = 2;
+
+    private final ServerHttpResponse response;
+    private final AtomicInteger winner = new AtomicInteger();
+    private final Sinks.Empty<Void> primaryLost = Sinks.empty();
+    private final Sinks.Empty<Void> hedgeLost = Sinks.empty();
+
+    public HedgeRace(ServerHttpResponse response){
+        this.response = response;
+    }
+
+    public ServerHttpResponse contender(int attempt){
+        return new Contender(response, attempt);
+    }
+
+    public int winner(){
+        return winner.get();
+    }
+
+    public boolean isDecided(){
+        return winner.get() != 0;
+    }
+
+    /**
+     * Completes when the given attempt has lost the race.
+     */
+    public Mono<Void> lost(int attempt){
+        return (attempt == PRIMARY ? primaryLost : hedgeLost).asMono();
+    }
+
+    private boolean claim(int attempt){
+        if(winner.compareAndSet(0, attempt)){
+            (attempt == PRIMARY ? hedgeLost : primaryLost).tryEmitEmpty();
+            return true;
+        }
+        return winner.get() == attempt;
+    }
+
+    private boolean isLoser(int attempt){
+        int current = winner.get();
+        return current != 0 && current != attempt;
+    }
+
+    private class Contender extends ServerHttpResponseDecorator {
+
+        private final int attempt;
+        private final HttpHeaders discarded = new HttpHeaders();
+
+        Contender(ServerHttpResponse delegate, int attempt){
+            super(delegate);
+            this.attempt = attempt;
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            return claim(attempt) && super.setStatusCode(status);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return isLoser(attempt) ? discarded : super.getHeaders();
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if(!claim(attempt)){
+                return Flux.from(body).doOnNext(DataBufferUtils::release).then();
+            }
+            return super.writeWith(body);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            if(!claim(attempt)){
+                return Flux.from(body).flatMap(Flux::from).doOnNext(DataBufferUtils::release).then();
+            }
+            return super.writeAndFlushWith(body);
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return claim(attempt) ? super.setComplete() : Mono.empty();
+        }
+    }
+}
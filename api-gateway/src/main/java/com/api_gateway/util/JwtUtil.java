@@ -2,8 +2,10 @@ package com.api_gateway.util;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -33,15 +35,28 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String secret;
 
-    @Value("${jwt.expiration}")
+    @Value("${jwt.expiration:86400000}")
     private Long expiration;
 
+    // Derived once at startup: building the key and parser per call was
+    // a measurable share of the gateway's per-request CPU.
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init(){
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
     /**
      Get Signing key from secret String
      */
-    private SecretKey getSigningKey(){
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public SecretKey getSigningKey(){
+        return signingKey;
     }
 
     /**
@@ -54,10 +69,7 @@ public class JwtUtil {
 
     public boolean validateToken(String token){
         try{
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
+            jwtParser.parseSignedClaims(token);
             return true;
         } catch (Exception e) {
             System.out.println("❌ Invalid JWT: " + e.getMessage());
@@ -70,13 +82,24 @@ public class JwtUtil {
      *Claims = user info stored in JWT (username, roles,etc.)
      */
     public Claims getAllClaims(String token){
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
+        return jwtParser.parseSignedClaims(token)
                 .getPayload();
     }
 
+    /**
+     * Verify signature + expiry and return the claims in ONE parse.
+     * Returns null instead of throwing so callers on the event loop
+     * don't pay for exception handling on the happy path.
+     */
+    public Claims parseVerifiedClaims(String token){
+        try{
+            return jwtParser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            System.out.println("❌ Invalid JWT: " + e.getMessage());
+            return null;
+        }
+    }
+
     //check if token is expired
     public boolean isTokenExpired(String token){
         try{
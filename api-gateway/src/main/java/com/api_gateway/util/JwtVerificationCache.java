@@ -0,0 +1,183 @@
+package com.api_gateway.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verified-claims cache for the gateway.
+ *
+ * WHY: The same token is presented on every request of a session, but
+ * verifying it (HMAC + JSON parse) is the most expensive thing the gateway
+ * does on the event loop. We verify each token once and remember the result.
+ *
+ * Rules:
+ * 1. Key = SHA-256 digest of the token (raw tokens are never kept in memory)
+ * 2. Entry TTL = min(configured TTL, token "exp") → never outlives the token
+ * 3. Bounded: when full, expired entries are swept first, then arbitrary ones
+ * 4. Invalid tokens are NOT cached (an attacker could otherwise fill the cache)
+ *
+ * Metrics (actuator /actuator/metrics):
+ * - gateway.jwt.cache.requests{result=hit|miss}
+ * - gateway.jwt.cache.size, gateway.jwt.cache.hit.ratio
+ * - gateway.jwt.verification (time spent on a real verification)
+ *
+ * Misses are verified by FastJwtVerifier when jwt.verifier=fast, else by jjwt.
+ */
+@Component
+public class JwtVerificationCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final JwtUtil jwtUtil;
+
+    @Autowired(required = false)
+    private FastJwtVerifier fastJwtVerifier;
+
+    private final Map<TokenKey, VerifiedJwt> cache = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer verificationTimer;
+
+    public JwtVerificationCache(JwtUtil jwtUtil,
+                                MeterRegistry meterRegistry,
+                                @Value("${jwt.cache.max-entries:10000}") int maxEntries,
+                                @Value("${jwt.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.jwtUtil = jwtUtil;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+
+        this.hits = Counter.builder("gateway.jwt.cache.requests")
+                .tag("result", "hit")
+                .description("JWT lookups answered from the verified-claims cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("gateway.jwt.cache.requests")
+                .tag("result", "miss")
+                .description("JWT lookups that required a full verification")
+                .register(meterRegistry);
+        this.verificationTimer = Timer.builder("gateway.jwt.verification")
+                .description("Time spent verifying a JWT signature and parsing its claims")
+                .register(meterRegistry);
+        Gauge.builder("gateway.jwt.cache.size", cache, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("gateway.jwt.cache.hit.ratio", this, JwtVerificationCache::hitRatio)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Return the verified claims for a token, or null if the token is invalid or expired.
+     */
+    public VerifiedJwt verify(String token){
+        long now = System.currentTimeMillis();
+        TokenKey key = TokenKey.of(token);
+
+        VerifiedJwt cached = cache.get(key);
+        if(cached != null){
+            if(!cached.isExpired(now)){
+                hits.increment();
+                return cached;
+            }
+            cache.remove(key, cached);
+        }
+
+        misses.increment();
+        long start = System.nanoTime();
+        VerifiedJwt verified = verifyNow(token);
+        verificationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if(verified == null){
+            return null;
+        }
+
+        // Cache entry expires at the earlier of our TTL and the token's own expiry
+        long cacheUntil = Math.min(now + ttlMillis, verified.expiresAt());
+        if(cacheUntil > now){
+            if(cache.size() >= maxEntries){
+                evict(now);
+            }
+            cache.put(key, new VerifiedJwt(verified.username(), verified.role(), cacheUntil));
+        }
+        return verified;
+    }
+
+    /**
+     * Full verification: one parse gives us signature check, expiry check and claims.
+     */
+    protected VerifiedJwt verifyNow(String token){
+        if(fastJwtVerifier != null){
+            return fastJwtVerifier.verify(token);
+        }
+        return VerifiedJwt.from(jwtUtil.parseVerifiedClaims(token));
+    }
+
+    public int size(){
+        return cache.size();
+    }
+
+    public void clear(){
+        cache.clear();
+    }
+
+    private double hitRatio(){
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    /**
+     * Make room: drop expired entries, then (if still full) ~10% of the rest.
+     * ConcurrentHashMap iteration order is hash-based, so the second pass
+     * behaves like random eviction - good enough for session tokens.
+     */
+    private void evict(long now){
+        cache.values().removeIf(jwt -> jwt.isExpired(now));
+
+        int toRemove = cache.size() - maxEntries + Math.max(1, maxEntries / 10);
+        Iterator<TokenKey> it = cache.keySet().iterator();
+        while(toRemove-- > 0 && it.hasNext()){
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * First 128 bits of SHA-256(token). Two longs instead of a byte[] keeps
+     * equals/hashCode cheap and the key small.
+     */
+    record TokenKey(long high, long low) {
+
+        static TokenKey of(String token){
+            MessageDigest digest = SHA_256.get();
+            byte[] hash = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return new TokenKey(toLong(hash, 0), toLong(hash, 8));
+        }
+
+        private static long toLong(byte[] b, int off){
+            long v = 0;
+            for(int i = 0; i < 8; i++){
+                v = (v << 8) | (b[off + i] & 0xFF);
+            }
+            return v;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.api_gateway.util;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Percentile of the most recent latencies (sliding window of samples).
+ *
+ * record() is one atomic increment + one array write, so it can sit on the
+ * hot path. The percentile is recomputed from a copy of the window at most
+ * once per refresh interval; readers in between get the cached value.
+ */
+public class LatencyPercentileTracker {
+
+    private static final int WINDOW = 1024;
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double percentile;
+    private final int minSamples;
+
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong nextRefresh = new AtomicLong(System.nanoTime());
+    private volatile long cached = -1;
+
+    public LatencyPercentileTracker(double percentile, int minSamples){
+        this.percentile = percentile;
+        this.minSamples = Math.min(minSamples, WINDOW);
+    }
+
+    public void record(long nanos){
+        long n = count.getAndIncrement();
+        samples.set((int) (n % WINDOW), nanos);
+    }
+
+    /**
+     * @return the percentile in nanos, or -1 until minSamples have been recorded
+     */
+    public long percentileNanos(){
+        long now = System.nanoTime();
+        long refreshAt = nextRefresh.get();
+        if(now - refreshAt >= 0 && nextRefresh.compareAndSet(refreshAt, now + REFRESH_NANOS)){
+            cached = compute();
+        }
+        return cached;
+    }
+
+    private long compute(){
+        int n = (int) Math.min(count.get(), WINDOW);
+        if(n < minSamples){
+            return -1;
+        }
+        long[] copy = new long[n];
+        for(int i = 0; i < n; i++){
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        return copy[Math.min(n - 1, (int) Math.ceil(percentile * n) - 1)];
+    }
+}
@@ -0,0 +1,111 @@
+package com.api_gateway.util;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.util.function.Consumer;
+
+/**
+ * Response decorator that tees the body into memory while it is written.
+ *
+ * The client still receives the response as it streams; we keep a copy
+ * (up to maxBytes) and hand a ResponseSnapshot to the callback once the
+ * body completes. Bodies over the cap, streamed responses and failed or
+ * cancelled writes produce no snapshot.
+ *
+ * With a beforeCommit hook, a body up to maxBytes is held back until it is
+ * complete and handed to the hook before the first byte (and so the headers)
+ * goes out - e.g. to set an ETag. Larger bodies stream on without it.
+ *
+ * IMPORTANT: filters using this must run before NettyWriteResponseFilter
+ * (order -1), otherwise the body is written to the undecorated response.
+ */
+public class ResponseRecorder extends ServerHttpResponseDecorator {
+
+    private final int maxBytes;
+    private final Consumer<byte[]> beforeCommit;
+    private final Consumer<ResponseSnapshot> onSnapshot;
+    private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+    private boolean overflow;
+
+    public ResponseRecorder(ServerHttpResponse delegate, int maxBytes, Consumer<ResponseSnapshot> onSnapshot){
+        this(delegate, maxBytes, null, onSnapshot);
+    }
+
+    /**
+     * @param beforeCommit called with the whole body (up to maxBytes) while
+     *                     headers can still be changed; null → stream as is
+     */
+    public ResponseRecorder(ServerHttpResponse delegate, int maxBytes, Consumer<byte[]> beforeCommit,
+                            Consumer<ResponseSnapshot> onSnapshot){
+        super(delegate);
+        this.maxBytes = maxBytes;
+        this.beforeCommit = beforeCommit;
+        this.onSnapshot = onSnapshot;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        Flux<DataBuffer> teed = Flux.<DataBuffer>from(body).doOnNext(this::record);
+        if(beforeCommit != null){
+            // One list = the whole body, unless it overflows: then the part
+            // held so far goes out and the rest follows buffer by buffer
+            teed = teed.bufferUntil(buffer -> overflow)
+                    .concatMapIterable(held -> {
+                        if(!overflow){
+                            beforeCommit.accept(copy.toByteArray());
+                        }
+                        return held;
+                    })
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        }
+        return super.writeWith(teed.doOnComplete(this::publish));
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        // Streaming response (SSE, NDJSON...) - not replayable
+        overflow = true;
+        return super.writeAndFlushWith(body);
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+        // No body at all (e.g. 204 or an empty 200)
+        if(copy.size() == 0 && !overflow && !isCommitted()){
+            publish();
+        }
+        return super.setComplete();
+    }
+
+    private void record(DataBuffer buffer){
+        if(overflow){
+            return;
+        }
+        int readable = buffer.readableByteCount();
+        if(copy.size() + readable > maxBytes){
+            overflow = true;
+            copy.reset();
+            return;
+        }
+        // Copy without moving the read position the real write depends on
+        int position = buffer.readPosition();
+        byte[] bytes = new byte[readable];
+        buffer.read(bytes);
+        buffer.readPosition(position);
+        copy.write(bytes, 0, readable);
+    }
+
+    private void publish(){
+        if(overflow || getStatusCode() == null){
+            return;
+        }
+        onSnapshot.accept(ResponseSnapshot.of(getStatusCode(), getHeaders(), copy.toByteArray()));
+    }
+}
@@ -0,0 +1,57 @@
+package com.api_gateway.util;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Immutable copy of a downstream response (status + headers + body bytes).
+ *
+ * Produced by ResponseRecorder, replayed to other clients by the
+ * coalescing / caching filters. The body array is shared, never copied:
+ * each replay just wraps it in a new DataBuffer.
+ */
+public record ResponseSnapshot(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+
+    // Per-connection headers that must not be replayed to another client
+    private static final List<String> NOT_REPLAYED = List.of(
+            HttpHeaders.TRANSFER_ENCODING,
+            HttpHeaders.CONNECTION,
+            HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.SET_COOKIE,
+            "Keep-Alive"
+    );
+
+    public static ResponseSnapshot of(HttpStatusCode status, HttpHeaders source, byte[] body){
+        HttpHeaders copy = new HttpHeaders();
+        source.forEach((name, values) -> {
+            if(NOT_REPLAYED.stream().noneMatch(name::equalsIgnoreCase)){
+                copy.put(name, List.copyOf(values));
+            }
+        });
+        return new ResponseSnapshot(status, HttpHeaders.readOnlyHttpHeaders(copy), body);
+    }
+
+    /**
+     * Write this snapshot as the full response.
+     */
+    public Mono<Void> writeTo(ServerHttpResponse response){
+        response.setStatusCode(status);
+        HttpHeaders target = response.getHeaders();
+        headers.forEach(target::put);
+        target.setContentLength(body.length);
+        if(body.length == 0){
+            return response.setComplete();
+        }
+        DataBuffer buffer = response.bufferFactory().wrap(body);
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    public int size(){
+        return body.length;
+    }
+}
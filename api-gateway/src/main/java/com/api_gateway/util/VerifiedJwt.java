@@ -0,0 +1,32 @@
+package com.api_gateway.util;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * Verified JWT - the only claims the gateway forwards downstream.
+ *
+ * username  → "sub" claim, sent as X-User-Id
+ * role      → "role" claim, sent as X-User-Role
+ * expiresAt → "exp" claim in epoch millis (bounds how long it may be cached)
+ */
+public record VerifiedJwt(String username, String role, long expiresAt) {
+
+    public boolean isExpired(long nowMillis){
+        return nowMillis >= expiresAt;
+    }
+
+    /**
+     * Map jjwt claims to the gateway's view of a token (null stays null).
+     */
+    public static VerifiedJwt from(Claims claims){
+        if(claims == null){
+            return null;
+        }
+        Date exp = claims.getExpiration();
+        long expiresAt = exp != null ? exp.getTime() : Long.MAX_VALUE;
+        Object role = claims.get("role");
+        return new VerifiedJwt(claims.getSubject(), role != null ? role.toString() : null, expiresAt);
+    }
+}
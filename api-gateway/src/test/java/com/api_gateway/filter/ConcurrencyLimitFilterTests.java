@@ -0,0 +1,102 @@
+package com.api_gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Limit fixed at 10 (initial = min): NORMAL may use 9 slots, LOW 6,
+ * CRITICAL all 10. Requests are held in flight by a chain that never answers.
+ */
+class ConcurrencyLimitFilterTests {
+
+    private SimpleMeterRegistry registry;
+    private ConcurrencyLimitFilter filter;
+    private final List<Disposable> inFlight = new ArrayList<>();
+
+    @BeforeEach
+    void setUp(){
+        registry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter(registry, true, 10, 10, 10, 1.5, 0.9, 0.6);
+    }
+
+    @AfterEach
+    void tearDown(){
+        inFlight.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void shedsLowBeforeNormalBeforeCritical(){
+        for(int i = 0; i < 6; i++){
+            assertThat(hold(normal())).isNull();
+        }
+        assertThat(hold(low())).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(hold(normal())).isNull();
+        assertThat(hold(critical())).isNull();
+
+        // 8 in flight: NORMAL gets one more, then only CRITICAL
+        assertThat(hold(normal())).isNull();
+        assertThat(hold(normal())).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(hold(critical())).isNull();
+
+        assertThat(hold(critical())).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(registry.get("gateway.concurrency.shed").tag("priority", "LOW").counter().count()).isEqualTo(1);
+        assertThat(registry.get("gateway.concurrency.shed").tag("priority", "NORMAL").counter().count()).isEqualTo(1);
+        assertThat(registry.get("gateway.concurrency.shed").tag("priority", "CRITICAL").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void finishedRequestsGiveTheirSlotBack(){
+        for(int i = 0; i < 10; i++){
+            assertThat(hold(critical())).isNull();
+        }
+        inFlight.forEach(Disposable::dispose);
+
+        assertThat(hold(low())).isNull();
+    }
+
+    @Test
+    void classifiesRequests(){
+        assertThat(ConcurrencyLimitFilter.priority(critical())).isEqualTo(ConcurrencyLimitFilter.Priority.CRITICAL);
+        assertThat(ConcurrencyLimitFilter.priority(low())).isEqualTo(ConcurrencyLimitFilter.Priority.LOW);
+        assertThat(ConcurrencyLimitFilter.priority(normal())).isEqualTo(ConcurrencyLimitFilter.Priority.NORMAL);
+        // Same listing for a USER is not admin reporting
+        assertThat(ConcurrencyLimitFilter.priority(MockServerHttpRequest.get("/api/books")
+                .header("X-User-Role", "USER").build())).isEqualTo(ConcurrencyLimitFilter.Priority.NORMAL);
+    }
+
+    /**
+     * Runs the request through the filter into a chain that never completes.
+     *
+     * @return the status the filter answered with, null if it let the request through
+     */
+    private HttpStatusCode hold(MockServerHttpRequest request){
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        inFlight.add(filter.filter(exchange, e -> Mono.never()).subscribe());
+        return exchange.getResponse().getStatusCode();
+    }
+
+    private static MockServerHttpRequest critical(){
+        return MockServerHttpRequest.post("/api/orders/cart").header("X-User-Role", "USER").build();
+    }
+
+    private static MockServerHttpRequest normal(){
+        return MockServerHttpRequest.get("/api/books/7").header("X-User-Role", "USER").build();
+    }
+
+    private static MockServerHttpRequest low(){
+        return MockServerHttpRequest.get("/api/books").header("X-User-Role", "ADMIN").build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.api_gateway.filter;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.RewritePathGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PrefixRewriteFilter must produce exactly what the regex rewritePath it
+ * replaced produced, for every path the book route accepts.
+ */
+class PrefixRewriteFilterTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/api/books/123",
+            "/api/books/",
+            "/api/books",
+            "/api/books/in-stock?page=2&size=20",
+            "/api/books/search?q=caf%C3%A9%20cr%C3%A8me",
+            "/api/books/a%2Fb/reduce-stock?quantity=1",
+            "/api/books//double",
+            "/api/books/1/api/books/2",
+            "/api/books/1?redirect=/api/books/2#frag"
+    })
+    void matchesRegexRewritePath(String pathAndQuery){
+        RewritePathGatewayFilterFactory.Config config = new RewritePathGatewayFilterFactory.Config()
+                .setRegexp("/api/books/(?<segment>.*)")
+                .setReplacement("/books/${segment}");
+        GatewayFilter regex = new RewritePathGatewayFilterFactory().apply(config);
+        GatewayFilter prefix = new PrefixRewriteFilter("/api/books/", "/books/");
+
+        ServerWebExchange regexExchange = exchange(pathAndQuery);
+        ServerWebExchange prefixExchange = exchange(pathAndQuery);
+
+        assertThat(forwardedUri(prefix, prefixExchange)).isEqualTo(forwardedUri(regex, regexExchange));
+        assertThat((Object) prefixExchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR))
+                .isEqualTo(regexExchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR));
+    }
+
+    private static ServerWebExchange exchange(String pathAndQuery){
+        return MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost:8080" + pathAndQuery).build());
+    }
+
+    private static URI forwardedUri(GatewayFilter filter, ServerWebExchange exchange){
+        AtomicReference<URI> forwarded = new AtomicReference<>();
+        filter.filter(exchange, e -> {
+            forwarded.set(e.getRequest().getURI());
+            return Mono.empty();
+        }).block();
+        return forwarded.get();
+    }
+}
@@ -0,0 +1,101 @@
+package com.api_gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 1 token/s for everyone: USER bursts 2, ADMIN bursts 4. Each test finishes
+ * well inside a second, so no token is earned back meanwhile.
+ */
+class RateLimitFilterTests {
+
+    private SimpleMeterRegistry registry;
+    private RateLimitFilter filter;
+    private AtomicInteger forwarded;
+
+    @BeforeEach
+    void setUp(){
+        registry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(registry, true, 1, 2, 1, 4, 300);
+        forwarded = new AtomicInteger();
+    }
+
+    @Test
+    void userOverQuotaGets429WithRetryAfter(){
+        assertThat(send("alice", "USER").getResponse().getStatusCode()).isNull();
+        assertThat(send("alice", "USER").getResponse().getStatusCode()).isNull();
+
+        MockServerWebExchange rejected = send("alice", "USER");
+
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(forwarded.get()).isEqualTo(2);
+    }
+
+    @Test
+    void adminsGetTheirOwnLargerQuota(){
+        for(int i = 0; i < 4; i++){
+            assertThat(send("root", "ADMIN").getResponse().getStatusCode()).isNull();
+        }
+        assertThat(send("root", "ADMIN").getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        // Same id as a USER: separate bucket, smaller burst
+        assertThat(send("root", "USER").getResponse().getStatusCode()).isNull();
+        assertThat(send("root", "USER").getResponse().getStatusCode()).isNull();
+        assertThat(send("root", "USER").getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    void usersDoNotShareBuckets(){
+        send("alice", "USER");
+        send("alice", "USER");
+        send("alice", "USER");
+
+        assertThat(send("bob", "USER").getResponse().getStatusCode()).isNull();
+    }
+
+    @Test
+    void requestsWithoutIdentityPassThrough(){
+        for(int i = 0; i < 10; i++){
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/books").build());
+            filter.filter(exchange, e -> forward()).block();
+        }
+
+        assertThat(forwarded.get()).isEqualTo(10);
+    }
+
+    @Test
+    void rejectionsAreCountedPerRole(){
+        for(int i = 0; i < 5; i++){
+            send("alice", "USER");
+        }
+        send("root", "ADMIN");
+
+        assertThat(registry.get("gateway.ratelimit.rejected").tag("role", "USER").counter().count()).isEqualTo(3);
+        assertThat(registry.find("gateway.ratelimit.rejected").tag("role", "ADMIN").counter()).isNull();
+    }
+
+    private MockServerWebExchange send(String userId, String role){
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/books")
+                .header("X-User-Id", userId)
+                .header("X-User-Role", role)
+                .build());
+        filter.filter(exchange, e -> forward()).block();
+        return exchange;
+    }
+
+    private Mono<Void> forward(){
+        forwarded.incrementAndGet();
+        return Mono.empty();
+    }
+}
@@ -0,0 +1,159 @@
+package com.api_gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The first upstream call is held until release fires, later ones answer
+ * at once, so a test decides exactly when the leader's response arrives.
+ */
+class RequestCoalescingFilterTests {
+
+    private SimpleMeterRegistry registry;
+    private RequestCoalescingFilter filter;
+    private AtomicInteger upstream;
+    private Sinks.Empty<Void> release;
+    private HttpStatus upstreamStatus;
+
+    @BeforeEach
+    void setUp(){
+        registry = new SimpleMeterRegistry();
+        filter = new RequestCoalescingFilter(registry, true, 2_000, 1_024);
+        upstream = new AtomicInteger();
+        release = Sinks.empty();
+        upstreamStatus = HttpStatus.OK;
+    }
+
+    @Test
+    void identicalGetsShareOneUpstreamCall(){
+        MockServerWebExchange leader = send(get("USER"));
+        List<MockServerWebExchange> followers = new ArrayList<>();
+        for(int i = 0; i < 5; i++){
+            followers.add(send(get("USER")));
+        }
+        assertThat(upstream.get()).isEqualTo(1);
+
+        release.tryEmitEmpty();
+
+        assertThat(body(leader)).isEqualTo("book 1");
+        for(MockServerWebExchange follower : followers){
+            assertThat(follower.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(body(follower)).isEqualTo("book 1");
+        }
+        assertThat(upstream.get()).isEqualTo(1);
+        assertThat(count("leader")).isEqualTo(1);
+        assertThat(count("coalesced")).isEqualTo(5);
+    }
+
+    @Test
+    void differentRolesAreNotCoalesced(){
+        send(get("USER"));
+        send(get("ADMIN"));
+
+        assertThat(upstream.get()).isEqualTo(2);
+    }
+
+    @Test
+    void nonGetRequestsAlwaysGoUpstream(){
+        send(MockServerHttpRequest.post("/api/books/7").header("X-User-Role", "USER").build());
+        send(MockServerHttpRequest.post("/api/books/7").header("X-User-Role", "USER").build());
+
+        assertThat(upstream.get()).isEqualTo(2);
+        assertThat(count("leader")).isZero();
+    }
+
+    @Test
+    void waitersMakeTheirOwnCallWhenTheLeaderGets5xx(){
+        upstreamStatus = HttpStatus.SERVICE_UNAVAILABLE;
+        send(get("USER"));
+        MockServerWebExchange follower = send(get("USER"));
+
+        release.tryEmitEmpty();
+
+        assertThat(upstream.get()).isEqualTo(2);
+        assertThat(body(follower)).isEqualTo("book 2");
+        assertThat(count("fallback")).isEqualTo(1);
+    }
+
+    @Test
+    void waitersStopWaitingForASlowLeader(){
+        filter = new RequestCoalescingFilter(registry, true, 50, 1_024);
+        send(get("USER"));
+
+        MockServerWebExchange follower = MockServerWebExchange.from(get("USER"));
+        filter.filter(follower, this::upstream).block(Duration.ofSeconds(5));
+
+        assertThat(body(follower)).isEqualTo("book 2");
+        assertThat(count("fallback")).isEqualTo(1);
+    }
+
+    @Test
+    void bodiesOverTheCapAreNotShared(){
+        filter = new RequestCoalescingFilter(registry, true, 2_000, 4);
+        send(get("USER"));
+        MockServerWebExchange follower = send(get("USER"));
+
+        release.tryEmitEmpty();
+
+        assertThat(upstream.get()).isEqualTo(2);
+        assertThat(body(follower)).isEqualTo("book 2");
+    }
+
+    @Test
+    void aFinishedLeaderIsNotReused(){
+        send(get("USER"));
+        release.tryEmitEmpty();
+
+        MockServerWebExchange next = send(get("USER"));
+
+        assertThat(upstream.get()).isEqualTo(2);
+        assertThat(body(next)).isEqualTo("book 2");
+        assertThat(registry.get("gateway.coalescing.in.flight").gauge().value()).isZero();
+    }
+
+    private MockServerWebExchange send(MockServerHttpRequest request){
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, this::upstream).subscribe();
+        return exchange;
+    }
+
+    // Answers "book <n>" for the n-th upstream call; the first one waits for release
+    private Mono<Void> upstream(ServerWebExchange exchange){
+        int n = upstream.incrementAndGet();
+        Mono<Void> wait = n == 1 ? release.asMono() : Mono.empty();
+        return wait.then(Mono.defer(() -> {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(upstreamStatus);
+            byte[] body = ("book " + n).getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }));
+    }
+
+    private double count(String result){
+        return registry.get("gateway.coalescing.requests").tag("result", result).counter().count();
+    }
+
+    private static String body(MockServerWebExchange exchange){
+        return exchange.getResponse().getBodyAsString().block(Duration.ofSeconds(5));
+    }
+
+    private static MockServerHttpRequest get(String role){
+        return MockServerHttpRequest.get("/api/books/7").header("X-User-Role", role).build();
+    }
+}
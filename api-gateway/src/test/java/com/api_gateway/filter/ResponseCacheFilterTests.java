@@ -0,0 +1,156 @@
+package com.api_gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upstream answers "<path> <n>" for the n-th call; while hold is set the
+ * next call waits for it, so a test decides when a miss completes.
+ */
+class ResponseCacheFilterTests {
+
+    private ResponseCacheFilter filter;
+    private AtomicInteger upstream;
+    private Sinks.Empty<Void> hold;
+
+    @BeforeEach
+    void setUp(){
+        filter = new ResponseCacheFilter(new SimpleMeterRegistry(), true, 30, 100, 1_000_000, 1_024);
+        upstream = new AtomicInteger();
+    }
+
+    @Test
+    void aWriteDropsItsBookAndTheListsOnly(){
+        get("/api/books/7");
+        get("/api/books/8");
+        get("/api/books");
+
+        send(MockServerHttpRequest.put("/api/books/7").build());
+
+        assertThat(isHit(get("/api/books/7"))).isFalse();
+        assertThat(isHit(get("/api/books/8"))).isTrue();
+        assertThat(isHit(get("/api/books"))).isFalse();
+    }
+
+    @Test
+    void aReadRacingAWriteOnAnotherBookIsStillStored(){
+        Sinks.Empty<Void> release = Sinks.empty();
+        hold = release;
+        MockServerWebExchange read = send(MockServerHttpRequest.get("/api/books/8").build());
+
+        send(MockServerHttpRequest.put("/api/books/7").build());
+        release.tryEmitEmpty();
+
+        assertThat(body(read)).isEqualTo("/api/books/8 1");
+        assertThat(isHit(get("/api/books/8"))).isTrue();
+    }
+
+    @Test
+    void aReadRacingAWriteOnItsBookIsNotStored(){
+        Sinks.Empty<Void> release = Sinks.empty();
+        hold = release;
+        MockServerWebExchange read = send(MockServerHttpRequest.get("/api/books/7").build());
+
+        send(MockServerHttpRequest.put("/api/books/7").build());
+        release.tryEmitEmpty();
+
+        assertThat(body(read)).isEqualTo("/api/books/7 1");
+        assertThat(isHit(get("/api/books/7"))).isFalse();
+    }
+
+    @Test
+    void cartOrdersDropEverything(){
+        get("/api/books/7");
+        get("/api/books");
+
+        send(MockServerHttpRequest.post("/api/orders/cart").build());
+
+        assertThat(isHit(get("/api/books/7"))).isFalse();
+        assertThat(isHit(get("/api/books"))).isFalse();
+        // Refilled under the new epoch
+        assertThat(isHit(get("/api/books/7"))).isTrue();
+    }
+
+    @Test
+    void unrelatedWritesKeepTheCache(){
+        get("/api/books/7");
+
+        send(MockServerHttpRequest.post("/api/auth/login").build());
+
+        assertThat(isHit(get("/api/books/7"))).isTrue();
+    }
+
+    @Test
+    void aMatchingIfNoneMatchAnswers304(){
+        String etag = get("/api/books/7").getResponse().getHeaders().getETag();
+
+        MockServerWebExchange revalidate = send(MockServerHttpRequest.get("/api/books/7")
+                .header("If-None-Match", "\"other\", W/" + etag).build());
+
+        assertThat(revalidate.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(upstream.get()).isEqualTo(1);
+    }
+
+    @Test
+    void ifNoneMatchComparesWholeTags(){
+        String etag = "\"abc123\"";
+
+        assertThat(ResponseCacheFilter.matchesAny("\"abc123\"", etag)).isTrue();
+        assertThat(ResponseCacheFilter.matchesAny("W/\"abc123\"", etag)).isTrue();
+        assertThat(ResponseCacheFilter.matchesAny("\"x\" ,\t\"abc123\"", etag)).isTrue();
+        assertThat(ResponseCacheFilter.matchesAny(" * ", etag)).isTrue();
+        // Substrings and supersets of the tag are different tags
+        assertThat(ResponseCacheFilter.matchesAny("\"abc1\"", etag)).isFalse();
+        assertThat(ResponseCacheFilter.matchesAny("\"xabc123\"", etag)).isFalse();
+        assertThat(ResponseCacheFilter.matchesAny("\"x\"abc123\"\"", etag)).isFalse();
+        assertThat(ResponseCacheFilter.matchesAny("abc123", etag)).isFalse();
+        assertThat(ResponseCacheFilter.matchesAny("", etag)).isFalse();
+    }
+
+    private MockServerWebExchange get(String path){
+        MockServerWebExchange exchange = send(MockServerHttpRequest.get(path).build());
+        body(exchange);
+        return exchange;
+    }
+
+    private MockServerWebExchange send(MockServerHttpRequest request){
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, this::upstream).subscribe();
+        return exchange;
+    }
+
+    private Mono<Void> upstream(ServerWebExchange exchange){
+        int n = upstream.incrementAndGet();
+        Mono<Void> wait = hold != null ? hold.asMono() : Mono.empty();
+        hold = null;
+        return wait.then(Mono.defer(() -> {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            String path = exchange.getRequest().getURI().getRawPath();
+            byte[] body = (path + " " + n).getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }));
+    }
+
+    private static boolean isHit(MockServerWebExchange exchange){
+        return "HIT".equals(exchange.getResponse().getHeaders().getFirst("X-Cache"));
+    }
+
+    private static String body(MockServerWebExchange exchange){
+        return exchange.getResponse().getBodyAsString().block(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,98 @@
+package com.api_gateway.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Rotation is driven by hand (Series#rotate) instead of the interval timer.
+ */
+class LatencyHistogramsTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LatencyHistograms histograms = new LatencyHistograms(registry, 10);
+
+    @Test
+    void recordingsShowUpOnlyAfterARotation(){
+        recordMillis(1, 100);
+        LatencyHistograms.Series series = series();
+
+        assertThat(series.lastInterval().getTotalCount()).isZero();
+
+        series.rotate();
+
+        assertThat(series.lastInterval().getTotalCount()).isEqualTo(100);
+        assertThat(series.cumulative().getTotalCount()).isEqualTo(100);
+        assertThat(p50()).isCloseTo(50.0, within(0.1));
+    }
+
+    @Test
+    void eachIntervalOnlyHoldsItsOwnRecordings(){
+        recordMillis(1, 100);
+        series().rotate();
+        recordMillis(200, 10);
+        series().rotate();
+
+        assertThat(series().lastInterval().getTotalCount()).isEqualTo(10);
+        assertThat(p50()).isCloseTo(204.0, within(0.2));
+        assertThat(series().cumulative().getTotalCount()).isEqualTo(110);
+
+        // Third interval reuses the first one's histogram: nothing of it may leak in
+        recordMillis(5, 1);
+        series().rotate();
+
+        assertThat(series().lastInterval().getTotalCount()).isEqualTo(1);
+        assertThat(series().cumulative().getTotalCount()).isEqualTo(111);
+    }
+
+    @Test
+    void anEmptyIntervalPublishesZero(){
+        recordMillis(1, 100);
+        series().rotate();
+        series().rotate();
+
+        assertThat(series().lastInterval().getTotalCount()).isZero();
+        assertThat(p50()).isZero();
+        assertThat(series().cumulative().getTotalCount()).isEqualTo(100);
+    }
+
+    @Test
+    void seriesAreKeptPerRouteStatusAndPhase(){
+        histograms.record("book-service", "2xx", LatencyHistograms.TOTAL, 1_000_000);
+        histograms.record("book-service", "5xx", LatencyHistograms.TOTAL, 1_000_000);
+        histograms.record("book-service", "2xx", LatencyHistograms.UPSTREAM, 1_000_000);
+        histograms.record("book-service", "2xx", LatencyHistograms.TOTAL, 1_000_000);
+
+        assertThat(histograms.getSeries()).hasSize(3);
+        assertThat(registry.find("gateway.latency").gauges()).hasSize(3 * 4);
+    }
+
+    @Test
+    void statusClasses(){
+        assertThat(LatencyHistograms.statusClass(HttpStatus.OK)).isEqualTo("2xx");
+        assertThat(LatencyHistograms.statusClass(HttpStatus.SERVICE_UNAVAILABLE)).isEqualTo("5xx");
+        assertThat(LatencyHistograms.statusClass(null)).isEqualTo("none");
+    }
+
+    // from, from + 1, ... ms, one recording each
+    private void recordMillis(int fromMillis, int count){
+        for(int i = 0; i < count; i++){
+            histograms.record("book-service", "2xx", LatencyHistograms.TOTAL,
+                    TimeUnit.MILLISECONDS.toNanos(fromMillis + i));
+        }
+    }
+
+    private LatencyHistograms.Series series(){
+        return histograms.getSeries().get(new LatencyHistograms.Key("book-service", "2xx", LatencyHistograms.TOTAL));
+    }
+
+    private double p50(){
+        return registry.get("gateway.latency").tag("route", "book-service").tag("status", "2xx")
+                .tag("phase", LatencyHistograms.TOTAL).tag("quantile", "0.5").gauge().value();
+    }
+}
@@ -0,0 +1,77 @@
+package com.api_gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * RTT samples are fed in directly, all inside one min-RTT window (30 s),
+ * so the limit only depends on the samples given.
+ */
+class AdaptiveConcurrencyLimitTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 10, 500, 1.5);
+
+    @Test
+    void growsWhileRttStaysAtTheBaseline(){
+        busySamples(FAST, 50);
+
+        assertThat(limit.getLimit()).isGreaterThan(50);
+    }
+
+    @Test
+    void shrinksWhenRttInflatesAndRecoversAfterwards(){
+        busySamples(FAST, 50);
+        int healthy = limit.getLimit();
+
+        busySamples(SLOW, 200);
+        int overloaded = limit.getLimit();
+        assertThat(overloaded).isLessThan(healthy);
+        assertThat(overloaded).isEqualTo(10); // down to min-limit
+
+        busySamples(FAST, 500);
+        assertThat(limit.getLimit()).isGreaterThanOrEqualTo(healthy);
+    }
+
+    @Test
+    void idleSamplesNeverRaiseTheLimit(){
+        for(int i = 0; i < 100; i++){
+            assertThat(limit.tryAcquire(1.0)).isEqualTo(1);
+            limit.release(FAST, 1, false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void droppedRequestsBackOff(){
+        limit.tryAcquire(1.0);
+        limit.release(FAST, 1, true);
+
+        assertThat(limit.getLimit()).isEqualTo(45);
+    }
+
+    @Test
+    void lowerSharesHitTheirCeilingFirst(){
+        for(int i = 0; i < 30; i++){
+            assertThat(limit.tryAcquire(1.0)).isPositive();
+        }
+
+        assertThat(limit.tryAcquire(0.6)).isEqualTo(-1);  // 30 of 50 in use
+        assertThat(limit.tryAcquire(0.9)).isEqualTo(31);
+        assertThat(limit.tryAcquire(1.0)).isEqualTo(32);
+    }
+
+    // Each sample taken with the whole limit in use
+    private void busySamples(long rttNanos, int count){
+        for(int i = 0; i < count; i++){
+            limit.tryAcquire(1.0);
+            limit.release(rttNanos, limit.getLimit(), false);
+        }
+    }
+}
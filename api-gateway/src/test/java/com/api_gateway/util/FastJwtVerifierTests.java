@@ -0,0 +1,74 @@
+package com.api_gateway.util;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The fast path must agree with jjwt on every token - valid, tampered or odd.
+ */
+class FastJwtVerifierTests {
+
+    private static final String SECRET =
+            "MySecretKeyForJWTTokenGenerationMustBe256BitsLong12345MySecretKeyForJWTTokenGeneration";
+
+    @ParameterizedTest
+    @ValueSource(ints = {32, 54, 64})
+    void agreesWithJjwt(int secretLength){
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET.substring(0, secretLength));
+        jwtUtil.init();
+        FastJwtVerifier fast = new FastJwtVerifier(jwtUtil);
+
+        for(String token : tokens(jwtUtil)){
+            VerifiedJwt expected = VerifiedJwt.from(jwtUtil.parseVerifiedClaims(token));
+            assertThat(fast.verify(token)).as(token).isEqualTo(expected);
+        }
+    }
+
+    private List<String> tokens(JwtUtil jwtUtil){
+        long now = System.currentTimeMillis();
+        Date inAMinute = new Date(now + 60_000);
+        List<String> tokens = new ArrayList<>();
+
+        // Happy path (auth_service claim set) and variants the fast path must accept
+        tokens.add(Jwts.builder().claim("email", "a@b.com").claim("role", "USER").subject("alice")
+                .issuedAt(new Date(now)).expiration(inAMinute).signWith(jwtUtil.getSigningKey()).compact());
+        tokens.add(Jwts.builder().claim("role", "ADMIN").subject("bøb")
+                .expiration(inAMinute).signWith(jwtUtil.getSigningKey()).compact());
+        tokens.add(Jwts.builder().claim("role", "USER").subject("hs256")
+                .expiration(inAMinute).signWith(jwtUtil.getSigningKey(), Jwts.SIG.HS256).compact());
+        tokens.add(Jwts.builder().claim("role", "USER").subject("no-exp")
+                .signWith(jwtUtil.getSigningKey()).compact());
+
+        // Cases the fast path hands to jjwt
+        tokens.add(Jwts.builder().claim("role", "US\"ER").subject("al\\ice")
+                .expiration(inAMinute).signWith(jwtUtil.getSigningKey()).compact());
+        tokens.add(Jwts.builder().claim("nested", Map.of("x", 1)).claim("role", "USER").subject("nested")
+                .expiration(inAMinute).signWith(jwtUtil.getSigningKey()).compact());
+        tokens.add(Jwts.builder().claim("role", "USER").subject("nbf").notBefore(inAMinute)
+                .expiration(new Date(now + 120_000)).signWith(jwtUtil.getSigningKey()).compact());
+        tokens.add(Jwts.builder().header().keyId("k1").and().claim("role", "USER").subject("kid")
+                .expiration(inAMinute).signWith(jwtUtil.getSigningKey()).compact());
+
+        // Invalid tokens
+        String valid = tokens.get(0);
+        String[] parts = valid.split("\\.");
+        tokens.add(Jwts.builder().claim("role", "USER").subject("expired")
+                .expiration(new Date(now - 5_000)).signWith(jwtUtil.getSigningKey()).compact());
+        tokens.add(valid.substring(0, valid.length() - 3) + "abc");
+        tokens.add(parts[0] + "." + parts[1].substring(0, parts[1].length() - 2) + "xx." + parts[2]);
+        tokens.add(parts[0] + "." + parts[1]);
+        tokens.add(valid + "=");
+        tokens.add("not-a-jwt");
+        return tokens;
+    }
+}
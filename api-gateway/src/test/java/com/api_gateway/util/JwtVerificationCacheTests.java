@@ -0,0 +1,84 @@
+package com.api_gateway.util;
+
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtVerificationCacheTests {
+
+    private static final String SECRET = "MySecretKeyForJWTTokenGenerationMustBe256BitsLong12345";
+
+    private JwtUtil jwtUtil;
+    private SimpleMeterRegistry registry;
+    private JwtVerificationCache cache;
+
+    @BeforeEach
+    void setUp(){
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        jwtUtil.init();
+        registry = new SimpleMeterRegistry();
+        cache = new JwtVerificationCache(jwtUtil, registry, 100, 300);
+    }
+
+    @Test
+    void verifiesOnceThenServesFromCache(){
+        String token = token("alice", "USER", 60_000);
+
+        VerifiedJwt first = cache.verify(token);
+        VerifiedJwt second = cache.verify(token);
+
+        assertThat(first.username()).isEqualTo("alice");
+        assertThat(first.role()).isEqualTo("USER");
+        assertThat(second.username()).isEqualTo("alice");
+        assertThat(registry.get("gateway.jwt.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(registry.get("gateway.jwt.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokensWithoutCachingThem(){
+        String token = token("alice", "USER", 60_000);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThat(cache.verify(tampered)).isNull();
+        assertThat(cache.verify(token("bob", "ADMIN", -1_000))).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void cachedEntryNeverOutlivesTokenExpiry(){
+        String token = token("alice", "USER", 2_000);
+
+        cache.verify(token);
+        cache.verify(token);
+
+        // Cached entry is bounded by the token's exp, not the 300s cache TTL
+        VerifiedJwt cached = cache.verify(token);
+        assertThat(cached.expiresAt()).isLessThanOrEqualTo(System.currentTimeMillis() + 2_000);
+    }
+
+    @Test
+    void staysWithinMaxEntries(){
+        for(int i = 0; i < 250; i++){
+            cache.verify(token("user" + i, "USER", 60_000));
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+    }
+
+    private String token(String username, String role, long ttlMillis){
+        Date now = new Date();
+        return Jwts.builder()
+                .claim("role", role)
+                .subject(username)
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + ttlMillis))
+                .signWith(jwtUtil.getSigningKey())
+                .compact();
+    }
+}
@@ -0,0 +1,92 @@
+package com.api_gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Driven with explicit nanoTime readings: 10 tokens/s (one every 100 ms),
+ * burst of 3.
+ */
+class TokenBucketRateLimiterTests {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long t0 = System.nanoTime();
+    private final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 3, 300);
+
+    @Test
+    void fullBucketAllowsTheBurstThenRejects(){
+        assertThat(limiter.tryAcquire("alice", t0)).isZero();
+        assertThat(limiter.tryAcquire("alice", t0)).isZero();
+        assertThat(limiter.tryAcquire("alice", t0)).isZero();
+
+        assertThat(limiter.tryAcquire("alice", t0)).isEqualTo(100 * MS);
+    }
+
+    @Test
+    void rejectionSaysHowLongUntilTheNextToken(){
+        drain("alice", t0);
+
+        assertThat(limiter.tryAcquire("alice", t0 + 30 * MS)).isEqualTo(70 * MS);
+        assertThat(limiter.tryAcquire("alice", t0 + 99 * MS)).isEqualTo(MS);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval(){
+        drain("alice", t0);
+
+        assertThat(limiter.tryAcquire("alice", t0 + 100 * MS)).isZero();
+        assertThat(limiter.tryAcquire("alice", t0 + 100 * MS)).isPositive();
+        assertThat(limiter.tryAcquire("alice", t0 + 250 * MS)).isZero();
+        assertThat(limiter.tryAcquire("alice", t0 + 250 * MS)).isPositive();
+    }
+
+    @Test
+    void idleTimeNeverBanksMoreThanTheBurst(){
+        drain("alice", t0);
+
+        long later = t0 + TimeUnit.SECONDS.toNanos(10);
+        assertThat(limiter.tryAcquire("alice", later)).isZero();
+        assertThat(limiter.tryAcquire("alice", later)).isZero();
+        assertThat(limiter.tryAcquire("alice", later)).isZero();
+        assertThat(limiter.tryAcquire("alice", later)).isPositive();
+    }
+
+    @Test
+    void keysHaveTheirOwnBuckets(){
+        drain("alice", t0);
+
+        assertThat(limiter.tryAcquire("bob", t0)).isZero();
+    }
+
+    @Test
+    void idleBucketsAreEvicted(){
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 3, 1);
+        limiter.tryAcquire("alice", t0);
+        limiter.tryAcquire("bob", t0);
+        assertThat(limiter.size()).isEqualTo(2);
+
+        // Next sweep is due one idle interval after construction
+        limiter.tryAcquire("carol", t0 + TimeUnit.SECONDS.toNanos(3));
+
+        assertThat(limiter.size()).isEqualTo(1);
+        // An evicted bucket comes back full
+        assertThat(limiter.tryAcquire("alice", t0 + TimeUnit.SECONDS.toNanos(3))).isZero();
+    }
+
+    @Test
+    void rejectsInvalidSettings(){
+        assertThatThrownBy(() -> new TokenBucketRateLimiter(0, 3, 300)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketRateLimiter(10, 0, 300)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void drain(String key, long now){
+        while(limiter.tryAcquire(key, now) == 0){
+            // spend the burst
+        }
+    }
+}
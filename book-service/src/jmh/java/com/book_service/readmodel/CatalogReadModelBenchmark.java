@@ -0,0 +1,150 @@
+package com.book_service.readmodel;
+
+import com.book_service.entity.Book;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CatalogSnapshot at catalog scale: build time, heap, and the reads it serves
+ *
+ * No database: rows are generated in process (id order, like the startup
+ * stream), so build numbers are the read model's own cost on top of row
+ * generation - in production the JDBC stream dominates load time.
+ *
+ * generateOnly → row generation alone (subtract from build)
+ * build        → generate + CatalogSnapshot.Builder, single shot
+ * deepestInStockPage, maxPriceScan, titleContains → GET /books/in-stock,
+ *                /books/filter on the built snapshot
+ * apply200     → one published version with 200 random changed rows
+ *
+ * Heap: setup prints the retained size of the snapshot (and of the same rows
+ * as List<Book> up to 1M books) after a full GC:
+ *   "# CatalogSnapshot 1000000 books: 124 MB (130 B/book)"
+ *
+ * Run: ./mvnw -Pjmh test-compile exec:exec -Djmh.include=CatalogReadModel
+ * 10M books needs the forked JVM's 6 GB heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g", "-XX:+UseG1GC"})
+public class CatalogReadModelBenchmark {
+
+    private static final int AUTHORS = 50_000;
+    private static final int LIST_BASELINE_MAX = 1_000_000;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Param({"1000000", "10000000"})
+    public int books;
+
+    private CatalogSnapshot snapshot;
+    private BigDecimal maxPrice;
+    private String title;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        long before = usedHeap();
+        snapshot = build(books);
+        long after = usedHeap();
+        report("CatalogSnapshot", after - before);
+
+        if(books <= LIST_BASELINE_MAX){
+            List<Book> list = new ArrayList<>(books);
+            for(long id = 1; id <= books; id++){
+                list.add(book(id));
+            }
+            report("List<Book>", usedHeap() - after);
+            list.clear();
+        }
+
+        maxPrice = new BigDecimal("5.00");
+        title = "Book " + (books - 1) + " ";
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public void generateOnly(Blackhole blackhole){
+        for(long id = 1; id <= books; id++){
+            blackhole.consume(book(id));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public CatalogSnapshot build(){
+        return build(books);
+    }
+
+    @Benchmark
+    public List<Book> deepestInStockPage(){
+        return snapshot.inStock(snapshot.inStockCount() - 20, 20);
+    }
+
+    @Benchmark
+    public List<Book> maxPriceScan(){
+        return snapshot.filter(null, null, maxPrice);
+    }
+
+    @Benchmark
+    public List<Book> titleContains(){
+        return snapshot.filter(title, null, null);
+    }
+
+    @Benchmark
+    public CatalogSnapshot apply200(){
+        Map<Long, Book> upserts = new HashMap<>();
+        while(upserts.size() < 200){
+            long id = 1 + random.nextLong(books);
+            upserts.put(id, book(id));
+        }
+        return snapshot.apply(upserts, Set.of(), new StringPool());
+    }
+
+    private static CatalogSnapshot build(int books){
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(new StringPool(), 1);
+        for(long id = 1; id <= books; id++){
+            builder.add(book(id));
+        }
+        return builder.build();
+    }
+
+    // 10% out of stock, prices 1.00 - 100.99, 50k authors, 13-digit ISBNs
+    private static Book book(long id){
+        return new Book(id, "Book " + id + " " + Long.toString(id * 2654435761L % 1_000_003, 36),
+                "Author " + id % AUTHORS, String.format("978%010d", id),
+                BigDecimal.valueOf(100 + id * 7919 % 10_000, 2), (int) (id % 10),
+                "admin", EPOCH.plusSeconds(id));
+    }
+
+    private void report(String what, long bytes){
+        System.out.printf("%n# %s %d books: %d MB (%d B/book)%n", what, books, bytes >> 20, bytes / books);
+    }
+
+    private static long usedHeap(){
+        for(int i = 0; i < 3; i++){
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -3,6 +3,7 @@ package com.book_service;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 
 
@@ -18,11 +19,13 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
  * ✅ Production logging
  *
  * @EnableDiscoveryClient: Registers with Eureka automatically
+ * @EnableScheduling: Stock bucket rebalancer
  */
 
 @SpringBootApplication
 @EnableDiscoveryClient
 @EnableWebSecurity // Enable minimal security
+@EnableScheduling
 public class BookServiceApplication {
 
 	public static void main(String[] args) {
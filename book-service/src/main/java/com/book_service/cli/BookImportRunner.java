@@ -0,0 +1,64 @@
+package com.book_service.cli;
+
+import com.book_service.dto.ImportStatus;
+import com.book_service.service.BookImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Catalog Import from the command line - for the nightly feed job
+ *
+ *   java -jar book-service.jar --spring.main.web-application-type=none \
+ *        --eureka.client.enabled=false \
+ *        --import.file=/feeds/catalog.csv          (.csv or .ndjson)
+ *        [--import.format=csv|ndjson] [--import.rejects=/feeds/catalog.rejects.ndjson]
+ *        [--import.by=nightly-feed]
+ *
+ * Runs the import (BookImportService) in the foreground, prints progress,
+ * then exits: 0 when it completed, 1 when it failed. Rejected rows don't
+ * fail the run - they are in the rejects file.
+ *
+ * Without --import.file the service starts as usual.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookImportRunner implements ApplicationRunner {
+
+    private final BookImportService importService;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args){
+        String file = option(args, "import.file");
+        if(file == null){
+            return;
+        }
+        Path feed = Path.of(file);
+        String format = option(args, "import.format");
+        String rejects = option(args, "import.rejects");
+        String importedBy = option(args, "import.by");
+
+        ImportStatus status = importService.importFile(feed,
+                format == null ? BookImportService.Format.fromFileName(feed)
+                        : BookImportService.Format.valueOf(format.toUpperCase(Locale.ROOT)),
+                importedBy == null ? "import" : importedBy,
+                rejects == null ? Path.of(file + ".rejects.ndjson") : Path.of(rejects));
+
+        System.out.println("📥 " + status);
+        int exitCode = SpringApplication.exit(context, () -> "COMPLETED".equals(status.state()) ? 0 : 1);
+        System.exit(exitCode);
+    }
+
+    private static String option(ApplicationArguments args, String name){
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
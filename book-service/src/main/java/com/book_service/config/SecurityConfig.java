@@ -1,6 +1,7 @@
 package com.book_service.config;
 
 import com.book_service.security.SecurityContextFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -31,6 +32,10 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth->auth
                         .requestMatchers("/actuator/health","/health","/books/health")
                         .permitAll()
+                        // Streamed responses (GET /books) finish in an ASYNC dispatch:
+                        // the request was already authorized when it started
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC)
+                        .permitAll()
                         .anyRequest().authenticated()
                 )
                 .formLogin(form->form.disable())
@@ -0,0 +1,63 @@
+package com.book_service.controller;
+
+import com.book_service.dto.BulkUpdateRequest;
+import com.book_service.dto.BulkUpdateStatus;
+import com.book_service.service.BookBulkUpdateService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Bulk Update Controller - reprice / restock many books in one job
+ *
+ * Replaces one PUT /books/{id} per title; see BookBulkUpdateService.
+ */
+
+@RestController
+@RequestMapping("/books/bulk-updates")
+@RequiredArgsConstructor
+public class BookBulkUpdateController {
+
+    private final BookBulkUpdateService bulkUpdateService;
+    private final HttpServletRequest request;
+
+    /**
+     * Start Bulk Update - ADMIN ONLY ✅
+     * POST /books/bulk-updates
+     * {"filter": {"author": "tolkien"}, "operation": "PRICE_PERCENT", "value": -10}
+     * {"isbns": ["9780261102217", ...], "operation": "STOCK_ADD", "value": 50}
+     * → 202 job status, Location: /books/bulk-updates/{jobId}
+     * → 400 invalid request
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> start(@RequestBody BulkUpdateRequest body){
+        try{
+            BulkUpdateStatus status = bulkUpdateService.submit(body, request.getHeader("X-User-Id"));
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.LOCATION, "/books/bulk-updates/" + status.id())
+                    .body(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Bulk Update Progress - ADMIN ONLY ✅
+     * GET /books/bulk-updates/{jobId}
+     * → 200 total / processed / updated / not found, state
+     */
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkUpdateStatus> getStatus(@PathVariable String jobId){
+        return bulkUpdateService.status(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
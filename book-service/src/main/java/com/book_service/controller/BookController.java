@@ -1,16 +1,30 @@
 package com.book_service.controller;
 
 import com.book_service.entity.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.book_service.service.BookPriceIndexService;
+import com.book_service.service.BookSearchService;
 import com.book_service.service.BookService;
+import com.book_service.service.StockBucketService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,7 +46,14 @@ import java.util.Map;
 public class BookController {
 
     private final BookService bookService;
+    private final StockBucketService stockBucketService;
+    private final BookSearchService bookSearchService;
+    private final BookPriceIndexService bookPriceIndexService;
     private final HttpServletRequest request;
+    private final ObjectMapper objectMapper;
+
+    @Value("${book.multi-get.max-ids:500}")
+    private int maxIds;
 
     /**
      * Health Check
@@ -65,12 +86,65 @@ public class BookController {
 
     /**
      * Get All Books - USER & ADMIN ✅
-     * GET /books
+     * GET /books                              → JSON array
+     * GET /books (Accept: application/x-ndjson) → one book per line
+     * Streamed: books are written as they come off the database cursor (or
+     * the in-memory read model, when enabled), never collected into one list.
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('USER','ADMIN')") // Both can view
-    public ResponseEntity<List<Book>> getAllBooks(){
-        return ResponseEntity.ok(bookService.getAllBooks());
+    public ResponseEntity<StreamingResponseBody> getAllBooks(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept){
+        boolean ndjson = accept != null && accept.contains(NDJSON_VALUE);
+        // No flush per book: the servlet buffer goes out as a chunk when full
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try(SequenceWriter books = ndjson
+                    ? writer.withRootValueSeparator("\n").writeValues(out)
+                    : writer.writeValuesAsArray(out)){
+                bookService.streamAllBooks(book -> {
+                    try{
+                        books.write(book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.parseMediaType(NDJSON_VALUE) : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * Get Books by IDs - USER & ADMIN ✅
+     * GET /books?ids=3,1,7
+     * → {"books":[3,1 in that order],"missing":[7]}
+     */
+    @GetMapping(params = "ids")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public ResponseEntity<?> getBooksByIds(@RequestParam List<Long> ids){
+        return lookup(ids);
+    }
+
+    /**
+     * Get Books by IDs (long lists) - USER & ADMIN ✅
+     * POST /books/lookup
+     * Body: [3,1,7] → same answer as GET /books?ids=3,1,7
+     */
+    @PostMapping("/lookup")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public ResponseEntity<?> lookupBooks(@RequestBody List<Long> ids){
+        return lookup(ids);
+    }
+
+    private ResponseEntity<?> lookup(List<Long> ids){
+        if(ids == null || ids.isEmpty() || ids.size() > maxIds || ids.contains(null)){
+            return ResponseEntity.badRequest().body(Map.of("error","Between 1 and " + maxIds + " book IDs required"));
+        }
+        return ResponseEntity.ok(bookService.getBooksByIds(ids));
     }
 
     /**
@@ -83,6 +157,88 @@ public class BookController {
         return ResponseEntity.ok(bookService.getBooksWithStocks(pageable));
     }
 
+    /**
+     * Scroll Books with Stock - USER & ADMIN ✅
+     * GET /books/in-stock/scroll?size=50&sort=title
+     * GET /books/in-stock/scroll?size=50&token=<next of the previous page>
+     * → {"content":[...],"size":50,"next":"..."} (next null on the last page)
+     * Keyset instead of OFFSET: deep pages are as fast as the first, no count query.
+     */
+    @GetMapping("/in-stock/scroll")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public ResponseEntity<?> scrollBooksInStock(@RequestParam(defaultValue = "50") int size,
+                                                @RequestParam(required = false) String sort,
+                                                @RequestParam(required = false) String token){
+        try{
+            return ResponseEntity.ok(bookService.scrollInStock(token == null && sort == null ? "id" : sort, token, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Search Books - USER & ADMIN ✅
+     * GET /books/search?q=hobbit tolkien&page=0&size=20
+     * Every word must appear in the title or author; best matches first
+     * (title over author, word start over middle, exact title on top).
+     * → 400 if no word has 3+ letters/digits (it can't use the index)
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public ResponseEntity<?> searchBooks(@RequestParam String q, Pageable pageable){
+        if(q.isBlank()){
+            return ResponseEntity.badRequest().body(Map.of("error","Query is required"));
+        }
+        try{
+            return ResponseEntity.ok(bookSearchService.search(q, pageable));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Browse Books by Price - USER & ADMIN ✅
+     * GET /books/by-price?max=10&inStock=true&size=20  → the 20 cheapest in-stock books under $10
+     * GET /books/by-price?min=10&max=20&cursor=<next of the previous page>
+     * → {"content":[...],"size":20,"next":"..."} (next null on the last page)
+     * Cheapest first (ties by ID), from the in-memory price index.
+     */
+    @GetMapping("/by-price")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public ResponseEntity<?> browseByPrice(@RequestParam(required = false) BigDecimal min,
+                                           @RequestParam(required = false) BigDecimal max,
+                                           @RequestParam(defaultValue = "false") boolean inStock,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "50") int size){
+        try{
+            return ResponseEntity.ok(bookPriceIndexService.browse(min, max, inStock, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Filter Books - USER & ADMIN ✅
+     * GET /books/filter?maxPrice=20.00&author=tolkien
+     * Any of title / author (contains, ignoring case) / maxPrice; all given must match.
+     * Ordered by price when maxPrice is given, by ID otherwise.
+     */
+    @GetMapping("/filter")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public ResponseEntity<?> filterBooks(@RequestParam(required = false) String title,
+                                         @RequestParam(required = false) String author,
+                                         @RequestParam(required = false) BigDecimal maxPrice){
+        if(isBlank(title) && isBlank(author) && maxPrice == null){
+            return ResponseEntity.badRequest().body(Map.of("error","title, author or maxPrice is required"));
+        }
+        return ResponseEntity.ok(bookService.filterBooks(isBlank(title) ? null : title,
+                isBlank(author) ? null : author, maxPrice));
+    }
+
+    private static boolean isBlank(String value){
+        return value == null || value.isBlank();
+    }
+
     /**
      * Get Book by ID - USER & ADMIN ✅
      * GET /books/1
@@ -112,13 +268,42 @@ public class BookController {
     /**
      * Reduce Stock - ADMIN ONLY ✅
      * POST /books/{id}/reduce-stock?quantity=2
+     * → {"success":true,"stock":8} or {"success":false} when not enough stock
      * (Order Service should call with service-to-service token)
      */
     @PostMapping("/{id}/reduce-stock")
     @PreAuthorize("hasRole('ADMIN')") // Secure stock modification
-    public ResponseEntity<Map<String,Boolean>> reduceStock(@PathVariable Long id,@RequestParam int quantity){
-        boolean success = bookService.reduceStock(id,quantity);
-        return ResponseEntity.ok(Map.of("success",success));
+    public ResponseEntity<Map<String,Object>> reduceStock(@PathVariable Long id,@RequestParam int quantity){
+        return bookService.reduceStock(id,quantity)
+                .<ResponseEntity<Map<String,Object>>>map(stock -> ResponseEntity.ok(Map.of("success",true,"stock",stock)))
+                .orElseGet(() -> ResponseEntity.ok(Map.of("success",false)));
+    }
+
+    /**
+     * Split Stock Into Buckets - ADMIN ONLY ✅
+     * PUT /books/{id}/stock-buckets?count=8
+     * For flash-sale titles: concurrent orders then update different rows.
+     * Calling it again re-splits the current stock.
+     */
+    @PutMapping("/{id}/stock-buckets")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> enableStockBuckets(@PathVariable Long id,@RequestParam(defaultValue = "8") int count){
+        try{
+            return ResponseEntity.ok(stockBucketService.enable(id,count));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error",e.getMessage()));
+        }
+    }
+
+    /**
+     * Merge Stock Buckets Back - ADMIN ONLY ✅
+     * DELETE /books/{id}/stock-buckets
+     */
+    @DeleteMapping("/{id}/stock-buckets")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String,String>> disableStockBuckets(@PathVariable Long id){
+        stockBucketService.disable(id);
+        return ResponseEntity.ok(Map.of("message","Stock buckets merged"));
     }
 
     /**
@@ -0,0 +1,84 @@
+package com.book_service.controller;
+
+import com.book_service.dto.ImportStatus;
+import com.book_service.service.BookImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Catalog Import Controller - bulk upsert of a whole feed by ISBN
+ *
+ * The feed is the request body, streamed to disk; the import runs as a job
+ * (one at a time) that is polled for progress.
+ */
+
+@RestController
+@RequestMapping("/books/import")
+@RequiredArgsConstructor
+public class BookImportController {
+
+    private final BookImportService importService;
+    private final HttpServletRequest request;
+
+    /**
+     * Import Feed - ADMIN ONLY ✅
+     * POST /books/import
+     * Content-Type: text/csv (header: title,author,isbn[,price][,stock])
+     *            or application/x-ndjson (one book object per line)
+     * → 202 job status, Location: /books/import/{jobId}
+     */
+    @PostMapping(consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importFeed(InputStream body) throws IOException {
+        BookImportService.Format format;
+        try{
+            format = BookImportService.Format.fromContentType(request.getContentType());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        ImportStatus status = importService.submit(body, format, request.getHeader("X-User-Id"));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/books/import/" + status.id())
+                .body(status);
+    }
+
+    /**
+     * Import Progress - ADMIN ONLY ✅
+     * GET /books/import/{jobId}
+     * → 200 rows read, inserted / updated / rejected so far, state
+     */
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImportStatus> getStatus(@PathVariable String jobId){
+        return importService.status(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Rejected Rows - ADMIN ONLY ✅
+     * GET /books/import/{jobId}/rejects
+     * → 200 NDJSON, one line per rejected row: {"line", "errors", the row}
+     */
+    @GetMapping("/{jobId}/rejects")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Resource> getRejects(@PathVariable String jobId){
+        return importService.rejects(jobId)
+                .<ResponseEntity<Resource>>map(file -> ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                        .body(new FileSystemResource(file)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,180 @@
+package com.book_service.controller;
+
+import com.book_service.dto.BulkReservation;
+import com.book_service.dto.CartLine;
+import com.book_service.dto.ReservationSnapshot;
+import com.book_service.entity.StockReservation;
+import com.book_service.exception.BookNotFoundException;
+import com.book_service.service.StockReservationService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock Reservation Controller - hold stock until the order is committed
+ *
+ * Called by Order Service (service-to-service, ADMIN role) like reduce-stock.
+ */
+
+@RestController
+@RequestMapping("/books")
+@RequiredArgsConstructor
+public class StockReservationController {
+
+    private final StockReservationService reservationService;
+    private final HttpServletRequest request;
+
+    /**
+     * Reserve Stock - ADMIN ONLY ✅
+     * POST /books/{id}/reservations?quantity=2[&ttlSeconds=60]
+     * → 201 reservation (HELD) or 409 when there isn't enough stock
+     * → 404 unknown book
+     */
+    @PostMapping("/{id}/reservations")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> reserve(@PathVariable Long id,
+                                     @RequestParam int quantity,
+                                     @RequestParam(required = false) Long ttlSeconds){
+        try{
+            Duration ttl = ttlSeconds == null ? null : Duration.ofSeconds(ttlSeconds);
+            return reservationService.reserve(id, quantity, ttl, request.getHeader("X-User-Id"))
+                    .<ResponseEntity<?>>map(reservation -> ResponseEntity.status(HttpStatus.CREATED).body(reservation))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body(Map.of("success", false, "error", "Insufficient stock")));
+        } catch (BookNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Check And Reserve - ADMIN ONLY ✅
+     * POST /books/{id}/check-and-reserve?quantity=2[&ttlSeconds=60]
+     * → 201 snapshot with the reservation, title, price and remaining stock
+     * → 409 snapshot with status INSUFFICIENT_STOCK and the available stock
+     * → 404 unknown book
+     * Replaces GET /books/{id} + reduce-stock in Order Service.
+     */
+    @PostMapping("/{id}/check-and-reserve")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> checkAndReserve(@PathVariable Long id,
+                                             @RequestParam int quantity,
+                                             @RequestParam(required = false) Long ttlSeconds){
+        try{
+            Duration ttl = ttlSeconds == null ? null : Duration.ofSeconds(ttlSeconds);
+            ReservationSnapshot snapshot = reservationService.checkAndReserve(id, quantity, ttl, request.getHeader("X-User-Id"));
+            return ResponseEntity.status(snapshot.isHeld() ? HttpStatus.CREATED : HttpStatus.CONFLICT).body(snapshot);
+        } catch (BookNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Reserve Cart - ADMIN ONLY ✅
+     * POST /books/reservations/bulk[?ttlSeconds=60]
+     * Body: [{"bookId":1,"quantity":2},{"bookId":7,"quantity":1}]
+     * → 201 every line held under one groupId
+     * → 409 nothing held, lines = the books that were short
+     * → 404 unknown book (nothing held)
+     */
+    @PostMapping("/reservations/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> reserveAll(@RequestBody List<CartLine> lines,
+                                        @RequestParam(required = false) Long ttlSeconds){
+        try{
+            Duration ttl = ttlSeconds == null ? null : Duration.ofSeconds(ttlSeconds);
+            BulkReservation reservation = reservationService.reserveAll(lines, ttl, request.getHeader("X-User-Id"));
+            return ResponseEntity.status(reservation.isHeld() ? HttpStatus.CREATED : HttpStatus.CONFLICT).body(reservation);
+        } catch (BookNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Get Cart Reservation - ADMIN ONLY ✅
+     * GET /books/reservations/groups/{groupId}
+     */
+    @GetMapping("/reservations/groups/{groupId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<StockReservation>> getGroup(@PathVariable String groupId){
+        return ResponseEntity.ok(reservationService.getGroup(groupId));
+    }
+
+    /**
+     * Confirm Cart Reservation - ADMIN ONLY ✅
+     * POST /books/reservations/groups/{groupId}/confirm → every line stays sold
+     */
+    @PostMapping("/reservations/groups/{groupId}/confirm")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> confirmGroup(@PathVariable String groupId){
+        try{
+            return ResponseEntity.ok(reservationService.confirmGroup(groupId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Release Cart Reservation - ADMIN ONLY ✅
+     * POST /books/reservations/groups/{groupId}/release → every line given back
+     */
+    @PostMapping("/reservations/groups/{groupId}/release")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> releaseGroup(@PathVariable String groupId){
+        try{
+            return ResponseEntity.ok(reservationService.releaseGroup(groupId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Get Reservation - ADMIN ONLY ✅
+     * GET /books/reservations/5
+     */
+    @GetMapping("/reservations/{reservationId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StockReservation> getReservation(@PathVariable Long reservationId){
+        return ResponseEntity.ok(reservationService.getReservation(reservationId));
+    }
+
+    /**
+     * Confirm Reservation - ADMIN ONLY ✅
+     * POST /books/reservations/5/confirm → stock stays sold
+     */
+    @PostMapping("/reservations/{reservationId}/confirm")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> confirm(@PathVariable Long reservationId){
+        try{
+            return ResponseEntity.ok(reservationService.confirm(reservationId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Release Reservation - ADMIN ONLY ✅
+     * POST /books/reservations/5/release → stock given back
+     */
+    @PostMapping("/reservations/{reservationId}/release")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> release(@PathVariable Long reservationId){
+        try{
+            return ResponseEntity.ok(reservationService.release(reservationId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
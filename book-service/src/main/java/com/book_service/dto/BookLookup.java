@@ -0,0 +1,12 @@
+package com.book_service.dto;
+
+import com.book_service.entity.Book;
+
+import java.util.List;
+
+/**
+ * Multi-get answer: books in the requested order (duplicates once), and the
+ * requested IDs that don't exist.
+ */
+public record BookLookup(List<Book> books, List<Long> missing) {
+}
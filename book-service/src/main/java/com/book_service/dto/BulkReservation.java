@@ -0,0 +1,31 @@
+package com.book_service.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Answer of a cart reservation: all lines are held, or none are.
+ *
+ * Held: groupId confirms / releases every line at once, lines has one
+ * snapshot per book (sorted by book ID).
+ * No stock: groupId/expiresAt are null, status INSUFFICIENT_STOCK and lines
+ * only lists the books that were short, with what is available.
+ */
+public record BulkReservation(
+        String groupId,
+        String status,
+        Instant expiresAt,
+        List<ReservationSnapshot> lines) {
+
+    public static BulkReservation held(String groupId, Instant expiresAt, List<ReservationSnapshot> lines){
+        return new BulkReservation(groupId, "HELD", expiresAt, lines);
+    }
+
+    public static BulkReservation insufficient(List<ReservationSnapshot> shortLines){
+        return new BulkReservation(null, ReservationSnapshot.INSUFFICIENT_STOCK, null, shortLines);
+    }
+
+    public boolean isHeld(){
+        return groupId != null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.book_service.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * POST /books/bulk-updates body: which books (filter OR isbns) and what to
+ * do to them.
+ *
+ *   {"filter": {"author": "tolkien"}, "operation": "PRICE_PERCENT", "value": -10}
+ *   {"isbns": ["9780261102217", ...], "operation": "STOCK_ADD", "value": 50}
+ *
+ * filter: every given criterion must match (title / author contain the text,
+ * ignoring case; price within [minPrice, maxPrice]); at least one is required.
+ */
+public record BulkUpdateRequest(Filter filter, List<String> isbns, Operation operation, BigDecimal value) {
+
+    public record Filter(String title, String author, BigDecimal minPrice, BigDecimal maxPrice) {
+
+        public boolean isEmpty(){
+            return isBlank(title) && isBlank(author) && minPrice == null && maxPrice == null;
+        }
+
+        private static boolean isBlank(String text){
+            return text == null || text.isBlank();
+        }
+    }
+
+    public enum Operation {
+        PRICE_PERCENT,  // price * (1 + value / 100), rounded to cents, at least 0.01; books without a price skipped
+        PRICE_SET,      // price = value
+        STOCK_ADD,      // stock + value (negative takes away), never below 0
+        STOCK_SET;      // stock = value
+
+        public boolean isPrice(){
+            return this == PRICE_PERCENT || this == PRICE_SET;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.book_service.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of a bulk update (BookBulkUpdateService), live while it runs.
+ *
+ * total = books matched when the job started (ISBNs given, for a list);
+ * processed of them handled so far, updated of those changed.
+ * missingIsbns: the first ISBNs of the list that matched no book.
+ * state: QUEUED → RUNNING → COMPLETED | FAILED (error says why; chunks
+ * committed before the failure stay).
+ */
+public record BulkUpdateStatus(
+        String id,
+        String state,
+        BulkUpdateRequest.Operation operation,
+        BigDecimal value,
+        long total,
+        long processed,
+        long updated,
+        long notFound,
+        List<String> missingIsbns,
+        Instant startedAt,
+        Instant finishedAt,
+        String error) {
+}
@@ -0,0 +1,7 @@
+package com.book_service.dto;
+
+/**
+ * One line of a cart: which book and how many.
+ */
+public record CartLine(Long bookId, int quantity) {
+}
@@ -0,0 +1,26 @@
+package com.book_service.dto;
+
+import java.time.Instant;
+
+/**
+ * Progress of a catalog import (BookImportService), live while it runs.
+ *
+ * rows = rows read so far; each ends up inserted, updated, rejected or
+ * superseded (duplicates: a later row of the same batch had the same ISBN).
+ * state: QUEUED → RUNNING → COMPLETED | FAILED (error says why; batches
+ * committed before the failure stay).
+ */
+public record ImportStatus(
+        String id,
+        String state,
+        String format,
+        long rows,
+        long inserted,
+        long updated,
+        long rejected,
+        long duplicates,
+        long rowsPerSecond,
+        Instant startedAt,
+        Instant finishedAt,
+        String error) {
+}
@@ -0,0 +1,12 @@
+package com.book_service.dto;
+
+import com.book_service.entity.Book;
+
+import java.util.List;
+
+/**
+ * One page of a keyset scroll. next is the token for the following page,
+ * null on the last one. No total count: that's the point.
+ */
+public record KeysetPage(List<Book> content, int size, String next) {
+}
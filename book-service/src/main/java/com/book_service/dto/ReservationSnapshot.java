@@ -0,0 +1,48 @@
+package com.book_service.dto;
+
+import com.book_service.entity.Book;
+import com.book_service.entity.StockReservation;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Check-and-reserve answer: the hold plus what an order needs to know about
+ * the book, so Order Service doesn't have to GET the book separately.
+ *
+ * No stock: reservationId/expiresAt are null, status INSUFFICIENT_STOCK and
+ * remainingStock is what is available.
+ */
+public record ReservationSnapshot(
+        Long reservationId,
+        String status,
+        Instant expiresAt,
+        Long bookId,
+        String title,
+        String author,
+        BigDecimal price,
+        int quantity,
+        int remainingStock) {
+
+    public static final String INSUFFICIENT_STOCK = "INSUFFICIENT_STOCK";
+
+    public static ReservationSnapshot held(StockReservation reservation, Book book, int remainingStock){
+        return new ReservationSnapshot(reservation.getId(), reservation.getStatus().name(), reservation.getExpiresAt(),
+                book.getId(), book.getTitle(), book.getAuthor(), book.getPrice(),
+                reservation.getQuantity(), remainingStock);
+    }
+
+    public static ReservationSnapshot insufficient(Book book, int quantity){
+        return insufficient(book, quantity, book.getStock());
+    }
+
+    public static ReservationSnapshot insufficient(Book book, int quantity, int available){
+        return new ReservationSnapshot(null, INSUFFICIENT_STOCK, null,
+                book.getId(), book.getTitle(), book.getAuthor(), book.getPrice(),
+                quantity, available);
+    }
+
+    public boolean isHeld(){
+        return reservationId != null;
+    }
+}
@@ -23,7 +23,11 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "books",indexes={
         @Index(name = "idx_isbn",columnList = "isbn" , unique = true),
-        @Index(name="idx_title", columnList = "title")
+        @Index(name="idx_title", columnList = "title"),
+        // Keyset scroll by title (findInStockAfterTitle); by id uses the primary key
+        @Index(name="idx_title_id", columnList = "title, id"),
+        // Price browsing (findByPriceRangeAfter), when the in-memory price index isn't built yet
+        @Index(name="idx_price_id", columnList = "price, id")
 })
 @Data
 @NoArgsConstructor
@@ -0,0 +1,42 @@
+package com.book_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock Bucket - one slice of a hot book's stock
+ *
+ * A book with buckets keeps stock = 0 in the books table; its stock is the
+ * sum of its buckets (see StockBucketService). Decrements hit one random
+ * bucket, so concurrent orders lock different rows.
+ */
+
+@Entity
+@Table(name = "stock_buckets", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stock_bucket", columnNames = {"book_id", "bucket"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private Integer bucket;
+
+    @Column(nullable = false)
+    private Integer stock = 0;
+
+    public StockBucket(Long bookId, int bucket, int stock) {
+        this.bookId = bookId;
+        this.bucket = bucket;
+        this.stock = stock;
+    }
+}
@@ -0,0 +1,64 @@
+package com.book_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Stock Reservation - stock held for an order that isn't committed yet
+ *
+ * Lifecycle:
+ *   HELD → CONFIRMED (order committed, stock stays sold)
+ *   HELD → RELEASED  (order failed, stock given back)
+ *   HELD → EXPIRED   (nobody answered within the TTL, stock given back)
+ *
+ * Rows are durable so holds survive a restart; expirations are tracked in
+ * memory, with a periodic sweep of overdue rows (see StockReservationService).
+ *
+ * Cart reservations share a groupId (one row per book) and are confirmed or
+ * released together.
+ */
+
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_reservation_status_expires", columnList = "status, expires_at"),
+        @Index(name = "idx_reservation_group", columnList = "group_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+    public enum Status { HELD, CONFIRMED, RELEASED, EXPIRED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status = Status.HELD;
+
+    // null for single-book reservations
+    @Column(name = "group_id", length = 36)
+    private String groupId;
+
+    @Column(name = "reserved_by", length = 50)
+    private String reservedBy;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt = Instant.now();
+
+    // Instant (not LocalDateTime): compared across instances in different time zones
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,26 @@
+package com.book_service.event;
+
+import com.book_service.entity.Book;
+
+import java.math.BigDecimal;
+
+/**
+ * Published by BookService when a book is created, updated or deleted.
+ * Listeners that keep derived views (search index, price index, caches) use
+ * @TransactionalEventListener so they only see committed changes.
+ *
+ * Fields are copied at publish time (null when deleted): the entity may
+ * change again before a listener runs. stock is the total, bucket stock
+ * included.
+ */
+public record BookChangedEvent(Long bookId, String title, String author, BigDecimal price, Integer stock,
+                               boolean deleted) {
+
+    public static BookChangedEvent saved(Book book, int stock){
+        return new BookChangedEvent(book.getId(), book.getTitle(), book.getAuthor(), book.getPrice(), stock, false);
+    }
+
+    public static BookChangedEvent deleted(Long bookId){
+        return new BookChangedEvent(bookId, null, null, null, null, true);
+    }
+}
@@ -0,0 +1,18 @@
+package com.book_service.event;
+
+/**
+ * Published when a book's stock changes without BookService#updateBook:
+ * orders (reduceStock), cart holds, reservation give-backs.
+ *
+ * No stock value: events of concurrent transactions reach listeners in no
+ * particular order, so a reported level could be older than one already
+ * applied (a decrement overtaking a restock). Listeners reload or drop their
+ * copy. Listen with @TransactionalEventListener(fallbackExecution = true) -
+ * reduceStock publishes outside any transaction, after its own commit.
+ */
+public record BookStockChangedEvent(Long bookId) {
+
+    public static BookStockChangedEvent changed(Long bookId){
+        return new BookStockChangedEvent(bookId);
+    }
+}
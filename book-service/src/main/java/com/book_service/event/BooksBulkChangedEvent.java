@@ -0,0 +1,33 @@
+package com.book_service.event;
+
+import java.util.List;
+
+/**
+ * Published after a bulk write (catalog import) changed many books at once,
+ * instead of one BookChangedEvent per row. Listen with
+ * @TransactionalEventListener(fallbackExecution = true): the import commits
+ * batch by batch and publishes once, outside any transaction.
+ *
+ * Listeners re-read the books (missing → deleted), or rebuild their view
+ * outright when the change is large: at that size a rebuild is cheaper than
+ * re-reading the books one chunk at a time.
+ *
+ * rebuildOnly: more than LARGE books changed and the publisher stopped
+ * listing them (bookIds is empty) - rebuild / drop everything.
+ */
+public record BooksBulkChangedEvent(List<Long> bookIds, boolean rebuildOnly) {
+
+    public static final int LARGE = 10_000;
+
+    public BooksBulkChangedEvent(List<Long> bookIds){
+        this(bookIds, false);
+    }
+
+    public static BooksBulkChangedEvent rebuild(){
+        return new BooksBulkChangedEvent(List.of(), true);
+    }
+
+    public boolean isLarge(){
+        return rebuildOnly || bookIds.size() > LARGE;
+    }
+}
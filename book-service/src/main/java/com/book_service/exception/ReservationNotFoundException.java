@@ -0,0 +1,15 @@
+package com.book_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ReservationNotFoundException extends RuntimeException{
+    public ReservationNotFoundException(Long id){
+        super("Reservation not found: " + id);
+    }
+
+    public ReservationNotFoundException(String groupId){
+        super("Reservation group not found: " + groupId);
+    }
+}
@@ -0,0 +1,242 @@
+package com.book_service.readmodel;
+
+import com.book_service.entity.Book;
+import com.book_service.event.BookChangedEvent;
+import com.book_service.event.BookStockChangedEvent;
+import com.book_service.event.BooksBulkChangedEvent;
+import com.book_service.repository.BookRepository;
+import com.book_service.service.StockBucketService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-Memory Catalog Read Model (CQRS read side), off by default
+ *
+ * WHY: List and filter reads (GET /books, /books/in-stock, /books/filter)
+ * scan the books table on every call, competing with orders for the same
+ * database.
+ *
+ * Flow:
+ * 1. Startup → whole table streamed into a CatalogSnapshot (version 1)
+ * 2. Writes on this instance → BookChangedEvent / BookStockChangedEvent /
+ *    BooksBulkChangedEvent after commit → queued (a large import → full reload)
+ * 3. Every book.read-model.publish-interval-ms the writer thread drains the
+ *    queue → changed rows re-read in one query → next version → published
+ *    with one volatile write
+ * 4. Every book.read-model.rebuild-interval-ms → full reload (drops
+ *    tombstones, picks up writes made on other instances)
+ *
+ * Readers call current() and use that version: no lock, no database.
+ * null → not enabled or not loaded yet → callers read the database.
+ *
+ * One writer thread does all of 1-4, so versions never race each other.
+ * A full reload holds two versions in memory until the old one is dropped.
+ */
+@Service
+public class CatalogReadModel {
+
+    private final BookRepository bookRepository;
+    private final StockBucketService stockBucketService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readTransaction;
+    private final ScheduledExecutorService writer;
+
+    private final boolean enabled;
+    private final long publishIntervalMs;
+    private final long rebuildIntervalMs;
+
+    // BookChangedEvent | BookStockChangedEvent | BooksBulkChangedEvent, in commit order
+    private final Queue<Object> pending = new ConcurrentLinkedQueue<>();
+    private volatile CatalogSnapshot current;
+    private StringPool strings; // writer thread only
+
+    public CatalogReadModel(BookRepository bookRepository,
+                            StockBucketService stockBucketService,
+                            EntityManager entityManager,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${book.read-model.enabled:false}") boolean enabled,
+                            @Value("${book.read-model.publish-interval-ms:50}") long publishIntervalMs,
+                            @Value("${book.read-model.rebuild-interval-ms:600000}") long rebuildIntervalMs) {
+        this.bookRepository = bookRepository;
+        this.stockBucketService = stockBucketService;
+        this.entityManager = entityManager;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.publishIntervalMs = publishIntervalMs;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "catalog-read-model");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("book.read-model.books", this, model -> model.current == null ? 0 : model.current.size())
+                .register(meterRegistry);
+        Gauge.builder("book.read-model.version", this, model -> model.current == null ? 0 : model.current.version())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start(){
+        if(!enabled){
+            return;
+        }
+        writer.execute(this::rebuild);
+        writer.scheduleWithFixedDelay(this::publish, publishIntervalMs, publishIntervalMs, TimeUnit.MILLISECONDS);
+        if(rebuildIntervalMs > 0){
+            writer.scheduleWithFixedDelay(this::rebuild, rebuildIntervalMs, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop(){
+        writer.shutdownNow();
+    }
+
+    /**
+     * Latest published version, or null when disabled / still loading.
+     */
+    public CatalogSnapshot current(){
+        return current;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event){
+        if(enabled){
+            pending.add(event);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(BookStockChangedEvent event){
+        if(enabled){
+            pending.add(event);
+        }
+    }
+
+    // Too many to re-read in one query → full reload
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksChanged(BooksBulkChangedEvent event){
+        if(!enabled){
+            return;
+        }
+        if(event.isLarge()){
+            writer.execute(this::rebuild);
+        } else {
+            pending.add(event);
+        }
+    }
+
+    // Writer thread. An exception here would cancel the schedule: log and keep the old version
+    private void rebuild(){
+        try{
+            long start = System.currentTimeMillis();
+            StringPool pool = new StringPool();
+            CatalogSnapshot.Builder builder = CatalogSnapshot.builder(pool, current == null ? 1 : current.version() + 1);
+            readTransaction.executeWithoutResult(status -> {
+                Map<Long, Integer> totals = stockBucketService.totals(stockBucketService.shardedBookIds());
+                try(Stream<Book> books = bookRepository.streamAll()){
+                    books.forEach(book -> {
+                        entityManager.detach(book);
+                        builder.add(withTotal(book, totals));
+                    });
+                }
+            });
+            strings = pool;
+            current = builder.build();
+            System.out.println("🗂️ Catalog read model v" + current.version() + ": " + current.size() + " books, "
+                    + pool.size() + " pooled strings, loaded in " + (System.currentTimeMillis() - start) + "ms");
+            // Changes queued while loading; re-applying one the load already saw is harmless
+            publish();
+        } catch (RuntimeException e) {
+            System.out.println("⚠️ Catalog read model reload failed: " + e.getMessage());
+        }
+    }
+
+    // Writer thread
+    private void publish(){
+        CatalogSnapshot base = current;
+        if(base == null || pending.isEmpty()){
+            return;
+        }
+        List<Object> drained = new ArrayList<>();
+        for(Object change; (change = pending.poll()) != null; ){
+            drained.add(change);
+        }
+        Set<Long> reload = new HashSet<>();
+        Set<Long> deletes = new HashSet<>();
+        for(Object change : drained){
+            if(change instanceof BookChangedEvent event && event.deleted()){
+                deletes.add(event.bookId());
+                reload.remove(event.bookId());
+            } else if(change instanceof BookChangedEvent event){
+                reload.add(event.bookId());
+            } else if(change instanceof BookStockChangedEvent event){
+                // Re-read, not taken from the event: stock events come in any order
+                reload.add(event.bookId());
+            } else if(change instanceof BooksBulkChangedEvent event){
+                reload.addAll(event.bookIds());
+            }
+        }
+        try{
+            Map<Long, Book> rows = load(reload);
+            reload.stream().filter(id -> !rows.containsKey(id)).forEach(deletes::add);
+            current = base.apply(rows, deletes, strings);
+        } catch (RuntimeException e) {
+            // Retried next round. Order across rounds doesn't matter: rows are
+            // re-read, deletes are final
+            pending.addAll(drained);
+            System.out.println("⚠️ Catalog read model update failed, will retry: " + e.getMessage());
+        }
+    }
+
+    private Map<Long, Book> load(Collection<Long> ids){
+        if(ids.isEmpty()){
+            return Map.of();
+        }
+        return readTransaction.execute(status -> {
+            List<Book> books = bookRepository.findAllById(ids);
+            books.forEach(entityManager::detach);
+            Map<Long, Integer> totals = stockBucketService.totals(ids.stream()
+                    .filter(stockBucketService::isSharded)
+                    .toList());
+            return books.stream()
+                    .map(book -> withTotal(book, totals))
+                    .collect(Collectors.toMap(Book::getId, book -> book));
+        });
+    }
+
+    // Caller detached the book: the total is never written back
+    private static Book withTotal(Book book, Map<Long, Integer> totals){
+        Integer total = totals.get(book.getId());
+        if(total != null){
+            book.setStock(book.getStock() + total);
+        }
+        return book;
+    }
+}
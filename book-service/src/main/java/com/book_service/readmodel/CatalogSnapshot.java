@@ -0,0 +1,525 @@
+package com.book_service.readmodel;
+
+import com.book_service.entity.Book;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Immutable, column-oriented copy of the books table (read side of CQRS)
+ *
+ * WHY: A Book entity costs ~400 bytes of objects (Long, BigDecimal,
+ * LocalDateTime, ISBN String, ...). Held as primitive columns the same row
+ * is ~50 bytes plus its title.
+ *
+ * Rows sorted by id, in chunks of 4096:
+ *   ids          long[]
+ *   stock        int[]     (bucket totals included, DELETED = tombstone)
+ *   priceCents   long[]    (NONE = null price)
+ *   isbns        long[]    (10/13 digits as a number; anything else kept as text)
+ *   createdAt    long[]    (µs since epoch, UTC)
+ *   titles, authors, createdBy  String[]  (authors / createdBy interned)
+ *
+ * Copy-on-write: apply() copies only the chunks it changes and shares the
+ * rest with the previous version → a new version costs O(changed chunks),
+ * not O(catalog). A reader keeps the version it started with; nothing it
+ * sees ever changes, so no locks.
+ *
+ * Deleted rows stay as tombstones until the next full build.
+ */
+public final class CatalogSnapshot {
+
+    static final int CHUNK_SIZE = 4096;
+
+    private static final int DELETED = Integer.MIN_VALUE;
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final Chunk[] chunks;
+    private final long version;
+    private final int size;
+    private final int inStock;
+
+    private CatalogSnapshot(Chunk[] chunks, long version){
+        this.chunks = chunks;
+        this.version = version;
+        int live = 0;
+        int stocked = 0;
+        for(Chunk chunk : chunks){
+            live += chunk.live;
+            stocked += chunk.inStock;
+        }
+        this.size = live;
+        this.inStock = stocked;
+    }
+
+    static Builder builder(StringPool strings, long version){
+        return new Builder(strings, version);
+    }
+
+    public long version(){
+        return version;
+    }
+
+    // Live books
+    public int size(){
+        return size;
+    }
+
+    public int inStockCount(){
+        return inStock;
+    }
+
+    /**
+     * Every live book in id order, each a fresh Book the sink may keep or change.
+     */
+    public void forEach(Consumer<Book> sink){
+        for(Chunk chunk : chunks){
+            for(int row = 0; row < chunk.size; row++){
+                if(chunk.isLive(row)){
+                    sink.accept(chunk.book(row));
+                }
+            }
+        }
+    }
+
+    public List<Book> toList(){
+        List<Book> books = new ArrayList<>(size);
+        forEach(books::add);
+        return books;
+    }
+
+    /**
+     * Books with stock >= 1, in id order. Whole chunks are skipped by their
+     * in-stock count, so a deep offset doesn't walk every row before it.
+     */
+    public List<Book> inStock(long offset, int limit){
+        List<Book> page = new ArrayList<>(Math.min(limit, inStock));
+        long skip = offset;
+        for(Chunk chunk : chunks){
+            if(page.size() >= limit){
+                break;
+            }
+            if(skip >= chunk.inStock){
+                skip -= chunk.inStock;
+                continue;
+            }
+            for(int row = 0; row < chunk.size && page.size() < limit; row++){
+                if(chunk.stock[row] >= 1){
+                    if(skip > 0){
+                        skip--;
+                    } else {
+                        page.add(chunk.book(row));
+                    }
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Books matching every given criterion (null = any): title / author
+     * contain the text (ignoring case), price <= maxPrice. Cheapest check
+     * first; only matches become Book objects.
+     *
+     * Order as the repository queries: by price when maxPrice is given
+     * (ties by id), by id otherwise.
+     */
+    public List<Book> filter(String title, String author, BigDecimal maxPrice){
+        long maxCents = maxPrice == null ? NONE : floorCents(maxPrice);
+        List<Book> matches = new ArrayList<>();
+        for(Chunk chunk : chunks){
+            for(int row = 0; row < chunk.size; row++){
+                if(!chunk.isLive(row)){
+                    continue;
+                }
+                if(maxPrice != null && (chunk.priceCents[row] == NONE || chunk.priceCents[row] > maxCents)){
+                    continue;
+                }
+                if(title != null && !containsIgnoreCase(chunk.titles[row], title)){
+                    continue;
+                }
+                if(author != null && !containsIgnoreCase(chunk.authors[row], author)){
+                    continue;
+                }
+                matches.add(chunk.book(row));
+            }
+        }
+        if(maxPrice != null){
+            matches.sort(Comparator.comparing(Book::getPrice)); // stable: ties stay in id order
+        }
+        return matches;
+    }
+
+    /**
+     * Next version with the changes applied; this one is left as it was.
+     *
+     * @param upserts      current rows (with bucket totals) of created / updated books
+     * @param deletes      ids of deleted books
+     */
+    CatalogSnapshot apply(Map<Long, Book> upserts, Iterable<Long> deletes, StringPool strings){
+        Draft draft = new Draft();
+        List<Book> inserts = new ArrayList<>();
+        upserts.values().stream().sorted(Comparator.comparing(Book::getId)).forEach(book -> {
+            long at = draft.locate(book.getId());
+            if(at >= 0){
+                draft.writable(chunkOf(at)).set(rowOf(at), book, strings);
+            } else if(book.getId() > draft.maxId()){
+                draft.append(book, strings);
+            } else {
+                inserts.add(book); // id below the last one: committed out of id order
+            }
+        });
+        for(Long id : deletes){
+            long at = draft.locate(id);
+            if(at >= 0){
+                draft.writable(chunkOf(at)).delete(rowOf(at));
+            }
+        }
+        CatalogSnapshot next = draft.finish(version + 1);
+        return inserts.isEmpty() ? next : next.merge(inserts, strings);
+    }
+
+    // Rare: a fresh build with the out-of-order rows slotted in (tombstones dropped)
+    private CatalogSnapshot merge(List<Book> inserts, StringPool strings){
+        Builder builder = new Builder(strings, version);
+        int next = 0;
+        for(Chunk chunk : chunks){
+            for(int row = 0; row < chunk.size; row++){
+                while(next < inserts.size() && inserts.get(next).getId() < chunk.ids[row]){
+                    builder.add(inserts.get(next++));
+                }
+                if(chunk.isLive(row)){
+                    builder.copy(chunk, row);
+                }
+            }
+        }
+        while(next < inserts.size()){
+            builder.add(inserts.get(next++));
+        }
+        return builder.build();
+    }
+
+    private static int chunkOf(long at){
+        return (int) (at >>> 32);
+    }
+
+    private static int rowOf(long at){
+        return (int) at;
+    }
+
+    private static long floorCents(BigDecimal price){
+        BigDecimal cents = price.movePointRight(2).setScale(0, RoundingMode.FLOOR);
+        return cents.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) >= 0 ? Long.MAX_VALUE : cents.longValue();
+    }
+
+    // Same idea as SQL upper(text) LIKE upper('%part%'), without building strings:
+    // indexOf (vectorized) finds the first character in either case, only
+    // those positions get the full case-insensitive compare
+    private static boolean containsIgnoreCase(String text, String part){
+        if(text == null){
+            return false;
+        }
+        if(part.isEmpty()){
+            return true;
+        }
+        char lower = Character.toLowerCase(part.charAt(0));
+        char upper = Character.toUpperCase(part.charAt(0));
+        int last = text.length() - part.length();
+        int from = 0;
+        while(from <= last){
+            int at = text.indexOf(lower, from);
+            if(upper != lower){
+                int atUpper = text.indexOf(upper, from);
+                if(atUpper >= 0 && (at < 0 || atUpper < at)){
+                    at = atUpper;
+                }
+            }
+            if(at < 0 || at > last){
+                return false;
+            }
+            if(text.regionMatches(true, at, part, 0, part.length())){
+                return true;
+            }
+            from = at + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Changes for one new version. A chunk still shared with the current
+     * version is copied the first time it is written.
+     */
+    private final class Draft {
+
+        private Chunk[] chunks = CatalogSnapshot.this.chunks.clone();
+        private int count = chunks.length;
+
+        Chunk writable(int index){
+            Chunk chunk = chunks[index];
+            if(index < CatalogSnapshot.this.chunks.length && chunk == CatalogSnapshot.this.chunks[index]){
+                chunk = chunk.copy();
+                chunks[index] = chunk;
+            }
+            return chunk;
+        }
+
+        long maxId(){
+            return count == 0 ? Long.MIN_VALUE : chunks[count - 1].ids[chunks[count - 1].size - 1];
+        }
+
+        void append(Book book, StringPool strings){
+            if(count == 0 || chunks[count - 1].size == CHUNK_SIZE){
+                if(count == chunks.length){
+                    chunks = Arrays.copyOf(chunks, count + 1);
+                }
+                chunks[count++] = new Chunk();
+            }
+            Chunk last = writable(count - 1);
+            last.set(last.size++, book, strings);
+        }
+
+        // chunk index << 32 | row, or -1
+        long locate(long id){
+            int low = 0;
+            int high = count - 1;
+            while(low <= high){
+                int mid = (low + high) >>> 1;
+                Chunk chunk = chunks[mid];
+                if(id < chunk.ids[0]){
+                    high = mid - 1;
+                } else if(id > chunk.ids[chunk.size - 1]){
+                    low = mid + 1;
+                } else {
+                    int row = Arrays.binarySearch(chunk.ids, 0, chunk.size, id);
+                    return row < 0 ? -1 : ((long) mid << 32) | row;
+                }
+            }
+            return -1;
+        }
+
+        CatalogSnapshot finish(long newVersion){
+            Chunk[] done = Arrays.copyOf(chunks, count);
+            for(int i = 0; i < done.length; i++){
+                if(i >= CatalogSnapshot.this.chunks.length || done[i] != CatalogSnapshot.this.chunks[i]){
+                    done[i].count();
+                }
+            }
+            return new CatalogSnapshot(done, newVersion);
+        }
+    }
+
+    /**
+     * Builds a version from rows in ascending id order (full load).
+     */
+    static final class Builder {
+
+        private final StringPool strings;
+        private final long version;
+        private final List<Chunk> chunks = new ArrayList<>();
+        private Chunk current;
+        private long lastId = Long.MIN_VALUE;
+
+        private Builder(StringPool strings, long version){
+            this.strings = strings;
+            this.version = version;
+        }
+
+        Builder add(Book book){
+            next(book.getId()).set(current.size++, book, strings);
+            return this;
+        }
+
+        private void copy(Chunk from, int row){
+            next(from.ids[row]).copyRow(current.size++, from, row);
+        }
+
+        private Chunk next(long id){
+            if(id <= lastId){
+                throw new IllegalArgumentException("Books must come in ascending id order: " + id + " after " + lastId);
+            }
+            lastId = id;
+            if(current == null || current.size == CHUNK_SIZE){
+                current = new Chunk();
+                chunks.add(current);
+            }
+            return current;
+        }
+
+        CatalogSnapshot build(){
+            chunks.forEach(Chunk::count);
+            return new CatalogSnapshot(chunks.toArray(Chunk[]::new), version);
+        }
+    }
+
+    /**
+     * Up to CHUNK_SIZE rows, one array per column. Only written before the
+     * version holding it is published (volatile write in CatalogReadModel).
+     */
+    private static final class Chunk {
+
+        final long[] ids;
+        final int[] stock;
+        final long[] priceCents;
+        final long[] isbns;
+        final long[] createdAt;
+        final String[] titles;
+        final String[] authors;
+        final String[] createdBy;
+        String[] oddIsbns; // only allocated when an ISBN isn't 10 or 13 digits
+
+        int size;
+        int live;
+        int inStock;
+
+        Chunk(){
+            this(new long[CHUNK_SIZE], new int[CHUNK_SIZE], new long[CHUNK_SIZE], new long[CHUNK_SIZE],
+                    new long[CHUNK_SIZE], new String[CHUNK_SIZE], new String[CHUNK_SIZE], new String[CHUNK_SIZE], null);
+        }
+
+        private Chunk(long[] ids, int[] stock, long[] priceCents, long[] isbns, long[] createdAt,
+                      String[] titles, String[] authors, String[] createdBy, String[] oddIsbns){
+            this.ids = ids;
+            this.stock = stock;
+            this.priceCents = priceCents;
+            this.isbns = isbns;
+            this.createdAt = createdAt;
+            this.titles = titles;
+            this.authors = authors;
+            this.createdBy = createdBy;
+            this.oddIsbns = oddIsbns;
+        }
+
+        Chunk copy(){
+            Chunk copy = new Chunk(ids.clone(), stock.clone(), priceCents.clone(), isbns.clone(), createdAt.clone(),
+                    titles.clone(), authors.clone(), createdBy.clone(), oddIsbns == null ? null : oddIsbns.clone());
+            copy.size = size;
+            return copy;
+        }
+
+        boolean isLive(int row){
+            return stock[row] != DELETED;
+        }
+
+        void set(int row, Book book, StringPool strings){
+            ids[row] = book.getId();
+            stock[row] = book.getStock() == null ? 0 : book.getStock();
+            priceCents[row] = book.getPrice() == null ? NONE
+                    : book.getPrice().movePointRight(2).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+            createdAt[row] = book.getCreatedAt() == null ? NONE : toMicros(book.getCreatedAt());
+            titles[row] = book.getTitle();
+            authors[row] = strings.intern(book.getAuthor());
+            createdBy[row] = strings.intern(book.getCreatedBy());
+            setIsbn(row, book.getIsbn());
+        }
+
+        void copyRow(int row, Chunk from, int fromRow){
+            ids[row] = from.ids[fromRow];
+            stock[row] = from.stock[fromRow];
+            priceCents[row] = from.priceCents[fromRow];
+            isbns[row] = from.isbns[fromRow];
+            createdAt[row] = from.createdAt[fromRow];
+            titles[row] = from.titles[fromRow];
+            authors[row] = from.authors[fromRow];
+            createdBy[row] = from.createdBy[fromRow];
+            if(from.isbns[fromRow] == NONE){
+                setIsbn(row, from.isbn(fromRow));
+            }
+        }
+
+        void delete(int row){
+            stock[row] = DELETED;
+            titles[row] = null;
+            authors[row] = null;
+            createdBy[row] = null;
+            if(oddIsbns != null){
+                oddIsbns[row] = null;
+            }
+        }
+
+        void count(){
+            live = 0;
+            inStock = 0;
+            for(int row = 0; row < size; row++){
+                if(stock[row] != DELETED){
+                    live++;
+                    if(stock[row] >= 1){
+                        inStock++;
+                    }
+                }
+            }
+        }
+
+        Book book(int row){
+            return new Book(ids[row], titles[row], authors[row], isbn(row),
+                    priceCents[row] == NONE ? null : BigDecimal.valueOf(priceCents[row], 2),
+                    stock[row], createdBy[row],
+                    createdAt[row] == NONE ? null : fromMicros(createdAt[row]));
+        }
+
+        // 13 digits → the number, 10 digits → -1 - the number, else NONE + the text
+        private void setIsbn(int row, String isbn){
+            if(isbn != null && (isbn.length() == 13 || isbn.length() == 10) && isDigits(isbn)){
+                long value = Long.parseLong(isbn);
+                isbns[row] = isbn.length() == 13 ? value : -1 - value;
+                if(oddIsbns != null){
+                    oddIsbns[row] = null;
+                }
+                return;
+            }
+            isbns[row] = NONE;
+            if(isbn != null){
+                if(oddIsbns == null){
+                    oddIsbns = new String[CHUNK_SIZE];
+                }
+                oddIsbns[row] = isbn;
+            } else if(oddIsbns != null){
+                oddIsbns[row] = null;
+            }
+        }
+
+        private String isbn(int row){
+            long code = isbns[row];
+            if(code == NONE){
+                return oddIsbns == null ? null : oddIsbns[row];
+            }
+            return code >= 0 ? digits(code, 13) : digits(-1 - code, 10);
+        }
+
+        private static boolean isDigits(String text){
+            for(int i = 0; i < text.length(); i++){
+                if(text.charAt(i) < '0' || text.charAt(i) > '9'){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Zero-padded, without String.format
+        private static String digits(long value, int length){
+            byte[] out = new byte[length];
+            for(int i = length - 1; i >= 0; i--){
+                out[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            return new String(out, StandardCharsets.ISO_8859_1);
+        }
+
+        private static long toMicros(LocalDateTime time){
+            return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+        }
+
+        private static LocalDateTime fromMicros(long micros){
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                    (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+        }
+    }
+}
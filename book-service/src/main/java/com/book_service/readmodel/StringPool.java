@@ -0,0 +1,29 @@
+package com.book_service.readmodel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dedupes repetitive strings (authors, createdBy) while a CatalogSnapshot is
+ * built or updated: one String per distinct author instead of one per book.
+ *
+ * Own map instead of String.intern(): it is dropped with the snapshot
+ * generation that used it. Not thread-safe - the read model's writer thread
+ * is its only user.
+ */
+final class StringPool {
+
+    private final Map<String, String> strings = new HashMap<>();
+
+    String intern(String value){
+        if(value == null){
+            return null;
+        }
+        String pooled = strings.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    int size(){
+        return strings.size();
+    }
+}
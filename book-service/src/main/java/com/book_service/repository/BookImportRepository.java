@@ -0,0 +1,87 @@
+package com.book_service.repository;
+
+import com.book_service.entity.Book;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Book Import Repository - multi-row upserts for the catalog import
+ *
+ * WHY: bookRepository.save per row is a SELECT (by ISBN) plus an INSERT or
+ * UPDATE, one round trip each, and Hibernate can't batch IDENTITY inserts.
+ * Here a batch of N rows is ONE statement:
+ *
+ *   INSERT INTO books (...) VALUES (...), (...), ...
+ *   ON CONFLICT (isbn) DO UPDATE ...  RETURNING id, inserted
+ *
+ * New rows take their ids from the id column's sequence inside that same
+ * statement (a row that turns out to be an update burns one value - gaps
+ * are harmless). Existing rows keep id, created_at; books on stock buckets
+ * keep their stock (the buckets hold it, see StockBucketService).
+ *
+ * Caller holds a transaction. The ISBNs of one batch must be distinct
+ * (PostgreSQL refuses to update the same row twice in one statement).
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookImportRepository {
+
+    private static final String COLUMNS =
+            "INSERT INTO books (title, author, isbn, price, stock, created_by, created_at) VALUES ";
+
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ON_CONFLICT =
+            " ON CONFLICT (isbn) DO UPDATE SET title = EXCLUDED.title, author = EXCLUDED.author, " +
+            "price = EXCLUDED.price, created_by = EXCLUDED.created_by, " +
+            "stock = CASE WHEN EXISTS (SELECT 1 FROM stock_buckets b WHERE b.book_id = books.id) " +
+            "THEN books.stock ELSE EXCLUDED.stock END " +
+            // xmax is 0 only on a freshly inserted row version
+            "RETURNING id, (xmax = 0) AS inserted";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Upserted(long id, boolean inserted) {
+    }
+
+    /**
+     * Inserts the books, or updates the ones whose ISBN exists, in one
+     * statement. Results in no particular order.
+     */
+    public List<Upserted> upsert(List<Book> books){
+        StringBuilder sql = new StringBuilder(COLUMNS.length() + books.size() * (ROW.length() + 2) + ON_CONFLICT.length())
+                .append(COLUMNS);
+        for(int i = 0; i < books.size(); i++){
+            sql.append(i == 0 ? "" : ", ").append(ROW);
+        }
+        sql.append(ON_CONFLICT);
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            int p = 1;
+            for(Book book : books){
+                ps.setString(p++, book.getTitle());
+                ps.setString(p++, book.getAuthor());
+                ps.setString(p++, book.getIsbn());
+                ps.setBigDecimal(p++, book.getPrice());
+                ps.setInt(p++, book.getStock());
+                ps.setString(p++, book.getCreatedBy());
+                ps.setTimestamp(p++, Timestamp.valueOf(book.getCreatedAt()));
+            }
+            return ps;
+        }, (ResultSet rs) -> {
+            List<Upserted> upserted = new ArrayList<>(books.size());
+            while(rs.next()){
+                upserted.add(new Upserted(rs.getLong(1), rs.getBoolean(2)));
+            }
+            return upserted;
+        });
+    }
+}
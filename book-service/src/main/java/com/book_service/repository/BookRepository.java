@@ -1,10 +1,16 @@
 package com.book_service.repository;
 
 import com.book_service.entity.Book;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,6 +18,7 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Book Repository - Data Access Layer
@@ -33,8 +40,90 @@ public interface BookRepository extends JpaRepository<Book,Long> {
     @Query("Select b FROM Book b WHERE b.price <= :maxPrice Order by b.price ASC")
     List<Book> findBooksByMaxPrice(@Param("maxPrice") BigDecimal maxPrice);
 
+    /**
+     * Whole catalog as a cursor: PostgreSQL sends 500 rows at a time
+     * (only inside a transaction) instead of the full result set, and
+     * read-only entities keep no dirty-checking snapshot. Close the stream.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+
     // Pagination support
     Page<Book> findByStockGreaterThanEqual(int stock, Pageable pageable);
+
+    // In stock = books.stock or any of its stock buckets (sharded books keep books.stock = 0)
+    @Query(value = "SELECT b FROM Book b WHERE b.stock >= 1 " +
+            "OR EXISTS (SELECT 1 FROM StockBucket s WHERE s.bookId = b.id AND s.stock > 0)",
+            countQuery = "SELECT COUNT(b) FROM Book b WHERE b.stock >= 1 " +
+                    "OR EXISTS (SELECT 1 FROM StockBucket s WHERE s.bookId = b.id AND s.stock > 0)")
+    Page<Book> findInStock(Pageable pageable);
+
+    /**
+     * Keyset (seek) variants of findInStock: start right after the last row
+     * of the previous page instead of counting past OFFSET rows, so page 5000
+     * costs what page 0 does. List return type → no count query; pass
+     * PageRequest.of(0, n) as the limit.
+     */
+    @Query("SELECT b FROM Book b WHERE (b.stock >= 1 " +
+            "OR EXISTS (SELECT 1 FROM StockBucket s WHERE s.bookId = b.id AND s.stock > 0)) " +
+            "AND b.id > :afterId ORDER BY b.id")
+    List<Book> findInStockAfterId(@Param("afterId") long afterId, Pageable limit);
+
+    // title >= :title is implied by the OR, spelled out so the (title, id) index gets a range start
+    @Query("SELECT b FROM Book b WHERE (b.stock >= 1 " +
+            "OR EXISTS (SELECT 1 FROM StockBucket s WHERE s.bookId = b.id AND s.stock > 0)) " +
+            "AND b.title >= :afterTitle AND (b.title > :afterTitle OR b.id > :afterId) " +
+            "ORDER BY b.title, b.id")
+    List<Book> findInStockAfterTitle(@Param("afterTitle") String afterTitle,
+                                     @Param("afterId") long afterId,
+                                     Pageable limit);
+
+    /**
+     * Keyset page of books priced within [minPrice, maxPrice], by (price, id),
+     * starting after (afterPrice, afterId). inStock = false → sold-out books too.
+     * Served by idx_price_id; PriceIndex answers the same once it is built.
+     */
+    @Query("SELECT b FROM Book b WHERE b.price >= :minPrice AND b.price <= :maxPrice " +
+            "AND (b.price > :afterPrice OR (b.price = :afterPrice AND b.id > :afterId)) " +
+            "AND (:inStock = false OR b.stock >= 1 " +
+            "OR EXISTS (SELECT 1 FROM StockBucket s WHERE s.bookId = b.id AND s.stock > 0)) " +
+            "ORDER BY b.price, b.id")
+    List<Book> findByPriceRangeAfter(@Param("minPrice") BigDecimal minPrice,
+                                     @Param("maxPrice") BigDecimal maxPrice,
+                                     @Param("afterPrice") BigDecimal afterPrice,
+                                     @Param("afterId") long afterId,
+                                     @Param("inStock") boolean inStock,
+                                     Pageable limit);
+
+    /**
+     * Conditional decrement in ONE statement: the row lock is taken and
+     * released inside the UPDATE, so concurrent buyers of the same book queue
+     * on the row instead of overwriting each other's read-modify-write.
+     *
+     * Returns the new stock, or empty if the book doesn't exist or has fewer
+     * than quantity left (nothing is changed then).
+     */
+    @Query(value = "UPDATE books SET stock = stock - :quantity " +
+            "WHERE id = :id AND stock >= :quantity RETURNING stock", nativeQuery = true)
+    Optional<Integer> decrementStockIfAvailable(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Book row locked for the rest of the transaction (stock bucket toggling)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> findByIdForUpdate(@Param("id") Long id);
+
+    // Give stock back (released / expired reservations)
+    @Modifying
+    @Query("UPDATE Book b SET b.stock = b.stock + :quantity WHERE b.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Row lock for the rest of the transaction (StockDecrementCombiner slow path)
+    @Query(value = "SELECT stock FROM books WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockStock(@Param("id") Long id);
 }
 
 /**
@@ -0,0 +1,161 @@
+package com.book_service.repository;
+
+import com.book_service.dto.BulkUpdateRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk Book Update Repository - set-based statements for bulk repricing /
+ * restocking (BookBulkUpdateService)
+ *
+ * WHY: PUT /books/{id} per title is a read, a full-row write and a
+ * transaction each. Here a chunk of N books is one UPDATE:
+ *
+ *   UPDATE books SET price = ... WHERE id = ANY(?) RETURNING id
+ *
+ * Targets are picked first (by filter, keyset on id, or by ISBN) so a
+ * change never moves a book in or out of the chunk it is in.
+ *
+ * Caller holds a transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BulkBookUpdateRepository {
+
+    // books.price is NUMERIC(10,2)
+    private static final String PRICE_PERCENT =
+            "UPDATE books SET price = LEAST(99999999.99, GREATEST(0.01, ROUND(price * ?, 2))), created_by = ? " +
+            "WHERE id = ANY(?) AND price IS NOT NULL RETURNING id";
+
+    private static final String PRICE_SET =
+            "UPDATE books SET price = ?, created_by = ? WHERE id = ANY(?) RETURNING id";
+
+    private static final String STOCK_ADD =
+            "UPDATE books SET stock = GREATEST(0, stock + ?), created_by = ? WHERE id = ANY(?) RETURNING id";
+
+    private static final String STOCK_SET =
+            "UPDATE books SET stock = ?, created_by = ? WHERE id = ANY(?) RETURNING id";
+
+    private static final String SHARDED =
+            "SELECT DISTINCT book_id FROM stock_buckets WHERE book_id = ANY(?)";
+
+    private static final String BY_ISBN =
+            "SELECT isbn, id FROM books WHERE isbn = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Books matching the filter right now (progress total).
+     */
+    public long count(BulkUpdateRequest.Filter filter, boolean pricedOnly){
+        List<Object> params = new ArrayList<>();
+        String where = where(filter, pricedOnly, params);
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books WHERE " + where, Long.class,
+                params.toArray());
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Next chunk of matching IDs after afterId, in id order.
+     */
+    public List<Long> findIdsAfter(BulkUpdateRequest.Filter filter, boolean pricedOnly, long afterId, int limit){
+        List<Object> params = new ArrayList<>();
+        String where = where(filter, pricedOnly, params);
+        params.add(afterId);
+        params.add(limit);
+        return jdbcTemplate.queryForList("SELECT id FROM books WHERE " + where + " AND id > ? ORDER BY id LIMIT ?",
+                Long.class, params.toArray());
+    }
+
+    /**
+     * ISBN → id of the ones that exist.
+     */
+    public Map<String, Long> findIdsByIsbn(List<String> isbns){
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(BY_ISBN);
+            ps.setArray(1, con.createArrayOf("varchar", isbns.toArray()));
+            return ps;
+        }, rs -> {
+            ids.put(rs.getString(1), rs.getLong(2));
+        });
+        return ids;
+    }
+
+    /**
+     * The given books that have stock buckets: their stock isn't in books.stock.
+     */
+    public List<Long> findSharded(List<Long> ids){
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SHARDED);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, (rs, row) -> rs.getLong(1));
+    }
+
+    /**
+     * Applies the operation to the books in one statement.
+     *
+     * @return IDs of the books changed (missing / unpriced ones aren't)
+     */
+    public List<Long> apply(List<Long> ids, BulkUpdateRequest.Operation operation, BigDecimal value,
+                            String updatedBy){
+        String sql = switch(operation){
+            case PRICE_PERCENT -> PRICE_PERCENT;
+            case PRICE_SET -> PRICE_SET;
+            case STOCK_ADD -> STOCK_ADD;
+            case STOCK_SET -> STOCK_SET;
+        };
+        Object first = switch(operation){
+            case PRICE_PERCENT -> BigDecimal.ONE.add(value.movePointLeft(2));
+            case PRICE_SET -> value;
+            case STOCK_ADD, STOCK_SET -> value.intValueExact();
+        };
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setObject(1, first);
+            ps.setString(2, updatedBy);
+            ps.setArray(3, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, (rs, row) -> rs.getLong(1));
+    }
+
+    private static String where(BulkUpdateRequest.Filter filter, boolean pricedOnly, List<Object> params){
+        List<String> conditions = new ArrayList<>();
+        if(filter.title() != null && !filter.title().isBlank()){
+            conditions.add("LOWER(title) LIKE ? ESCAPE '\\'");
+            params.add(contains(filter.title()));
+        }
+        if(filter.author() != null && !filter.author().isBlank()){
+            conditions.add("LOWER(author) LIKE ? ESCAPE '\\'");
+            params.add(contains(filter.author()));
+        }
+        if(filter.minPrice() != null){
+            conditions.add("price >= ?");
+            params.add(filter.minPrice());
+        }
+        if(filter.maxPrice() != null){
+            conditions.add("price <= ?");
+            params.add(filter.maxPrice());
+        }
+        if(pricedOnly){
+            conditions.add("price IS NOT NULL");
+        }
+        return conditions.isEmpty() ? "TRUE" : String.join(" AND ", conditions);
+    }
+
+    private static String contains(String text){
+        String escaped = text.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
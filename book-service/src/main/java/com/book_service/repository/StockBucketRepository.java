@@ -0,0 +1,58 @@
+package com.book_service.repository;
+
+import com.book_service.entity.StockBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stock Bucket Repository - sharded stock counters of hot books
+ */
+@Repository
+public interface StockBucketRepository extends JpaRepository<StockBucket,Long> {
+
+    List<StockBucket> findByBookIdOrderByBucket(Long bookId);
+
+    boolean existsByBookId(Long bookId);
+
+    @Query("SELECT DISTINCT s.bookId FROM StockBucket s")
+    List<Long> findShardedBookIds();
+
+    // [bookId, total stock] per book
+    @Query("SELECT s.bookId, SUM(s.stock) FROM StockBucket s WHERE s.bookId IN :bookIds GROUP BY s.bookId")
+    List<Object[]> sumStockByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    // All buckets of a book, locked in bucket order (same order everywhere → no deadlocks)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StockBucket s WHERE s.bookId = :bookId ORDER BY s.bucket")
+    List<StockBucket> lockByBookId(@Param("bookId") Long bookId);
+
+    /**
+     * Conditional decrement of ONE bucket. Returns the book's total stock
+     * after this decrement (the other buckets as of this statement), or
+     * empty if that bucket doesn't hold quantity.
+     */
+    @Query(value = "WITH d AS (UPDATE stock_buckets SET stock = stock - :quantity " +
+            "WHERE book_id = :bookId AND bucket = :bucket AND stock >= :quantity RETURNING book_id) " +
+            "SELECT CAST((SELECT COALESCE(SUM(stock), 0) FROM stock_buckets WHERE book_id = :bookId) - :quantity AS INTEGER) " +
+            "FROM d", nativeQuery = true)
+    Optional<Integer> decrementBucketIfAvailable(@Param("bookId") Long bookId,
+                                                 @Param("bucket") int bucket,
+                                                 @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE StockBucket s SET s.stock = s.stock + :quantity WHERE s.bookId = :bookId AND s.bucket = :bucket")
+    int incrementBucket(@Param("bookId") Long bookId, @Param("bucket") int bucket, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("DELETE FROM StockBucket s WHERE s.bookId = :bookId")
+    int deleteByBookId(@Param("bookId") Long bookId);
+}
@@ -0,0 +1,53 @@
+package com.book_service.repository;
+
+import com.book_service.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Stock Reservation Repository
+ *
+ * Status changes are conditional updates: whichever of confirm / release /
+ * expiry gets there first wins, the others update 0 rows. That is what makes
+ * "give the stock back" happen exactly once, on any instance.
+ */
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation,Long> {
+
+    List<StockReservation> findByStatus(StockReservation.Status status);
+
+    List<StockReservation> findByGroupIdOrderByBookId(String groupId);
+
+    // HELD past their expiry; rows another instance is sweeping are skipped
+    @Query(value = "SELECT id FROM stock_reservations WHERE status = 'HELD' AND expires_at < :before"
+            + " ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockOverdue(@Param("before") Instant before, @Param("limit") int limit);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = :to WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") StockReservation.Status from,
+                   @Param("to") StockReservation.Status to);
+
+    // Confirm only while the hold is still valid, even if its timer hasn't fired yet
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = :to WHERE r.id = :id AND r.status = :from AND r.expiresAt > :now")
+    int transitionIfNotExpired(@Param("id") Long id,
+                               @Param("from") StockReservation.Status from,
+                               @Param("to") StockReservation.Status to,
+                               @Param("now") Instant now);
+
+    // All lines of a cart share expiresAt: either all are still valid or none is
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = :to WHERE r.groupId = :groupId AND r.status = :from AND r.expiresAt > :now")
+    int transitionGroupIfNotExpired(@Param("groupId") String groupId,
+                                    @Param("from") StockReservation.Status from,
+                                    @Param("to") StockReservation.Status to,
+                                    @Param("now") Instant now);
+}
@@ -0,0 +1,312 @@
+package com.book_service.service;
+
+import com.book_service.dto.BulkUpdateRequest;
+import com.book_service.dto.BulkUpdateStatus;
+import com.book_service.event.BooksBulkChangedEvent;
+import com.book_service.repository.BulkBookUpdateRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk Repricing / Restocking - "10% off author X", "restock these 5k ISBNs"
+ *
+ * WHY: Each change used to be a PUT /books/{id} (read, overwrite every
+ * field, save): tens of thousands of HTTP calls and transactions.
+ *
+ * Flow (one job at a time, in the background):
+ * 1. POST /books/bulk-updates → validated → 202 job
+ * 2. Targets picked book.bulk-updates.chunk-size at a time: by filter
+ *    (keyset on id) or from the ISBN list
+ * 3. Each chunk = one transaction, one set-based UPDATE (BulkBookUpdateRepository).
+ *    Stock of books on stock buckets goes through StockBucketService instead
+ * 4. End → one BooksBulkChangedEvent: cache, search / price index and read
+ *    model catch up in one batch. Past BooksBulkChangedEvent.LARGE changed
+ *    books their ids are no longer kept and the event just says "rebuild"
+ *
+ * GET /books/bulk-updates/{jobId} → progress
+ */
+@Service
+public class BookBulkUpdateService {
+
+    // books.price is NUMERIC(10,2)
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+    private static final BigDecimal MAX_PERCENT = new BigDecimal("1000");
+    private static final int MISSING_ISBNS_SHOWN = 100;
+
+    private final BulkBookUpdateRepository updateRepository;
+    private final StockBucketService stockBucketService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate chunkTransaction;
+    private final ExecutorService runner;
+
+    private final int chunkSize;
+    private final int maxIsbns;
+    private final int keepJobs;
+
+    // Insertion order: oldest first, pruned down to keepJobs
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public BookBulkUpdateService(BulkBookUpdateRepository updateRepository,
+                                 StockBucketService stockBucketService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${book.bulk-updates.chunk-size:1000}") int chunkSize,
+                                 @Value("${book.bulk-updates.max-isbns:100000}") int maxIsbns,
+                                 @Value("${book.bulk-updates.keep-jobs:20}") int keepJobs) {
+        this.updateRepository = updateRepository;
+        this.stockBucketService = stockBucketService;
+        this.eventPublisher = eventPublisher;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxIsbns = maxIsbns;
+        this.keepJobs = keepJobs;
+        this.runner = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "book-bulk-update");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop(){
+        runner.shutdownNow();
+    }
+
+    /**
+     * Validates the request and queues the job.
+     *
+     * @throws IllegalArgumentException when the request can't run as given
+     */
+    public BulkUpdateStatus submit(BulkUpdateRequest request, String updatedBy){
+        validate(request);
+        Job job = new Job(request);
+        synchronized(jobs){
+            jobs.put(job.id, job);
+            Iterator<Job> oldest = jobs.values().iterator();
+            while(jobs.size() > keepJobs && oldest.hasNext()){
+                if(oldest.next().finishedAt != null){
+                    oldest.remove();
+                }
+            }
+        }
+        runner.execute(() -> run(job, updatedBy));
+        return job.status();
+    }
+
+    public Optional<BulkUpdateStatus> status(String jobId){
+        synchronized(jobs){
+            return Optional.ofNullable(jobs.get(jobId)).map(Job::status);
+        }
+    }
+
+    private void validate(BulkUpdateRequest request){
+        boolean byFilter = request.filter() != null;
+        boolean byIsbn = request.isbns() != null;
+        if(byFilter == byIsbn){
+            throw new IllegalArgumentException("Give either filter or isbns");
+        }
+        if(byFilter && request.filter().isEmpty()){
+            throw new IllegalArgumentException("Filter needs at least one of title, author, minPrice, maxPrice");
+        }
+        if(byIsbn && (request.isbns().isEmpty() || request.isbns().size() > maxIsbns)){
+            throw new IllegalArgumentException("isbns must list 1 to " + maxIsbns + " ISBNs");
+        }
+        if(request.operation() == null || request.value() == null){
+            throw new IllegalArgumentException("operation and value are required");
+        }
+        BigDecimal value = request.value();
+        switch(request.operation()){
+            case PRICE_PERCENT -> {
+                if(value.compareTo(new BigDecimal("-100")) <= 0 || value.compareTo(MAX_PERCENT) > 0){
+                    throw new IllegalArgumentException("PRICE_PERCENT must be above -100 and at most " + MAX_PERCENT);
+                }
+            }
+            case PRICE_SET -> {
+                if(value.compareTo(new BigDecimal("0.01")) < 0 || value.compareTo(MAX_PRICE) > 0
+                        || value.stripTrailingZeros().scale() > 2){
+                    throw new IllegalArgumentException("PRICE_SET must be 0.01 to " + MAX_PRICE + ", in cents");
+                }
+            }
+            case STOCK_ADD, STOCK_SET -> {
+                if(value.stripTrailingZeros().scale() > 0 || value.abs().compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) > 0){
+                    throw new IllegalArgumentException(request.operation() + " must be a whole number");
+                }
+                if(request.operation() == BulkUpdateRequest.Operation.STOCK_SET && value.signum() < 0){
+                    throw new IllegalArgumentException("STOCK_SET cannot be negative");
+                }
+            }
+        }
+    }
+
+    private void run(Job job, String updatedBy){
+        BulkUpdateRequest request = job.request;
+        job.startedAt = Instant.now();
+        job.state = "RUNNING";
+        Changed changed = new Changed();
+        try{
+            if(request.filter() != null){
+                runByFilter(job, updatedBy, changed);
+            } else {
+                runByIsbn(job, updatedBy, changed);
+            }
+            job.state = "COMPLETED";
+        } catch (RuntimeException e) {
+            job.error = e.getMessage();
+            job.state = "FAILED";
+        } finally {
+            // Whatever was committed, failed job or not
+            BooksBulkChangedEvent event = changed.event();
+            if(event != null){
+                eventPublisher.publishEvent(event);
+            }
+            job.finishedAt = Instant.now();
+        }
+        System.out.println((job.error == null ? "✅" : "❌") + " Bulk update " + job.id + " " + job.state + ": "
+                + request.operation() + " " + request.value() + " → " + job.updated.get() + " of "
+                + job.total + " books" + (job.error == null ? "" : " - " + job.error));
+    }
+
+    private void runByFilter(Job job, String updatedBy, Changed changed){
+        BulkUpdateRequest.Filter filter = job.request.filter();
+        boolean pricedOnly = job.request.operation() == BulkUpdateRequest.Operation.PRICE_PERCENT;
+        job.total = updateRepository.count(filter, pricedOnly);
+        long afterId = 0;
+        while(true){
+            long after = afterId;
+            List<Long> ids = chunkTransaction.execute(status -> {
+                List<Long> chunk = updateRepository.findIdsAfter(filter, pricedOnly, after, chunkSize);
+                if(!chunk.isEmpty()){
+                    changed.addAll(applyChunk(chunk, job.request, updatedBy));
+                }
+                return chunk;
+            });
+            if(ids.isEmpty()){
+                return;
+            }
+            afterId = ids.get(ids.size() - 1);
+            job.processed.addAndGet(ids.size());
+            job.updated.set(changed.count);
+        }
+    }
+
+    private void runByIsbn(Job job, String updatedBy, Changed changed){
+        List<String> isbns = new ArrayList<>(new LinkedHashSet<>(job.request.isbns()));
+        job.total = isbns.size();
+        for(int from = 0; from < isbns.size(); from += chunkSize){
+            List<String> chunk = isbns.subList(from, Math.min(isbns.size(), from + chunkSize));
+            chunkTransaction.executeWithoutResult(status -> {
+                Map<String, Long> ids = updateRepository.findIdsByIsbn(chunk);
+                for(String isbn : chunk){
+                    if(!ids.containsKey(isbn)){
+                        job.missing(isbn);
+                    }
+                }
+                if(!ids.isEmpty()){
+                    changed.addAll(applyChunk(new ArrayList<>(ids.values()), job.request, updatedBy));
+                }
+            });
+            job.processed.addAndGet(chunk.size());
+            job.updated.set(changed.count);
+        }
+    }
+
+    // Inside the chunk's transaction
+    private List<Long> applyChunk(List<Long> ids, BulkUpdateRequest request, String updatedBy){
+        if(request.operation().isPrice()){
+            return updateRepository.apply(ids, request.operation(), request.value(), updatedBy);
+        }
+        // Sharded books keep 0 in books.stock: their stock is the buckets'
+        List<Long> sharded = updateRepository.findSharded(ids);
+        List<Long> plain = new ArrayList<>(ids);
+        plain.removeAll(sharded);
+        List<Long> updated = plain.isEmpty() ? new ArrayList<>()
+                : new ArrayList<>(updateRepository.apply(plain, request.operation(), request.value(), updatedBy));
+        int value = request.value().intValueExact();
+        for(Long id : sharded){
+            if(request.operation() == BulkUpdateRequest.Operation.STOCK_SET){
+                stockBucketService.setTotal(id, value);
+            } else if(value >= 0){
+                stockBucketService.increment(id, value);
+            } else if(stockBucketService.decrementLocked(id, -value).isEmpty()){
+                stockBucketService.setTotal(id, 0); // fewer left than taken away
+            }
+            updated.add(id);
+        }
+        return updated;
+    }
+
+    // IDs of the books changed, until there are too many to be worth listing
+    private static final class Changed {
+        private List<Long> ids = new ArrayList<>();
+        private boolean tooMany;
+        long count;
+
+        void addAll(List<Long> changed){
+            count += changed.size();
+            if(tooMany){
+                return;
+            }
+            ids.addAll(changed);
+            if(ids.size() > BooksBulkChangedEvent.LARGE){
+                tooMany = true;
+                ids = null;
+            }
+        }
+
+        // null: nothing changed
+        BooksBulkChangedEvent event(){
+            if(tooMany){
+                return BooksBulkChangedEvent.rebuild();
+            }
+            return ids.isEmpty() ? null : new BooksBulkChangedEvent(ids);
+        }
+    }
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final BulkUpdateRequest request;
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong updated = new AtomicLong();
+        final AtomicLong notFound = new AtomicLong();
+        final List<String> missingIsbns = Collections.synchronizedList(new ArrayList<>());
+        volatile long total;
+        volatile String state = "QUEUED";
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Job(BulkUpdateRequest request){
+            this.request = request;
+        }
+
+        void missing(String isbn){
+            if(notFound.incrementAndGet() <= MISSING_ISBNS_SHOWN){
+                missingIsbns.add(isbn);
+            }
+        }
+
+        BulkUpdateStatus status(){
+            return new BulkUpdateStatus(id, state, request.operation(), request.value(), total, processed.get(),
+                    updated.get(), notFound.get(), List.copyOf(missingIsbns), startedAt, finishedAt, error);
+        }
+    }
+}
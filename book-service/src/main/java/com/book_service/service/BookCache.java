@@ -0,0 +1,180 @@
+package com.book_service.service;
+
+import com.book_service.entity.Book;
+import com.book_service.event.BookChangedEvent;
+import com.book_service.event.BookStockChangedEvent;
+import com.book_service.event.BooksBulkChangedEvent;
+import com.book_service.util.WTinyLfuCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Near Cache for single-book reads (getBookById / getBookByIsbn)
+ *
+ * WHY: Every GET /books/{id} - and every order - went to PostgreSQL for a
+ * row that rarely changes.
+ *
+ * Holds immutable snapshots by ID (WTinyLfuCache, bounded by estimated
+ * bytes) plus an ISBN → ID index; callers always get a fresh Book copy.
+ *
+ * Kept in step with this instance's writes:
+ *   update / delete       → invalidated after commit (BookChangedEvent)
+ *   orders / restock /    → invalidated after commit (BookStockChangedEvent;
+ *   cart holds              no value kept from it, events come in any order)
+ *   catalog import        → invalidated (BooksBulkChangedEvent; all of it when
+ *                           the import was too large to list its books)
+ * Writes on other instances show up within book.cache.ttl-seconds.
+ *
+ * Metrics: book.cache.gets{result=hit|miss}, book.cache.loads (timer),
+ * book.cache.evictions, book.cache.size, book.cache.weight, book.cache.hit.ratio
+ */
+@Component
+public class BookCache {
+
+    private final boolean enabled;
+    private final WTinyLfuCache<Long, Snapshot> byId;
+    private final Map<String, Long> idByIsbn = new ConcurrentHashMap<>();
+    // Bumped by every invalidation: an ISBN load that raced one isn't cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public BookCache(MeterRegistry meterRegistry,
+                     @Value("${book.cache.enabled:true}") boolean enabled,
+                     @Value("${book.cache.max-weight-mb:64}") long maxWeightMb,
+                     @Value("${book.cache.expected-entries:100000}") int expectedEntries,
+                     @Value("${book.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.byId = new WTinyLfuCache<>(maxWeightMb * 1024 * 1024, Snapshot::weight, expectedEntries,
+                Duration.ofSeconds(ttlSeconds), (id, snapshot) -> idByIsbn.remove(snapshot.isbn(), id));
+
+        FunctionCounter.builder("book.cache.gets", byId, WTinyLfuCache::hitCount).tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("book.cache.gets", byId, WTinyLfuCache::missCount).tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("book.cache.evictions", byId, WTinyLfuCache::evictionCount)
+                .register(meterRegistry);
+        FunctionTimer.builder("book.cache.loads", byId, WTinyLfuCache::loadCount,
+                        WTinyLfuCache::totalLoadNanos, TimeUnit.NANOSECONDS)
+                .register(meterRegistry);
+        Gauge.builder("book.cache.size", byId, WTinyLfuCache::size).register(meterRegistry);
+        Gauge.builder("book.cache.weight", byId, WTinyLfuCache::weightedSize).baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("book.cache.hit.ratio", byId, cache -> {
+            long hits = cache.hitCount();
+            long total = hits + cache.missCount();
+            return total == 0 ? 0 : (double) hits / total;
+        }).register(meterRegistry);
+    }
+
+    /**
+     * @param loader book with bucket totals applied, or null if there is none
+     * @return a copy the caller may change, or null
+     */
+    public Book get(Long id, Function<Long, Book> loader){
+        if(!enabled){
+            return loader.apply(id);
+        }
+        Snapshot snapshot = byId.getOrLoad(id, key -> {
+            Book book = loader.apply(key);
+            return book == null ? null : Snapshot.of(book);
+        });
+        if(snapshot == null){
+            return null;
+        }
+        idByIsbn.put(snapshot.isbn(), id);
+        return snapshot.toBook();
+    }
+
+    /**
+     * Same as get, by ISBN. No stampede guard here: a miss resolves the ID
+     * with one query and later reads go through the ID path.
+     */
+    public Book getByIsbn(String isbn, Supplier<Book> loader){
+        if(!enabled){
+            return loader.get();
+        }
+        Long id = idByIsbn.get(isbn);
+        if(id != null){
+            Snapshot snapshot = byId.getIfPresent(id);
+            if(snapshot != null && snapshot.isbn().equals(isbn)){
+                return snapshot.toBook();
+            }
+        }
+        long seen = invalidations.get();
+        Book book = loader.get();
+        if(book != null && invalidations.get() == seen){
+            byId.put(book.getId(), Snapshot.of(book));
+            idByIsbn.put(book.getIsbn(), book.getId());
+        }
+        return book;
+    }
+
+    public void invalidate(Long id){
+        if(enabled){
+            invalidations.incrementAndGet();
+            byId.invalidate(id);
+        }
+    }
+
+    public void invalidateAll(){
+        if(enabled){
+            invalidations.incrementAndGet();
+            byId.invalidateAll();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event){
+        invalidate(event.bookId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(BookStockChangedEvent event){
+        invalidate(event.bookId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksChanged(BooksBulkChangedEvent event){
+        if(event.rebuildOnly()){
+            invalidateAll();
+        } else {
+            event.bookIds().forEach(this::invalidate);
+        }
+    }
+
+    private record Snapshot(Long id, String title, String author, String isbn, BigDecimal price,
+                            int stock, String createdBy, LocalDateTime createdAt) {
+
+        static Snapshot of(Book book){
+            return new Snapshot(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                    book.getPrice(), book.getStock(), book.getCreatedBy(), book.getCreatedAt());
+        }
+
+        Book toBook(){
+            return new Book(id, title, author, isbn, price, stock, createdBy, createdAt);
+        }
+
+        // Rough heap bytes: object headers + fields + UTF-16 strings
+        long weight(){
+            return 160 + 2L * (length(title) + length(author) + length(isbn) + length(createdBy));
+        }
+
+        private static int length(String s){
+            return s == null ? 0 : s.length();
+        }
+    }
+}
@@ -0,0 +1,568 @@
+package com.book_service.service;
+
+import com.book_service.dto.ImportStatus;
+import com.book_service.entity.Book;
+import com.book_service.event.BooksBulkChangedEvent;
+import com.book_service.repository.BookImportRepository;
+import com.book_service.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog Import - nightly feeds of millions of titles, upserted by ISBN
+ *
+ * WHY: Feeding the catalog through POST /books is a round trip (plus
+ * validation and events) per title: hours for a 2M-title feed.
+ *
+ * Pipeline (one import at a time):
+ *   feed (CSV / NDJSON) → streamed, book.import.batch-size rows at a time
+ *     → each batch validated on the validation pool (Book's constraints),
+ *       several batches in flight
+ *     → batches written in feed order, each ONE multi-row upsert in its own
+ *       transaction (BookImportRepository)
+ *     → rejected rows → rejects file (NDJSON: line, errors, the row)
+ *   end → one BooksBulkChangedEvent: caches, search / price index and read
+ *         model catch up once, not once per row
+ *
+ * Memory stays flat: only the batches in flight are held, never the feed,
+ * and past BooksBulkChangedEvent.LARGE changed books not their ids either
+ * (the event then just says "rebuild").
+ * A batch that breaks a constraint (rare: validation ran first) is retried
+ * row by row, so one bad row is rejected instead of its whole batch. Any
+ * other database error (connection, timeout...) fails the job.
+ * Within a feed the last row for an ISBN wins.
+ *
+ * Entry points: POST /books/import (BookImportController, async job) and
+ * BookImportRunner (command line, synchronous).
+ */
+@Service
+public class BookImportService {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format fromContentType(String contentType){
+            if(contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv")){
+                return CSV;
+            }
+            if(contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("application/x-ndjson")){
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Content-Type must be text/csv or application/x-ndjson");
+        }
+
+        public static Format fromFileName(Path file){
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if(name.endsWith(".csv")){
+                return CSV;
+            }
+            if(name.endsWith(".ndjson") || name.endsWith(".jsonl")){
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Can't tell the format of " + file + ": use .csv or .ndjson");
+        }
+    }
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("title", "author", "isbn");
+    // books.price is NUMERIC(10,2)
+    private static final int PRICE_INTEGER_DIGITS = 8;
+
+    private final BookImportRepository importRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate batchTransaction;
+    private final ExecutorService validators;
+    private final ExecutorService runner;
+
+    private final int batchSize;
+    private final int inFlight;
+    private final long progressEvery;
+    private final int keepJobs;
+    private final Path workDir;
+
+    // Insertion order: oldest first, pruned down to keepJobs
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public BookImportService(BookImportRepository importRepository,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${book.import.batch-size:1000}") int batchSize,
+                             @Value("${book.import.validation-threads:0}") int validationThreads,
+                             @Value("${book.import.progress-every:100000}") long progressEvery,
+                             @Value("${book.import.keep-jobs:20}") int keepJobs,
+                             @Value("${book.import.work-dir:${java.io.tmpdir}/book-imports}") String workDir) {
+        this.importRepository = importRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        // 7 values per row; PostgreSQL takes at most 65535 parameters a statement
+        this.batchSize = Math.min(Math.max(1, batchSize), 9000);
+        int threads = validationThreads > 0 ? validationThreads : Runtime.getRuntime().availableProcessors();
+        this.inFlight = threads * 2;
+        this.progressEvery = progressEvery;
+        this.keepJobs = keepJobs;
+        this.workDir = Path.of(workDir);
+        this.validators = Executors.newFixedThreadPool(threads, daemon("book-import-validate"));
+        this.runner = Executors.newSingleThreadExecutor(daemon("book-import"));
+    }
+
+    @PreDestroy
+    public void stop(){
+        runner.shutdownNow();
+        validators.shutdownNow();
+    }
+
+    /**
+     * Spools the feed to book.import.work-dir (the request ends, the job
+     * doesn't) and queues the import.
+     */
+    public ImportStatus submit(InputStream feed, Format format, String importedBy) throws IOException {
+        Job job = new Job(format);
+        Files.createDirectories(workDir);
+        Path spooled = workDir.resolve(job.id + "." + format.name().toLowerCase(Locale.ROOT));
+        Files.copy(feed, spooled, StandardCopyOption.REPLACE_EXISTING);
+        job.rejectsFile = workDir.resolve(job.id + "-rejects.ndjson");
+        register(job);
+        runner.execute(() -> {
+            try{
+                run(job, spooled, importedBy);
+            } finally {
+                try{
+                    Files.deleteIfExists(spooled);
+                } catch (IOException e) {
+                    System.out.println("⚠️ Could not delete " + spooled + ": " + e.getMessage());
+                }
+            }
+        });
+        return job.status();
+    }
+
+    /**
+     * Imports the file in the calling thread (command line).
+     */
+    public ImportStatus importFile(Path feed, Format format, String importedBy, Path rejectsFile){
+        Job job = new Job(format);
+        job.rejectsFile = rejectsFile;
+        register(job);
+        run(job, feed, importedBy);
+        return job.status();
+    }
+
+    public Optional<ImportStatus> status(String jobId){
+        synchronized(jobs){
+            return Optional.ofNullable(jobs.get(jobId)).map(Job::status);
+        }
+    }
+
+    /**
+     * Rejects file of a job, once it has one.
+     */
+    public Optional<Path> rejects(String jobId){
+        synchronized(jobs){
+            Job job = jobs.get(jobId);
+            return job == null || job.rejectsFile == null || !Files.exists(job.rejectsFile)
+                    ? Optional.empty() : Optional.of(job.rejectsFile);
+        }
+    }
+
+    private void register(Job job){
+        synchronized(jobs){
+            jobs.put(job.id, job);
+            Iterator<Job> oldest = jobs.values().iterator();
+            while(jobs.size() > keepJobs && oldest.hasNext()){
+                Job old = oldest.next();
+                if(old.finishedAt != null){
+                    oldest.remove();
+                    if(old.rejectsFile != null && old.rejectsFile.startsWith(workDir)){
+                        old.rejectsFile.toFile().delete();
+                    }
+                }
+            }
+        }
+    }
+
+    private void run(Job job, Path feed, String importedBy){
+        job.startedAt = Instant.now();
+        job.state = "RUNNING";
+        System.out.println("📥 Import " + job.id + " started: " + feed);
+        Changed changed = new Changed();
+        try(Reader reader = Files.newBufferedReader(feed, StandardCharsets.UTF_8);
+            Writer rejects = Files.newBufferedWriter(job.rejectsFile, StandardCharsets.UTF_8)){
+            process(job, reader, rejects, importedBy, changed);
+            job.state = "COMPLETED";
+        } catch (IOException | RuntimeException e) {
+            job.error = e.getMessage();
+            job.state = "FAILED";
+        } finally {
+            // Whatever was committed, failed job or not
+            BooksBulkChangedEvent event = changed.event();
+            if(event != null){
+                eventPublisher.publishEvent(event);
+            }
+            job.finishedAt = Instant.now();
+        }
+        System.out.println((job.error == null ? "✅" : "❌") + " Import " + job.id + " " + job.state + ": "
+                + progress(job) + (job.error == null ? "" : " - " + job.error));
+    }
+
+    private void process(Job job, Reader reader, Writer rejects, String importedBy, Changed changed)
+            throws IOException {
+        RowSource source = job.format == Format.CSV ? csv(reader) : ndjson(reader);
+        LocalDateTime now = LocalDateTime.now();
+        Deque<CompletableFuture<Validated>> pending = new ArrayDeque<>();
+        List<Row> batch = new ArrayList<>(batchSize);
+        try{
+            for(Row row; (row = source.next()) != null; ){
+                batch.add(row);
+                if(batch.size() == batchSize){
+                    List<Row> rows = batch;
+                    pending.add(CompletableFuture.supplyAsync(() -> validate(rows, importedBy, now), validators));
+                    batch = new ArrayList<>(batchSize);
+                    if(pending.size() >= inFlight){
+                        write(job, pending.poll().join(), rejects, changed);
+                    }
+                }
+            }
+            if(!batch.isEmpty()){
+                List<Row> rows = batch;
+                pending.add(CompletableFuture.supplyAsync(() -> validate(rows, importedBy, now), validators));
+            }
+            while(!pending.isEmpty()){
+                write(job, pending.poll().join(), rejects, changed);
+            }
+        } finally {
+            pending.forEach(validation -> validation.cancel(false));
+        }
+    }
+
+    // Validation pool: parse numbers, then Book's own constraints
+    private Validated validate(List<Row> rows, String importedBy, LocalDateTime now){
+        List<Valid> valid = new ArrayList<>(rows.size());
+        List<Rejected> rejected = new ArrayList<>();
+        for(Row row : rows){
+            List<String> errors = new ArrayList<>();
+            if(row.error() != null){
+                rejected.add(new Rejected(row, List.of(row.error())));
+                continue;
+            }
+            BigDecimal price = null;
+            if(!isBlank(row.price())){
+                try{
+                    price = new BigDecimal(row.price().trim());
+                    if(price.stripTrailingZeros().scale() > 2){
+                        errors.add("price: at most 2 decimals");
+                    } else if(price.precision() - price.scale() > PRICE_INTEGER_DIGITS){
+                        errors.add("price: too large");
+                    }
+                } catch (NumberFormatException e) {
+                    errors.add("price: not a number");
+                }
+            }
+            int stock = 0;
+            if(!isBlank(row.stock())){
+                try{
+                    stock = Integer.parseInt(row.stock().trim());
+                } catch (NumberFormatException e) {
+                    errors.add("stock: not a whole number");
+                }
+            }
+            Book book = new Book(null, trim(row.title()), trim(row.author()), trim(row.isbn()), price, stock,
+                    importedBy, now);
+            for(ConstraintViolation<Book> violation : validator.validate(book)){
+                errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+            if(errors.isEmpty()){
+                valid.add(new Valid(row.line(), book));
+            } else {
+                errors.sort(null);
+                rejected.add(new Rejected(row, errors));
+            }
+        }
+        return new Validated(rows.size(), valid, rejected);
+    }
+
+    // Runner thread, batches in feed order
+    private void write(Job job, Validated batch, Writer rejects, Changed changed) throws IOException {
+        for(Rejected rejected : batch.rejected()){
+            reject(rejects, rejected);
+        }
+        job.rejected.addAndGet(batch.rejected().size());
+
+        // Distinct ISBNs per statement: the later row wins
+        Map<String, Valid> byIsbn = new LinkedHashMap<>();
+        for(Valid valid : batch.valid()){
+            byIsbn.put(valid.book().getIsbn(), valid);
+        }
+        job.duplicates.addAndGet(batch.valid().size() - byIsbn.size());
+        List<Valid> rows = new ArrayList<>(byIsbn.values());
+        if(!rows.isEmpty()){
+            try{
+                count(job, batchTransaction.execute(status ->
+                        importRepository.upsert(rows.stream().map(Valid::book).toList())), changed);
+            } catch (DataIntegrityViolationException e) {
+                writeOneByOne(job, rows, rejects, changed);
+            }
+        }
+
+        long before = job.rows.get();
+        long after = job.rows.addAndGet(batch.rows());
+        if(progressEvery > 0 && before / progressEvery != after / progressEvery){
+            System.out.println("📥 Import " + job.id + ": " + progress(job));
+        }
+    }
+
+    private void writeOneByOne(Job job, List<Valid> rows, Writer rejects, Changed changed) throws IOException {
+        for(Valid valid : rows){
+            try{
+                count(job, batchTransaction.execute(status -> importRepository.upsert(List.of(valid.book()))),
+                        changed);
+            } catch (DataIntegrityViolationException e) {
+                Book book = valid.book();
+                Row row = new Row(valid.line(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                        book.getPrice() == null ? null : book.getPrice().toPlainString(),
+                        String.valueOf(book.getStock()), null);
+                reject(rejects, new Rejected(row, List.of("database: "
+                        + NestedExceptionUtils.getMostSpecificCause(e).getMessage())));
+                job.rejected.incrementAndGet();
+            }
+        }
+    }
+
+    private static void count(Job job, List<BookImportRepository.Upserted> upserted, Changed changed){
+        for(BookImportRepository.Upserted row : upserted){
+            (row.inserted() ? job.inserted : job.updated).incrementAndGet();
+            changed.add(row.id());
+        }
+    }
+
+    private void reject(Writer rejects, Rejected rejected) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("line", rejected.row().line());
+        line.put("errors", rejected.errors());
+        line.put("title", rejected.row().title());
+        line.put("author", rejected.row().author());
+        line.put("isbn", rejected.row().isbn());
+        line.put("price", rejected.row().price());
+        line.put("stock", rejected.row().stock());
+        rejects.write(objectMapper.writeValueAsString(line));
+        rejects.write('\n');
+    }
+
+    /**
+     * CSV with a header row naming the columns (any order, any case):
+     * title, author, isbn required; price, stock optional; others ignored.
+     */
+    private RowSource csv(Reader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if(header == null){
+            return () -> null;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for(int i = 0; i < header.size(); i++){
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            columns.putIfAbsent(name, i);
+        }
+        if(!columns.keySet().containsAll(REQUIRED_COLUMNS)){
+            throw new IllegalArgumentException("CSV header must name the columns " + REQUIRED_COLUMNS
+                    + " (price, stock optional), found " + header);
+        }
+        return () -> {
+            List<String> fields = csv.next();
+            if(fields == null){
+                return null;
+            }
+            return new Row(csv.recordLine(), field(fields, columns, "title"), field(fields, columns, "author"),
+                    field(fields, columns, "isbn"), field(fields, columns, "price"), field(fields, columns, "stock"),
+                    null);
+        };
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name){
+        Integer index = columns.get(name);
+        return index == null || index >= fields.size() ? null : fields.get(index);
+    }
+
+    /**
+     * One JSON object per line: {"title": ..., "author": ..., "isbn": ...,
+     * "price": ..., "stock": ...}. Blank lines are skipped, a line that isn't
+     * an object is rejected.
+     */
+    private RowSource ndjson(Reader reader){
+        BufferedReader lines = new BufferedReader(reader);
+        long[] lineNumber = {0};
+        return () -> {
+            for(String line; (line = lines.readLine()) != null; ){
+                lineNumber[0]++;
+                if(line.isBlank()){
+                    continue;
+                }
+                try{
+                    JsonNode node = objectMapper.readTree(line);
+                    if(!node.isObject()){
+                        return Row.invalid(lineNumber[0], "not a JSON object");
+                    }
+                    return new Row(lineNumber[0], text(node, "title"), text(node, "author"), text(node, "isbn"),
+                            text(node, "price"), text(node, "stock"), null);
+                } catch (JsonProcessingException e) {
+                    return Row.invalid(lineNumber[0], "invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        };
+    }
+
+    private static String text(JsonNode node, String field){
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static String progress(Job job){
+        return job.rows.get() + " rows, " + job.inserted.get() + " new, " + job.updated.get() + " updated, "
+                + job.rejected.get() + " rejected, " + job.duplicates.get() + " duplicates ("
+                + job.rowsPerSecond() + " rows/s)";
+    }
+
+    private static boolean isBlank(String text){
+        return text == null || text.isBlank();
+    }
+
+    private static String trim(String text){
+        return text == null ? null : text.trim();
+    }
+
+    private static ThreadFactory daemon(String name){
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        // null at the end of the feed
+        Row next() throws IOException;
+    }
+
+    // One feed row as read: raw text, or why it couldn't be read
+    private record Row(long line, String title, String author, String isbn, String price, String stock,
+                       String error) {
+
+        static Row invalid(long line, String error){
+            return new Row(line, null, null, null, null, null, error);
+        }
+    }
+
+    private record Valid(long line, Book book) {
+    }
+
+    private record Rejected(Row row, List<String> errors) {
+    }
+
+    private record Validated(int rows, List<Valid> valid, List<Rejected> rejected) {
+    }
+
+    // IDs of the books written, until there are too many to be worth listing
+    private static final class Changed {
+        private List<Long> ids = new ArrayList<>();
+        private boolean tooMany;
+
+        void add(Long id){
+            if(tooMany){
+                return;
+            }
+            ids.add(id);
+            if(ids.size() > BooksBulkChangedEvent.LARGE){
+                tooMany = true;
+                ids = null;
+            }
+        }
+
+        // null: nothing changed
+        BooksBulkChangedEvent event(){
+            if(tooMany){
+                return BooksBulkChangedEvent.rebuild();
+            }
+            return ids.isEmpty() ? null : new BooksBulkChangedEvent(ids);
+        }
+    }
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final Format format;
+        final AtomicLong rows = new AtomicLong();
+        final AtomicLong inserted = new AtomicLong();
+        final AtomicLong updated = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong duplicates = new AtomicLong();
+        volatile String state = "QUEUED";
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String error;
+        volatile Path rejectsFile;
+
+        Job(Format format){
+            this.format = format;
+        }
+
+        long rowsPerSecond(){
+            Instant start = startedAt;
+            if(start == null){
+                return 0;
+            }
+            long millis = Duration.between(start, finishedAt == null ? Instant.now() : finishedAt).toMillis();
+            return millis == 0 ? 0 : rows.get() * 1000 / millis;
+        }
+
+        ImportStatus status(){
+            return new ImportStatus(id, state, format.name(), rows.get(), inserted.get(), updated.get(),
+                    rejected.get(), duplicates.get(), rowsPerSecond(), startedAt, finishedAt, error);
+        }
+    }
+}
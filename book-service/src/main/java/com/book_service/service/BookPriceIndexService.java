@@ -0,0 +1,228 @@
+package com.book_service.service;
+
+import com.book_service.dto.KeysetPage;
+import com.book_service.entity.Book;
+import com.book_service.event.BookChangedEvent;
+import com.book_service.event.BookStockChangedEvent;
+import com.book_service.event.BooksBulkChangedEvent;
+import com.book_service.util.KeysetCursor;
+import com.book_service.util.PriceIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Price Browsing (GET /books/by-price) on an in-memory PriceIndex
+ *
+ * Lifecycle (as BookSearchService):
+ * 1. Startup → index built from the whole catalog (streamed)
+ * 2. create / update / delete → BookChangedEvent after commit → entry moved
+ *    orders / holds / give-backs → BookStockChangedEvent → stock hint
+ *    imports → BooksBulkChangedEvent → entries re-read, or a full rebuild
+ * 3. Every book.price-index.rebuild-interval-ms → full rebuild, picking up
+ *    changes made through other instances
+ *
+ * Until the first build is done, pages come from the database (idx_price_id).
+ *
+ * The index only picks candidates: each page is loaded with one multi-get
+ * and re-checked (same price, in stock if asked). A stale entry is skipped
+ * and corrected, never shown.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookPriceIndexService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+    // Index rounds per page when entries turn out stale / sold out
+    private static final int MAX_ROUNDS = 8;
+    // books.price is NUMERIC(10,2)
+    private static final BigDecimal NO_MAX = new BigDecimal("99999999.99");
+    private static final String SORT = "price";
+
+    private final BookService bookService;
+
+    private volatile PriceIndex index = new PriceIndex();
+    private volatile boolean ready;
+
+    // Set while a rebuild runs: changes go to both indexes, and the books
+    // touched are not overwritten by the (older) rows the rebuild reads
+    private volatile PriceIndex building;
+    private final Set<Long> touchedDuringBuild = ConcurrentHashMap.newKeySet();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup(){
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${book.price-index.rebuild-interval-ms:600000}",
+            fixedDelayString = "${book.price-index.rebuild-interval-ms:600000}")
+    public synchronized void rebuild(){
+        long start = System.currentTimeMillis();
+        PriceIndex fresh = new PriceIndex();
+        touchedDuringBuild.clear();
+        building = fresh;
+        try{
+            bookService.streamAllBooks(book -> {
+                if(book.getPrice() != null && !touchedDuringBuild.contains(book.getId())){
+                    fresh.put(book.getId(), cents(book.getPrice(), RoundingMode.HALF_EVEN), book.getStock());
+                }
+            });
+            index = fresh;
+            ready = true;
+        } finally {
+            building = null;
+        }
+        System.out.println("🏷️ Price index built: " + fresh.size() + " books in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event){
+        PriceIndex pending = building;
+        if(pending != null){
+            touchedDuringBuild.add(event.bookId());
+            apply(pending, event);
+        }
+        apply(index, event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(BookStockChangedEvent event){
+        // A stale 0 would hide an in-stock book: "may be in stock" until the next rebuild
+        PriceIndex pending = building;
+        if(pending != null){
+            pending.setStock(event.bookId(), PriceIndex.UNKNOWN_STOCK);
+        }
+        index.setStock(event.bookId(), PriceIndex.UNKNOWN_STOCK);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksChanged(BooksBulkChangedEvent event){
+        if(event.isLarge()){
+            if(ready){
+                rebuild();
+            }
+            return;
+        }
+        bookService.changeEvents(event.bookIds()).forEach(this::onBookChanged);
+    }
+
+    private static void apply(PriceIndex target, BookChangedEvent event){
+        if(event.deleted() || event.price() == null){
+            target.remove(event.bookId());
+        } else {
+            target.put(event.bookId(), cents(event.price(), RoundingMode.HALF_EVEN), event.stock());
+        }
+    }
+
+    /**
+     * Books priced within [min, max] (null = open), cheapest first (ties by
+     * ID), size per page. cursor = next of the previous page. The first page
+     * with inStock = true is "the cheapest size books in stock".
+     */
+    public KeysetPage browse(BigDecimal min, BigDecimal max, boolean inStock, String cursor, int size){
+        if(size < 1 || size > MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        BigDecimal low = min == null ? BigDecimal.ZERO : min.max(BigDecimal.ZERO);
+        BigDecimal high = max == null ? NO_MAX : max.min(NO_MAX);
+        if(low.compareTo(high) > 0){
+            throw new IllegalArgumentException("min must not be above max");
+        }
+        KeysetCursor after = cursor == null ? new KeysetCursor(SORT, 0, low.toPlainString()) : KeysetCursor.decode(cursor);
+        if(!SORT.equals(after.sort())){
+            throw new IllegalArgumentException("Cursor was not issued by /books/by-price");
+        }
+        BigDecimal afterPrice;
+        try{
+            afterPrice = new BigDecimal(after.lastValue());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid continuation token");
+        }
+        if(afterPrice.abs().compareTo(NO_MAX) > 0){
+            throw new IllegalArgumentException("Invalid continuation token");
+        }
+        return ready
+                ? browseIndex(low, high, afterPrice, after.lastId(), inStock, size)
+                : browseDatabase(low, high, afterPrice, after.lastId(), inStock, size);
+    }
+
+    private KeysetPage browseIndex(BigDecimal low, BigDecimal high, BigDecimal afterPrice, long afterId,
+                                   boolean inStock, int size){
+        PriceIndex current = index;
+        long minCents = cents(low, RoundingMode.CEILING);
+        long maxCents = cents(high, RoundingMode.FLOOR);
+        long afterCents = cents(afterPrice, RoundingMode.FLOOR);
+        // One extra book tells whether there is a next page
+        List<Book> books = new ArrayList<>(size + 1);
+        boolean exhausted = false;
+        for(int round = 0; round < MAX_ROUNDS && books.size() <= size && !exhausted; round++){
+            int wanted = size + 1 - books.size();
+            List<PriceIndex.Entry> entries = current.scan(minCents, maxCents, afterCents, afterId, inStock, wanted);
+            exhausted = entries.size() < wanted;
+            if(entries.isEmpty()){
+                break;
+            }
+            PriceIndex.Entry last = entries.get(entries.size() - 1);
+            afterCents = last.priceCents();
+            afterId = last.id();
+
+            Map<Long, Book> loaded = bookService.getBooksByIds(entries.stream().map(PriceIndex.Entry::id).toList())
+                    .books().stream()
+                    .collect(Collectors.toMap(Book::getId, Function.identity()));
+            for(PriceIndex.Entry entry : entries){
+                Book book = loaded.get(entry.id());
+                if(book == null || book.getPrice() == null){
+                    current.remove(entry.id()); // deleted through another instance
+                } else if(cents(book.getPrice(), RoundingMode.HALF_EVEN) != entry.priceCents()){
+                    current.put(book.getId(), cents(book.getPrice(), RoundingMode.HALF_EVEN), book.getStock());
+                } else if(inStock && book.getStock() < 1){
+                    current.setStock(book.getId(), book.getStock());
+                } else {
+                    books.add(book);
+                }
+            }
+        }
+        String next = null;
+        if(books.size() > size){
+            books = books.subList(0, size);
+            next = cursor(books.get(size - 1));
+        } else if(!exhausted){
+            // Out of rounds: continue where the index scan stopped
+            next = new KeysetCursor(SORT, afterId, BigDecimal.valueOf(afterCents, 2).toPlainString()).encode();
+        }
+        return new KeysetPage(books, size, next);
+    }
+
+    private KeysetPage browseDatabase(BigDecimal low, BigDecimal high, BigDecimal afterPrice, long afterId,
+                                      boolean inStock, int size){
+        List<Book> books = bookService.findByPriceRangeAfter(low, high, afterPrice, afterId, inStock, size + 1);
+        String next = null;
+        if(books.size() > size){
+            books = books.subList(0, size);
+            next = cursor(books.get(size - 1));
+        }
+        return new KeysetPage(books, size, next);
+    }
+
+    private static String cursor(Book last){
+        return new KeysetCursor(SORT, last.getId(), last.getPrice().toPlainString()).encode();
+    }
+
+    private static long cents(BigDecimal price, RoundingMode rounding){
+        return price.movePointRight(2).setScale(0, rounding).longValueExact();
+    }
+}
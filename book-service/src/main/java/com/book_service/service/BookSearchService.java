@@ -0,0 +1,139 @@
+package com.book_service.service;
+
+import com.book_service.entity.Book;
+import com.book_service.event.BookChangedEvent;
+import com.book_service.event.BooksBulkChangedEvent;
+import com.book_service.repository.BookRepository;
+import com.book_service.util.TrigramIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Book Search (title + author) on an in-memory TrigramIndex
+ *
+ * Lifecycle:
+ * 1. Startup → index built from the whole catalog (streamed)
+ * 2. create / update / delete on this instance → BookChangedEvent after
+ *    commit → index updated right away
+ *    imports → BooksBulkChangedEvent → books re-read, or a full rebuild
+ * 3. Every book.search.rebuild-interval-ms → full rebuild, picking up
+ *    changes made through other instances
+ *
+ * Until the first build is done, searches go to the database (LIKE).
+ */
+@Service
+@RequiredArgsConstructor
+public class BookSearchService {
+
+    private final BookService bookService;
+    private final BookRepository bookRepository;
+
+    private volatile TrigramIndex index = new TrigramIndex();
+    private volatile boolean ready;
+
+    // Set while a rebuild runs: changes are applied to both indexes, and the
+    // books touched are not overwritten by the (older) rows the rebuild reads
+    private volatile TrigramIndex building;
+    private final Set<Long> touchedDuringBuild = ConcurrentHashMap.newKeySet();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup(){
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${book.search.rebuild-interval-ms:600000}",
+            fixedDelayString = "${book.search.rebuild-interval-ms:600000}")
+    public synchronized void rebuild(){
+        long start = System.currentTimeMillis();
+        TrigramIndex fresh = new TrigramIndex();
+        touchedDuringBuild.clear();
+        building = fresh;
+        try{
+            bookService.streamAllBooks(book -> {
+                if(!touchedDuringBuild.contains(book.getId())){
+                    fresh.put(book.getId(), book.getTitle(), book.getAuthor());
+                }
+            });
+            index = fresh;
+            ready = true;
+        } finally {
+            building = null;
+        }
+        System.out.println("🔎 Search index built: " + fresh.size() + " books in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event){
+        TrigramIndex pending = building;
+        if(pending != null){
+            touchedDuringBuild.add(event.bookId());
+            apply(pending, event);
+        }
+        apply(index, event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksChanged(BooksBulkChangedEvent event){
+        if(event.isLarge()){
+            if(ready){
+                rebuild();
+            }
+            return;
+        }
+        bookService.changeEvents(event.bookIds()).forEach(this::onBookChanged);
+    }
+
+    private static void apply(TrigramIndex target, BookChangedEvent event){
+        if(event.deleted()){
+            target.remove(event.bookId());
+        } else {
+            target.put(event.bookId(), event.title(), event.author());
+        }
+    }
+
+    /**
+     * Ranked matches (see TrigramIndex), one page of them loaded from the
+     * database in one query.
+     *
+     * @throws IllegalArgumentException when the query has no word of 3+ characters
+     */
+    public Page<Book> search(String query, Pageable pageable){
+        if(!TrigramIndex.isSearchable(query)){
+            throw new IllegalArgumentException("Search needs a word of at least 3 letters or digits");
+        }
+        if(!ready){
+            return searchDatabase(query, pageable);
+        }
+        int limit = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+        TrigramIndex.Matches matches = index.search(query, limit);
+        List<Long> ranked = matches.keys();
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        List<Book> books = bookService.getBooksByIds(ranked.subList(from, ranked.size())).books();
+        return new PageImpl<>(books, pageable, matches.total());
+    }
+
+    private Page<Book> searchDatabase(String query, Pageable pageable){
+        Map<Long, Book> matches = new LinkedHashMap<>();
+        bookRepository.findByTitleContainingIgnoreCase(query).forEach(book -> matches.put(book.getId(), book));
+        bookRepository.findByAuthorContainingIgnoreCase(query).forEach(book -> matches.putIfAbsent(book.getId(), book));
+        List<Book> all = new ArrayList<>(matches.values());
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new PageImpl<>(all.subList(from, to), pageable, all.size());
+    }
+}
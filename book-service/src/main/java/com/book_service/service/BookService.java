@@ -1,15 +1,41 @@
 package com.book_service.service;
 
+import com.book_service.dto.BookLookup;
+import com.book_service.dto.KeysetPage;
 import com.book_service.entity.Book;
+import com.book_service.event.BookChangedEvent;
+import com.book_service.event.BookStockChangedEvent;
 import com.book_service.exception.BookNotFoundException;
+import com.book_service.readmodel.CatalogReadModel;
+import com.book_service.readmodel.CatalogSnapshot;
 import com.book_service.repository.BookRepository;
+import com.book_service.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Book Service - Business Logic Layer
@@ -26,59 +52,290 @@ import java.util.List;
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final StockDecrementCombiner stockDecrementCombiner;
+    private final StockBucketService stockBucketService;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookCache bookCache;
+    private final CatalogReadModel catalogReadModel;
+    private final PlatformTransactionManager transactionManager;
+
+    private static final int MAX_SCROLL_SIZE = 500;
 
     @Transactional
     public Book createBook(Book book, String createdBy){
         book.setCreatedBy(createdBy);
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.saved(saved, saved.getStock()));
+        return saved;
     }
 
     public List<Book> getAllBooks(){
-        return bookRepository.findAll();
+        CatalogSnapshot catalog = catalogReadModel.current();
+        if(catalog != null){
+            return catalog.toList();
+        }
+        return withBucketTotals(bookRepository.findAll());
+    }
+
+    /**
+     * Every book to the sink, one at a time: from the read model when it is
+     * loaded, else straight off a database cursor. Each book is detached once
+     * the sink is done with it, so memory stays flat however big the catalog
+     * is (getAllBooks holds all of it).
+     *
+     * Not @Transactional: served from memory it needs no connection at all.
+     */
+    public void streamAllBooks(Consumer<Book> sink){
+        CatalogSnapshot catalog = catalogReadModel.current();
+        if(catalog != null){
+            catalog.forEach(sink);
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Set<Long> sharded = stockBucketService.shardedBookIds();
+            Map<Long, Integer> totals = stockBucketService.totals(sharded);
+            try(Stream<Book> books = bookRepository.streamAll()){
+                books.forEach(book -> {
+                    entityManager.detach(book);
+                    Integer total = totals.get(book.getId());
+                    if(total != null){
+                        book.setStock(book.getStock() + total);
+                    }
+                    sink.accept(book);
+                });
+            }
+        });
     }
 
+    /**
+     * In-stock books by page. The read model answers unsorted pages (id
+     * order); sorted ones go to the database.
+     */
     public Page<Book> getBooksWithStocks (Pageable pageable){
-        return bookRepository.findByStockGreaterThanEqual(1,pageable);
+        CatalogSnapshot catalog = catalogReadModel.current();
+        if(catalog != null && pageable.isPaged() && pageable.getSort().isUnsorted()){
+            return new PageImpl<>(catalog.inStock(pageable.getOffset(), pageable.getPageSize()),
+                    pageable, catalog.inStockCount());
+        }
+        Page<Book> page = bookRepository.findInStock(pageable);
+        withBucketTotals(page.getContent());
+        return page;
+    }
+
+    /**
+     * Books matching every given criterion (null = any): title / author
+     * contain the text (ignoring case), price <= maxPrice. Ordered by price
+     * when maxPrice is given, by id otherwise.
+     */
+    public List<Book> filterBooks(String title, String author, BigDecimal maxPrice){
+        CatalogSnapshot catalog = catalogReadModel.current();
+        if(catalog != null){
+            return catalog.filter(title, author, maxPrice);
+        }
+        // Database: the most selective query available, the rest checked here
+        List<Book> books = maxPrice != null ? bookRepository.findBooksByMaxPrice(maxPrice)
+                : title != null ? bookRepository.findByTitleContainingIgnoreCase(title)
+                : bookRepository.findByAuthorContainingIgnoreCase(author);
+        Stream<Book> matches = books.stream()
+                .filter(book -> title == null || containsIgnoreCase(book.getTitle(), title))
+                .filter(book -> author == null || containsIgnoreCase(book.getAuthor(), author));
+        if(maxPrice == null){
+            matches = matches.sorted(Comparator.comparing(Book::getId));
+        }
+        return withBucketTotals(matches.collect(Collectors.toList()));
+    }
+
+    /**
+     * Keyset page of books priced within [minPrice, maxPrice], by (price, id),
+     * after (afterPrice, afterId). BookPriceIndexService's fallback until its
+     * index is built.
+     */
+    public List<Book> findByPriceRangeAfter(BigDecimal minPrice, BigDecimal maxPrice, BigDecimal afterPrice,
+                                            long afterId, boolean inStock, int limit){
+        return withBucketTotals(bookRepository.findByPriceRangeAfter(minPrice, maxPrice, afterPrice, afterId,
+                inStock, PageRequest.of(0, limit)));
+    }
+
+    private static boolean containsIgnoreCase(String text, String part){
+        return text != null && text.toLowerCase(Locale.ROOT).contains(part.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * In-stock books by keyset: sort = "id" or "title", token = next of the
+     * previous page (null for the first). Without a token the sort decides,
+     * with one the token does.
+     */
+    public KeysetPage scrollInStock(String sort, String token, int size){
+        if(size < 1 || size > MAX_SCROLL_SIZE){
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_SCROLL_SIZE);
+        }
+        KeysetCursor after = token == null ? new KeysetCursor(sort, 0, "") : KeysetCursor.decode(token);
+        if(sort != null && !sort.equals(after.sort())){
+            throw new IllegalArgumentException("Token was issued for sort=" + after.sort());
+        }
+        // One extra row tells whether there is a next page
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Book> books = switch(after.sort()){
+            case "id" -> bookRepository.findInStockAfterId(after.lastId(), limit);
+            case "title" -> bookRepository.findInStockAfterTitle(after.lastValue(), after.lastId(), limit);
+            default -> throw new IllegalArgumentException("Sort must be id or title: " + after.sort());
+        };
+        String next = null;
+        if(books.size() > size){
+            books = books.subList(0, size);
+            Book last = books.get(size - 1);
+            next = new KeysetCursor(after.sort(), last.getId(), "title".equals(after.sort()) ? last.getTitle() : "").encode();
+        }
+        return new KeysetPage(withBucketTotals(books), size, next);
     }
 
     public Book getBookById(Long id){
-        return bookRepository.findById(id)
-                .orElseThrow(()->new BookNotFoundException("Book not found: " + id));
+        Book book = bookCache.get(id, key -> bookRepository.findById(key)
+                .map(found -> withBucketTotals(List.of(found)).get(0))
+                .orElse(null));
+        if(book == null){
+            throw new BookNotFoundException("Book not found: " + id);
+        }
+        return book;
+    }
 
+    /**
+     * Many books in one IN query (plus one for bucket totals, if any is
+     * sharded) instead of one getBookById per item.
+     */
+    public BookLookup getBooksByIds(Collection<Long> ids){
+        Collection<Long> requested = new LinkedHashSet<>(ids);
+        Map<Long, Book> found = withBucketTotals(bookRepository.findAllById(requested)).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Book> books = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for(Long id : requested){
+            Book book = found.get(id);
+            if(book == null){
+                missing.add(id);
+            } else {
+                books.add(book);
+            }
+        }
+        return new BookLookup(books, missing);
+    }
+
+    /**
+     * Current state of each book as a BookChangedEvent (deleted when it's
+     * gone), read MAX_SCROLL_SIZE at a time: how views replay a small
+     * BooksBulkChangedEvent.
+     */
+    public List<BookChangedEvent> changeEvents(List<Long> ids){
+        List<BookChangedEvent> events = new ArrayList<>(ids.size());
+        for(int from = 0; from < ids.size(); from += MAX_SCROLL_SIZE){
+            BookLookup lookup = getBooksByIds(ids.subList(from, Math.min(ids.size(), from + MAX_SCROLL_SIZE)));
+            lookup.books().forEach(book -> events.add(BookChangedEvent.saved(book, book.getStock())));
+            lookup.missing().forEach(id -> events.add(BookChangedEvent.deleted(id)));
+        }
+        return events;
     }
 
     public Book getBookByIsbn(String isbn){
-        return bookRepository.findByIsbn(isbn)
-                .orElseThrow(() -> new BookNotFoundException("Book not found by ISBN: " + isbn));
+        Book book = bookCache.getByIsbn(isbn, () -> bookRepository.findByIsbn(isbn)
+                .map(found -> withBucketTotals(List.of(found)).get(0))
+                .orElse(null));
+        if(book == null){
+            throw new BookNotFoundException("Book not found by ISBN: " + isbn);
+        }
+        return book;
     }
 
     @Transactional
     public Book updateBook(Long id, Book bookDetails,String updatedBy){
-        Book existingBook = getBookById(id);
+        Book existingBook = bookRepository.findById(id)
+                .orElseThrow(()->new BookNotFoundException("Book not found: " + id));
 
         existingBook.setTitle(bookDetails.getTitle());
         existingBook.setAuthor(bookDetails.getAuthor());
         existingBook.setIsbn(bookDetails.getIsbn());
         existingBook.setPrice(bookDetails.getPrice());
-        existingBook.setStock(bookDetails.getStock());
+        if(stockBucketService.refresh(id)){
+            // Sharded: new stock is spread over the buckets, books.stock stays 0
+            stockBucketService.setTotal(id, bookDetails.getStock());
+        } else {
+            existingBook.setStock(bookDetails.getStock());
+        }
         existingBook.setCreatedBy(updatedBy); //Audit trail
-        return bookRepository.save(existingBook);
+        Book saved = bookRepository.saveAndFlush(existingBook);
+        eventPublisher.publishEvent(BookChangedEvent.saved(saved, bookDetails.getStock()));
+        withBucketTotals(List.of(saved));
+        return saved;
     }
 
-    @Transactional
-    public boolean reduceStock(Long bookId, int quantity){
-        Book book = getBookById(bookId);
-        if(book.getStock() >= quantity){
-            book.setStock(book.getStock() - quantity);
-            bookRepository.save(book);
-            return true ;
+    /**
+     * Reduce stock atomically (see BookRepository#decrementStockIfAvailable).
+     * No entity is loaded: one round trip, and no stale stock value held in
+     * the persistence context while other orders for the same book commit.
+     *
+     * Not @Transactional: concurrent decrements of the same book are merged by
+     * StockDecrementCombiner, which commits each batch in its own transaction.
+     * A caller waiting for its batch must not hold a connection meanwhile.
+     *
+     * @return the new stock level, or empty if there wasn't enough stock
+     */
+    public Optional<Integer> reduceStock(Long bookId, int quantity){
+        if(quantity <= 0){
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
         }
+        Optional<Integer> remaining = decrement(bookId, quantity);
+        // Already committed: cached copies re-read the row
+        remaining.ifPresent(stock -> eventPublisher.publishEvent(BookStockChangedEvent.changed(bookId)));
+        return remaining;
+    }
 
-        return false;
+    private Optional<Integer> decrement(Long bookId, int quantity){
+        if(stockBucketService.isSharded(bookId)){
+            Optional<Integer> remaining = stockBucketService.decrement(bookId, quantity);
+            if(remaining.isPresent() || stockBucketService.isSharded(bookId)){
+                return remaining;
+            }
+            // buckets were merged back meanwhile → regular path
+        }
+        Optional<Integer> remaining = stockDecrementCombiner.decrement(bookId, quantity);
+        if(remaining.isEmpty()){
+            if(!bookRepository.existsById(bookId)){
+                throw new BookNotFoundException("Book not found: " + bookId);
+            }
+            if(stockBucketService.refresh(bookId)){
+                return stockBucketService.decrement(bookId, quantity); // sharded by another instance
+            }
+        }
+        return remaining;
     }
 
     @Transactional
     public void deleteBook(Long id){
+        stockBucketService.deleteBuckets(id);
         bookRepository.deleteById(id);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(id));
+    }
+
+    /**
+     * Books with stock buckets keep 0 in books.stock: report the bucket total
+     * instead. Those books are detached first so the total is never written back.
+     */
+    private List<Book> withBucketTotals(List<Book> books){
+        List<Long> sharded = books.stream()
+                .map(Book::getId)
+                .filter(stockBucketService::isSharded)
+                .toList();
+        if(sharded.isEmpty()){
+            return books;
+        }
+        Map<Long, Integer> totals = stockBucketService.totals(sharded);
+        for(Book book : books){
+            Integer total = totals.get(book.getId());
+            if(total != null){
+                entityManager.detach(book);
+                book.setStock(book.getStock() + total);
+            }
+        }
+        return books;
     }
 }
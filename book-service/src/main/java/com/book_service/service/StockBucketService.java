@@ -0,0 +1,279 @@
+package com.book_service.service;
+
+import com.book_service.entity.Book;
+import com.book_service.entity.StockBucket;
+import com.book_service.exception.BookNotFoundException;
+import com.book_service.repository.BookRepository;
+import com.book_service.repository.StockBucketRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Sharded Stock Counters (stock buckets) for flash-sale titles
+ *
+ * WHY: Every order of a book updates the same row. However fast the statement,
+ * that row lock is the ceiling on orders per second for one title.
+ *
+ * Enabled per book by an admin at runtime:
+ *   books.stock → split evenly over N stock_buckets rows, books.stock = 0
+ *
+ * Decrement:
+ * 1. Random bucket → conditional UPDATE on that row only
+ * 2. Bucket too small → lock all buckets (bucket order) and take from several
+ *    → succeeds exactly when the total is enough
+ *
+ * Rebalancer (book.stock-buckets.rebalance-interval-ms) evens out buckets that
+ * have drained below half their fair share, so step 2 stays rare until the
+ * book is nearly sold out.
+ *
+ * Readers always see the total: BookService replaces stock with the bucket sum.
+ */
+@Service
+public class StockBucketService {
+
+    // Local view of which books are sharded; refreshed by the rebalancer
+    // (other instances may toggle) and on any decrement that finds no buckets
+    private final Set<Long> shardedBookIds = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Integer> bucketCounts = new ConcurrentHashMap<>();
+
+    private final StockBucketRepository stockBucketRepository;
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBuckets;
+
+    public StockBucketService(StockBucketRepository stockBucketRepository,
+                              BookRepository bookRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${book.stock-buckets.max-buckets:64}") int maxBuckets) {
+        this.stockBucketRepository = stockBucketRepository;
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBuckets = maxBuckets;
+    }
+
+    @PostConstruct
+    void loadShardedBooks(){
+        shardedBookIds.addAll(stockBucketRepository.findShardedBookIds());
+    }
+
+    public boolean isSharded(Long bookId){
+        return shardedBookIds.contains(bookId);
+    }
+
+    public Set<Long> shardedBookIds(){
+        return Set.copyOf(shardedBookIds);
+    }
+
+    /**
+     * Checks the database (another instance may have toggled the book).
+     */
+    public boolean refresh(Long bookId){
+        if(stockBucketRepository.existsByBookId(bookId)){
+            shardedBookIds.add(bookId);
+            return true;
+        }
+        shardedBookIds.remove(bookId);
+        return false;
+    }
+
+    /**
+     * Split the book's stock over bucketCount buckets (re-splits if already sharded).
+     */
+    public List<StockBucket> enable(Long bookId, int bucketCount){
+        if(bucketCount < 2 || bucketCount > maxBuckets){
+            throw new IllegalArgumentException("Bucket count must be between 2 and " + maxBuckets + ": " + bucketCount);
+        }
+        List<StockBucket> buckets = transactionTemplate.execute(status -> {
+            Book book = bookRepository.findByIdForUpdate(bookId)
+                    .orElseThrow(() -> new BookNotFoundException("Book not found: " + bookId));
+            int total = book.getStock() + drain(bookId);
+            book.setStock(0);
+            return stockBucketRepository.saveAll(split(bookId, total, bucketCount));
+        });
+        bucketCounts.put(bookId, bucketCount);
+        shardedBookIds.add(bookId);
+        System.out.println("🪣 Stock of book " + bookId + " split into " + bucketCount + " buckets");
+        return buckets;
+    }
+
+    /**
+     * Fold the buckets back into books.stock.
+     */
+    public void disable(Long bookId){
+        transactionTemplate.executeWithoutResult(status -> {
+            Book book = bookRepository.findByIdForUpdate(bookId)
+                    .orElseThrow(() -> new BookNotFoundException("Book not found: " + bookId));
+            book.setStock(book.getStock() + drain(bookId));
+        });
+        shardedBookIds.remove(bookId);
+        System.out.println("🪣 Stock buckets of book " + bookId + " merged back");
+    }
+
+    /**
+     * Remove the buckets of a deleted book. Caller holds a transaction.
+     */
+    public void deleteBuckets(Long bookId){
+        if(stockBucketRepository.deleteByBookId(bookId) > 0){
+            shardedBookIds.remove(bookId);
+            bucketCounts.remove(bookId);
+        }
+    }
+
+    /**
+     * Replace the book's stock (admin update). Caller holds a transaction.
+     */
+    public void setTotal(Long bookId, int total){
+        List<StockBucket> buckets = stockBucketRepository.lockByBookId(bookId);
+        redistribute(buckets, total);
+    }
+
+    /**
+     * @return the book's total stock after this decrement, or empty if the
+     *         buckets together hold less than quantity. Call only for sharded
+     *         books; finding no buckets unmarks the book.
+     */
+    public Optional<Integer> decrement(Long bookId, int quantity){
+        int bucket = ThreadLocalRandom.current().nextInt(bucketCount(bookId));
+        Optional<Integer> remaining = stockBucketRepository.decrementBucketIfAvailable(bookId, bucket, quantity);
+        if(remaining.isPresent()){
+            return remaining;
+        }
+        return transactionTemplate.execute(status -> decrementAcrossBuckets(bookId, quantity));
+    }
+
+    /**
+     * Same result as decrement, but locks all buckets (bucket order) up front.
+     * For transactions that lock several books: a random bucket first, then
+     * all of them, would break the lock order. Caller holds a transaction.
+     */
+    public Optional<Integer> decrementLocked(Long bookId, int quantity){
+        return decrementAcrossBuckets(bookId, quantity);
+    }
+
+    /**
+     * Give stock back into a random bucket. Caller holds a transaction.
+     *
+     * @return false if the book has no buckets (anymore)
+     */
+    public boolean increment(Long bookId, int quantity){
+        int bucket = ThreadLocalRandom.current().nextInt(bucketCount(bookId));
+        if(stockBucketRepository.incrementBucket(bookId, bucket, quantity) > 0){
+            return true;
+        }
+        // stale bucket count: take the lowest bucket, which every split has
+        return stockBucketRepository.incrementBucket(bookId, 0, quantity) > 0;
+    }
+
+    private Optional<Integer> decrementAcrossBuckets(Long bookId, int quantity){
+        List<StockBucket> buckets = stockBucketRepository.lockByBookId(bookId);
+        if(buckets.isEmpty()){
+            shardedBookIds.remove(bookId);
+            return Optional.empty();
+        }
+        int total = buckets.stream().mapToInt(StockBucket::getStock).sum();
+        if(total < quantity){
+            return Optional.empty();
+        }
+        int left = quantity;
+        for(StockBucket bucket : buckets){
+            int take = Math.min(left, bucket.getStock());
+            bucket.setStock(bucket.getStock() - take);
+            left -= take;
+            if(left == 0){
+                break;
+            }
+        }
+        return Optional.of(total - quantity);
+    }
+
+    /**
+     * Total stock of each given sharded book.
+     */
+    public Map<Long, Integer> totals(Collection<Long> bookIds){
+        Map<Long, Integer> totals = new HashMap<>();
+        if(bookIds.isEmpty()){
+            return totals;
+        }
+        for(Object[] row : stockBucketRepository.sumStockByBookIds(bookIds)){
+            totals.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return totals;
+    }
+
+    @Scheduled(fixedDelayString = "${book.stock-buckets.rebalance-interval-ms:1000}")
+    public void rebalance(){
+        Set<Long> current = new HashSet<>(stockBucketRepository.findShardedBookIds());
+        shardedBookIds.retainAll(current);
+        shardedBookIds.addAll(current);
+        bucketCounts.keySet().retainAll(current);
+        for(Long bookId : current){
+            // Cheap unlocked look first; lock only when a bucket has drained
+            List<StockBucket> snapshot = stockBucketRepository.findByBookIdOrderByBucket(bookId);
+            bucketCounts.put(bookId, snapshot.size());
+            if(isSkewed(snapshot)){
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<StockBucket> buckets = stockBucketRepository.lockByBookId(bookId);
+                    if(isSkewed(buckets)){
+                        redistribute(buckets, buckets.stream().mapToInt(StockBucket::getStock).sum());
+                    }
+                });
+            }
+        }
+    }
+
+    // Buckets are numbered 0..n-1. A stale count (re-split elsewhere) only
+    // means a miss on the first try; the locked path still sees every bucket.
+    private int bucketCount(Long bookId){
+        return bucketCounts.computeIfAbsent(bookId,
+                id -> Math.max(1, stockBucketRepository.findByBookIdOrderByBucket(id).size()));
+    }
+
+    private static boolean isSkewed(List<StockBucket> buckets){
+        if(buckets.isEmpty()){
+            return false;
+        }
+        int total = buckets.stream().mapToInt(StockBucket::getStock).sum();
+        int fairShare = total / buckets.size();
+        return fairShare > 0 && buckets.stream().anyMatch(b -> b.getStock() < fairShare / 2);
+    }
+
+    private static void redistribute(List<StockBucket> buckets, int total){
+        int n = buckets.size();
+        for(StockBucket bucket : buckets){
+            bucket.setStock(total / n + (bucket.getBucket() < total % n ? 1 : 0));
+        }
+    }
+
+    // Removes all buckets of the book and returns the stock they held
+    private int drain(Long bookId){
+        List<StockBucket> buckets = stockBucketRepository.lockByBookId(bookId);
+        int total = buckets.stream().mapToInt(StockBucket::getStock).sum();
+        if(!buckets.isEmpty()){
+            stockBucketRepository.deleteAll(buckets);
+            stockBucketRepository.flush();
+        }
+        bucketCounts.remove(bookId);
+        return total;
+    }
+
+    private static List<StockBucket> split(Long bookId, int total, int n){
+        return IntStream.range(0, n)
+                .mapToObj(i -> new StockBucket(bookId, i, total / n + (i < total % n ? 1 : 0)))
+                .toList();
+    }
+}
@@ -0,0 +1,245 @@
+package com.book_service.service;
+
+import com.book_service.repository.BookRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-Coalescing Stock Decrements (flat combining per book)
+ *
+ * WHY: Even a single conditional UPDATE takes the book's row lock. During a
+ * flash sale thousands of requests queue on that one lock, one commit each.
+ *
+ * Flow (per book id):
+ * 1. Request enqueues its quantity and parks
+ * 2. One waiting thread becomes the combiner for that book
+ * 3. Combiner waits up to book.stock-combiner.window-micros (or until max-batch are queued)
+ * 4. Drains the queue → ONE transaction → one row lock, one commit
+ * 5. Every request gets its own answer, granted in arrival order
+ * 6. Combiner hands over to the next waiting thread
+ *
+ * Granting: all requests fit → one UPDATE ... RETURNING for the total.
+ * Otherwise the row is locked (SELECT ... FOR UPDATE) and requests are granted
+ * first-come-first-served, skipping the ones that no longer fit - exactly what
+ * running them one after another would have done.
+ *
+ * Each batch commits before any waiter is answered, so a caller never sees
+ * "success" for a decrement that could still roll back. For the same reason
+ * an interrupt doesn't abandon a queued decrement: the caller still gets its
+ * answer, with the interrupt flag restored.
+ */
+@Component
+public class StockDecrementCombiner {
+
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatch;
+
+    private final DistributionSummary batchSize;
+    private final Timer waitTime;
+
+    public StockDecrementCombiner(BookRepository bookRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${book.stock-combiner.enabled:true}") boolean enabled,
+                                  @Value("${book.stock-combiner.window-micros:500}") long windowMicros,
+                                  @Value("${book.stock-combiner.max-batch:64}") int maxBatch) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = enabled ? Math.max(1, maxBatch) : 1;
+        this.batchSize = DistributionSummary.builder("book.stock.combiner.batch.size")
+                .description("Decrements applied per transaction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.waitTime = Timer.builder("book.stock.combiner.wait")
+                .description("Enqueue until the decrement is committed")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        System.out.println("📦 Stock combiner: " + (enabled
+                ? "window=" + windowMicros + "µs, max-batch=" + this.maxBatch
+                : "disabled (one transaction per decrement)"));
+    }
+
+    /**
+     * @return the new stock level, or empty if the book has not enough stock
+     *         (or doesn't exist)
+     */
+    public Optional<Integer> decrement(Long bookId, int quantity){
+        long start = System.nanoTime();
+        Pending pending = new Pending(quantity, Thread.currentThread());
+        Lane lane = lanes.computeIfAbsent(bookId, id -> new Lane());
+        lane.queue.add(pending);
+        if(lane.size.incrementAndGet() >= maxBatch){
+            Thread combiner = lane.combiner.get();
+            if(combiner != null){
+                LockSupport.unpark(combiner); // batch is full, stop waiting for the window
+            }
+        }
+
+        boolean interrupted = false;
+        while(!pending.done){
+            // A set flag makes park() return at once (busy spin) and must not
+            // reach another caller's batch: clear it, restore it once answered
+            if(Thread.interrupted()){
+                interrupted = true;
+            }
+            if(lane.combiner.get() == null && lane.combiner.compareAndSet(null, Thread.currentThread())){
+                try{
+                    interrupted |= combine(bookId, lane);
+                } finally {
+                    handOver(bookId, lane);
+                }
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+
+        waitTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if(pending.error != null){
+            throw pending.error;
+        }
+        return pending.result;
+    }
+
+    /**
+     * @return true if the combiner was interrupted while waiting for the window
+     *         (flag cleared: the batch still runs, with what is queued so far)
+     */
+    private boolean combine(Long bookId, Lane lane){
+        boolean interrupted = false;
+        if(enabled && windowNanos > 0){
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining;
+            while(lane.size.get() < maxBatch && (remaining = deadline - System.nanoTime()) > 0){
+                LockSupport.parkNanos(this, remaining);
+                if(Thread.interrupted()){
+                    interrupted = true;
+                    break;
+                }
+            }
+        }
+
+        List<Pending> batch = new ArrayList<>(Math.min(lane.size.get(), maxBatch));
+        Pending next;
+        while(batch.size() < maxBatch && (next = lane.queue.poll()) != null){
+            batch.add(next);
+        }
+        lane.size.addAndGet(-batch.size());
+        if(batch.isEmpty()){
+            return interrupted;
+        }
+
+        batchSize.record(batch.size());
+        try{
+            transactionTemplate.executeWithoutResult(status -> apply(bookId, batch));
+        } catch (RuntimeException e) {
+            batch.forEach(p -> p.error = e);
+        }
+        for(Pending p : batch){
+            p.done = true;
+            LockSupport.unpark(p.waiter);
+        }
+        return interrupted;
+    }
+
+    /**
+     * Decides every request of the batch. Must run inside a transaction.
+     */
+    void apply(Long bookId, List<Pending> batch){
+        long total = 0;
+        for(Pending p : batch){
+            total += p.quantity;
+        }
+
+        // Fast path: everyone fits
+        if(total <= Integer.MAX_VALUE){
+            Optional<Integer> after = bookRepository.decrementStockIfAvailable(bookId, (int) total);
+            if(after.isPresent()){
+                int stock = after.get() + (int) total;
+                for(Pending p : batch){
+                    stock -= p.quantity;
+                    p.result = Optional.of(stock);
+                }
+                return;
+            }
+        }
+
+        // Not enough for everyone (or no such book): lock the row, grant in arrival order
+        Optional<Integer> current = bookRepository.lockStock(bookId);
+        if(current.isEmpty()){
+            batch.forEach(p -> p.result = Optional.empty());
+            return;
+        }
+        int stock = current.get();
+        int granted = 0;
+        for(Pending p : batch){
+            if(p.quantity <= stock){
+                stock -= p.quantity;
+                granted += p.quantity;
+                p.result = Optional.of(stock);
+            } else {
+                p.result = Optional.empty();
+            }
+        }
+        if(granted > 0){
+            bookRepository.decrementStockIfAvailable(bookId, granted);
+        }
+    }
+
+    private void handOver(Long bookId, Lane lane){
+        lane.combiner.set(null);
+        Pending head = lane.queue.peek();
+        if(head != null){
+            LockSupport.unpark(head.waiter); // next in line becomes the combiner
+        } else {
+            // Idle book: drop its lane. A request racing with this just works on
+            // a lane that is no longer in the map - still correct, just not combined.
+            lanes.remove(bookId, lane);
+        }
+    }
+
+    private static class Lane {
+        final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
+        final AtomicReference<Thread> combiner = new AtomicReference<>();
+    }
+
+    static class Pending {
+        final int quantity;
+        final Thread waiter;
+        volatile boolean done;
+        Optional<Integer> result; // published by the write to done
+        RuntimeException error;
+
+        Pending(int quantity, Thread waiter) {
+            this.quantity = quantity;
+            this.waiter = waiter;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.book_service.service;
+
+import com.book_service.dto.BulkReservation;
+import com.book_service.dto.CartLine;
+import com.book_service.dto.ReservationSnapshot;
+import com.book_service.entity.Book;
+import com.book_service.entity.StockReservation;
+import com.book_service.event.BookStockChangedEvent;
+import com.book_service.exception.BookNotFoundException;
+import com.book_service.exception.ReservationNotFoundException;
+import com.book_service.repository.BookRepository;
+import com.book_service.repository.BulkStockRepository;
+import com.book_service.repository.StockReservationRepository;
+import com.book_service.util.HierarchicalTimingWheel;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stock Reservations (reserve → confirm / release, or expire after a TTL)
+ *
+ * WHY: Order Service used to decrement stock and then save the order and
+ * publish to Kafka. If either failed, the stock was gone for good.
+ *
+ * Flow:
+ * 1. reserve  → stock taken off + HELD row, in ONE transaction (like a
+ *               one-line cart): no window where the stock is gone without a row
+ * 2. confirm  → HELD → CONFIRMED, stock stays sold
+ *    release  → HELD → RELEASED, stock given back
+ *    TTL over → HELD → EXPIRED,  stock given back
+ *
+ * Expirations live in a HierarchicalTimingWheel, not in a DB poll. The rows
+ * are durable: on startup every HELD reservation is put back on the wheel
+ * (already overdue ones expire right away).
+ * A hold is only on the wheel of the instance that made it: if that instance
+ * dies, sweepOverdue (any instance, every sweep.interval-ms) expires it once
+ * it is sweep.grace-seconds overdue.
+ *
+ * Carts (reserveAll): every line in one transaction, all or nothing, with
+ * batched statements; lines share a groupId for confirm / release.
+ *
+ * Status change + stock give-back run in one transaction, and the status
+ * change is conditional (see StockReservationRepository), so racing confirm /
+ * release / expiry - even on different instances - give stock back at most once.
+ */
+@Service
+public class StockReservationService {
+
+    private static final long EXPIRY_RETRY_MILLIS = 5_000;
+
+    private final Map<Long, HierarchicalTimingWheel.Timeout> timeouts = new ConcurrentHashMap<>();
+
+    private final StockReservationRepository reservationRepository;
+    private final BookRepository bookRepository;
+    private final BulkStockRepository bulkStockRepository;
+    private final StockBucketService stockBucketService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService expiryExecutor;
+    private final HierarchicalTimingWheel wheel;
+
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final int maxCartLines;
+    private final Duration sweepGrace;
+    private final int sweepBatch;
+
+    public StockReservationService(StockReservationRepository reservationRepository,
+                                   BookRepository bookRepository,
+                                   BulkStockRepository bulkStockRepository,
+                                   StockBucketService stockBucketService,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${book.reservations.default-ttl-seconds:120}") long defaultTtlSeconds,
+                                   @Value("${book.reservations.max-ttl-seconds:900}") long maxTtlSeconds,
+                                   @Value("${book.reservations.max-cart-lines:100}") int maxCartLines,
+                                   @Value("${book.reservations.wheel.tick-ms:100}") long tickMillis,
+                                   @Value("${book.reservations.wheel.size:64}") int wheelSize,
+                                   @Value("${book.reservations.sweep.grace-seconds:60}") long sweepGraceSeconds,
+                                   @Value("${book.reservations.sweep.batch:500}") int sweepBatch) {
+        this.reservationRepository = reservationRepository;
+        this.bookRepository = bookRepository;
+        this.bulkStockRepository = bulkStockRepository;
+        this.stockBucketService = stockBucketService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultTtl = Duration.ofSeconds(defaultTtlSeconds);
+        this.maxTtl = Duration.ofSeconds(maxTtlSeconds);
+        this.maxCartLines = maxCartLines;
+        this.sweepGrace = Duration.ofSeconds(sweepGraceSeconds);
+        this.sweepBatch = sweepBatch;
+        // Expiry does DB work: keep it off the wheel's own thread
+        this.expiryExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.wheel = new HierarchicalTimingWheel("reservation-wheel", tickMillis, wheelSize, expiryExecutor);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescheduleHeld(){
+        List<StockReservation> held = reservationRepository.findByStatus(StockReservation.Status.HELD);
+        held.forEach(this::scheduleExpiry);
+        if(!held.isEmpty()){
+            System.out.println("⏳ Re-armed " + held.size() + " stock reservations");
+        }
+    }
+
+    /**
+     * Safety net for holds whose timer is gone with the instance that made
+     * them. The grace period leaves holds that are still on a live wheel to
+     * that wheel. Rows are locked with SKIP LOCKED, so instances sweeping at
+     * the same time expire different holds.
+     */
+    @Scheduled(initialDelayString = "${book.reservations.sweep.interval-ms:60000}",
+            fixedDelayString = "${book.reservations.sweep.interval-ms:60000}")
+    public void sweepOverdue(){
+        try{
+            List<Long> expired = transactionTemplate.execute(status -> {
+                List<Long> overdue = reservationRepository.lockOverdue(Instant.now().minus(sweepGrace), sweepBatch);
+                overdue.forEach(id -> giveBack(id, StockReservation.Status.EXPIRED));
+                return overdue;
+            });
+            expired.forEach(this::cancelExpiry);
+            if(!expired.isEmpty()){
+                System.out.println("⌛ Swept " + expired.size() + " overdue stock reservations, stock returned");
+            }
+        } catch (RuntimeException e) {
+            // Nothing committed: the next sweep tries again
+            System.err.println("Failed to sweep overdue reservations: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void stop(){
+        wheel.close();
+        expiryExecutor.shutdown();
+    }
+
+    /**
+     * @param ttl null → book.reservations.default-ttl-seconds
+     * @return the HELD reservation, or empty if there isn't enough stock
+     * @throws BookNotFoundException if the book doesn't exist
+     */
+    public Optional<StockReservation> reserve(Long bookId, int quantity, Duration ttl, String reservedBy){
+        return holdOne(bookId, quantity, ttl, reservedBy).reservations().stream().findFirst();
+    }
+
+    /**
+     * Reserve + book snapshot in one call (Order Service's only round trip
+     * before saving an order). Stock is validated and taken by the same
+     * conditional update, in the transaction that writes the HELD row.
+     *
+     * @throws com.book_service.exception.BookNotFoundException if the book doesn't exist
+     */
+    public ReservationSnapshot checkAndReserve(Long bookId, int quantity, Duration ttl, String reservedBy){
+        return holdOne(bookId, quantity, ttl, reservedBy).result().lines().get(0);
+    }
+
+    /**
+     * Reserve a whole cart: every line is held, or none is.
+     *
+     * Flow (one transaction):
+     * 1. Lines merged per book and sorted by book ID → every cart locks rows
+     *    in the same order, so two carts can't deadlock
+     * 2. One JDBC batch of conditional decrements for the plain books,
+     *    then the sharded books (buckets locked in bucket order)
+     * 3. Any line short → rollback, answer with the short lines
+     *    Otherwise → one JDBC batch inserts the HELD rows (shared groupId)
+     *
+     * @throws BookNotFoundException if a book doesn't exist (nothing is held)
+     */
+    public BulkReservation reserveAll(List<CartLine> lines, Duration ttl, String reservedBy){
+        return hold(merge(lines), holdFor(ttl), reservedBy, true).result();
+    }
+
+    /**
+     * One book, held like a one-line cart: the conditional decrement and the
+     * HELD row commit together. Not through StockDecrementCombiner - its
+     * batches commit on their own, before a reservation row could be written.
+     */
+    private CartHold holdOne(Long bookId, int quantity, Duration ttl, String reservedBy){
+        if(quantity <= 0){
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        return hold(Map.of(bookId, quantity), holdFor(ttl), reservedBy, false);
+    }
+
+    private CartHold hold(Map<Long, Integer> quantities, Duration holdFor, String reservedBy, boolean grouped){
+        CartHold hold = holdCart(quantities, holdFor, reservedBy, grouped);
+        // A book sharded by another instance looks empty in books.stock: re-check once
+        if(hold.reservations().isEmpty() && hold.result().lines().stream()
+                .anyMatch(line -> !stockBucketService.isSharded(line.bookId()) && stockBucketService.refresh(line.bookId()))){
+            hold = holdCart(quantities, holdFor, reservedBy, grouped);
+        }
+        hold.reservations().forEach(this::scheduleExpiry);
+        return hold;
+    }
+
+    private record CartHold(BulkReservation result, List<StockReservation> reservations) {
+    }
+
+    private Map<Long, Integer> merge(List<CartLine> lines){
+        if(lines == null || lines.isEmpty() || lines.size() > maxCartLines){
+            throw new IllegalArgumentException("A cart needs between 1 and " + maxCartLines + " lines");
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for(CartLine line : lines){
+            if(line.bookId() == null || line.quantity() <= 0){
+                throw new IllegalArgumentException("Every line needs a bookId and a quantity > 0");
+            }
+            quantities.merge(line.bookId(), line.quantity(), Math::addExact);
+        }
+        return quantities;
+    }
+
+    // grouped = false → a single reservation, no groupId
+    private CartHold holdCart(Map<Long, Integer> quantities, Duration holdFor, String reservedBy, boolean grouped){
+        return transactionTemplate.execute(status -> {
+            List<Long> plain = new ArrayList<>();
+            List<Long> sharded = new ArrayList<>();
+            quantities.keySet().forEach(id -> (stockBucketService.isSharded(id) ? sharded : plain).add(id));
+
+            quantities.keySet().forEach(id -> eventPublisher.publishEvent(BookStockChangedEvent.changed(id)));
+            Set<Long> shortIds = new HashSet<>();
+            int[] updated = bulkStockRepository.decrementAll(plain, quantities);
+            for(int i = 0; i < updated.length; i++){
+                if(updated[i] == 0){
+                    shortIds.add(plain.get(i));
+                }
+            }
+            for(Long id : sharded){
+                if(stockBucketService.decrementLocked(id, quantities.get(id)).isEmpty()){
+                    shortIds.add(id);
+                }
+            }
+
+            Map<Long, Book> books = new TreeMap<>();
+            bookRepository.findAllById(quantities.keySet()).forEach(book -> books.put(book.getId(), book));
+            for(Long id : quantities.keySet()){
+                if(!books.containsKey(id)){
+                    throw new BookNotFoundException("Book not found: " + id);
+                }
+            }
+            Map<Long, Integer> bucketTotals = stockBucketService.totals(sharded);
+
+            if(!shortIds.isEmpty()){
+                status.setRollbackOnly();
+                // Nothing was taken from a short line: what we see is what is available
+                List<ReservationSnapshot> shortLines = shortIds.stream().sorted()
+                        .map(id -> ReservationSnapshot.insufficient(books.get(id), quantities.get(id),
+                                books.get(id).getStock() + bucketTotals.getOrDefault(id, 0)))
+                        .toList();
+                return new CartHold(BulkReservation.insufficient(shortLines), List.of());
+            }
+
+            String groupId = grouped ? UUID.randomUUID().toString() : null;
+            Instant expiresAt = Instant.now().plus(holdFor);
+            List<StockReservation> reservations = new ArrayList<>();
+            quantities.forEach((bookId, quantity) -> {
+                StockReservation reservation = new StockReservation();
+                reservation.setBookId(bookId);
+                reservation.setQuantity(quantity);
+                reservation.setGroupId(groupId);
+                reservation.setReservedBy(reservedBy);
+                reservation.setExpiresAt(expiresAt);
+                reservations.add(reservation);
+            });
+            bulkStockRepository.insertReservations(reservations);
+
+            List<ReservationSnapshot> heldLines = reservations.stream()
+                    .map(r -> ReservationSnapshot.held(r, books.get(r.getBookId()),
+                            books.get(r.getBookId()).getStock() + bucketTotals.getOrDefault(r.getBookId(), 0)))
+                    .toList();
+            return new CartHold(BulkReservation.held(groupId, expiresAt, heldLines), reservations);
+        });
+    }
+
+    private Duration holdFor(Duration ttl){
+        Duration holdFor = ttl == null ? defaultTtl : ttl;
+        if(holdFor.isNegative() || holdFor.isZero() || holdFor.compareTo(maxTtl) > 0){
+            throw new IllegalArgumentException("TTL must be between 1s and " + maxTtl.toSeconds() + "s");
+        }
+        return holdFor;
+    }
+
+    /**
+     * Idempotent. Fails if the reservation was released or has expired.
+     */
+    public StockReservation confirm(Long id){
+        int updated = transactionTemplate.execute(status -> reservationRepository.transitionIfNotExpired(id,
+                StockReservation.Status.HELD, StockReservation.Status.CONFIRMED, Instant.now()));
+        StockReservation reservation = getReservation(id);
+        if(updated == 0 && reservation.getStatus() != StockReservation.Status.CONFIRMED){
+            throw new IllegalStateException("Reservation " + id + " can't be confirmed: " + reservation.getStatus()
+                    + (reservation.getStatus() == StockReservation.Status.HELD ? " but expired" : ""));
+        }
+        cancelExpiry(id);
+        return reservation;
+    }
+
+    /**
+     * Idempotent. Fails if the reservation was already confirmed.
+     */
+    public StockReservation release(Long id){
+        if(!giveBack(id, StockReservation.Status.RELEASED)){
+            StockReservation reservation = getReservation(id);
+            if(reservation.getStatus() == StockReservation.Status.CONFIRMED){
+                throw new IllegalStateException("Reservation " + id + " is already confirmed");
+            }
+            return reservation;
+        }
+        cancelExpiry(id);
+        return getReservation(id);
+    }
+
+    /**
+     * Confirm every line of a cart. Idempotent; fails if the cart was
+     * released or has expired.
+     */
+    public List<StockReservation> confirmGroup(String groupId){
+        getGroup(groupId);
+        transactionTemplate.execute(status -> reservationRepository.transitionGroupIfNotExpired(groupId,
+                StockReservation.Status.HELD, StockReservation.Status.CONFIRMED, Instant.now()));
+        List<StockReservation> reservations = getGroup(groupId);
+        reservations.forEach(reservation -> cancelExpiry(reservation.getId()));
+        for(StockReservation reservation : reservations){
+            if(reservation.getStatus() != StockReservation.Status.CONFIRMED){
+                throw new IllegalStateException("Reservation group " + groupId + " can't be confirmed: "
+                        + reservation.getStatus() + (reservation.getStatus() == StockReservation.Status.HELD ? " but expired" : ""));
+            }
+        }
+        return reservations;
+    }
+
+    /**
+     * Give back every line of a cart, in one transaction (book ID order, like
+     * reserveAll). Idempotent; fails if the cart was already confirmed.
+     */
+    public List<StockReservation> releaseGroup(String groupId){
+        List<StockReservation> reservations = getGroup(groupId);
+        if(reservations.stream().anyMatch(r -> r.getStatus() == StockReservation.Status.CONFIRMED)){
+            throw new IllegalStateException("Reservation group " + groupId + " is already confirmed");
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                reservations.forEach(reservation -> giveBack(reservation.getId(), StockReservation.Status.RELEASED)));
+        reservations.forEach(reservation -> cancelExpiry(reservation.getId()));
+        return getGroup(groupId);
+    }
+
+    public List<StockReservation> getGroup(String groupId){
+        List<StockReservation> reservations = reservationRepository.findByGroupIdOrderByBookId(groupId);
+        if(reservations.isEmpty()){
+            throw new ReservationNotFoundException(groupId);
+        }
+        return reservations;
+    }
+
+    public StockReservation getReservation(Long id){
+        return reservationRepository.findById(id)
+                .orElseThrow(() -> new ReservationNotFoundException(id));
+    }
+
+    /**
+     * HELD → releasedAs and the stock back, atomically.
+     *
+     * @return false if the reservation wasn't HELD (anymore)
+     */
+    private boolean giveBack(Long id, StockReservation.Status releasedAs){
+        Boolean released = transactionTemplate.execute(status -> {
+            if(reservationRepository.transition(id, StockReservation.Status.HELD, releasedAs) == 0){
+                return false;
+            }
+            StockReservation reservation = reservationRepository.findById(id).orElseThrow();
+            restock(reservation.getBookId(), reservation.getQuantity());
+            return true;
+        });
+        return Boolean.TRUE.equals(released);
+    }
+
+    // Caller holds a transaction
+    private void restock(Long bookId, int quantity){
+        eventPublisher.publishEvent(BookStockChangedEvent.changed(bookId));
+        if(stockBucketService.isSharded(bookId) && stockBucketService.increment(bookId, quantity)){
+            return;
+        }
+        bookRepository.incrementStock(bookId, quantity);
+    }
+
+    private void scheduleExpiry(StockReservation reservation){
+        Long id = reservation.getId();
+        timeouts.put(id, wheel.schedule(reservation.getExpiresAt().toEpochMilli(), () -> expire(id)));
+    }
+
+    private void cancelExpiry(Long id){
+        HierarchicalTimingWheel.Timeout timeout = timeouts.remove(id);
+        if(timeout != null){
+            timeout.cancel();
+        }
+    }
+
+    private void expire(Long id){
+        timeouts.remove(id);
+        try{
+            if(giveBack(id, StockReservation.Status.EXPIRED)){
+                System.out.println("⌛ Reservation " + id + " expired, stock returned");
+            }
+        } catch (RuntimeException e) {
+            // Row stays HELD: try again shortly
+            System.err.println("Failed to expire reservation " + id + ": " + e.getMessage());
+            timeouts.put(id, wheel.schedule(System.currentTimeMillis() + EXPIRY_RETRY_MILLIS, () -> expire(id)));
+        }
+    }
+}
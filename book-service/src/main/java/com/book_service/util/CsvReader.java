@@ -0,0 +1,121 @@
+package com.book_service.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming CSV reader (RFC 4180): one record at a time, never the file.
+ *
+ * Fields separated by commas, optionally quoted; inside quotes "" is a
+ * quote and commas / line breaks are data. Records end with \n or \r\n.
+ * Blank lines are skipped.
+ *
+ * Not thread-safe. The caller closes the Reader.
+ */
+public class CsvReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private long line = 1;       // line the next character is on
+    private long recordLine;     // line the last record started on
+
+    public CsvReader(Reader in){
+        this.in = in;
+    }
+
+    /**
+     * Next record's fields, or null at the end of input.
+     *
+     * @throws IllegalStateException on a quote left open at the end of input
+     */
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;     // inside quotes
+        boolean any = false;        // record has started
+        recordLine = line;
+        for(int c; (c = read()) != -1; ){
+            if(quoted){
+                if(c == '"'){
+                    if(peek() == '"'){
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if(c == '\n'){
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if(c == '"'){
+                quoted = true;
+                any = true;
+            } else if(c == ','){
+                fields.add(field.toString());
+                field.setLength(0);
+                any = true;
+            } else if(c == '\n' || c == '\r'){
+                if(c == '\r' && peek() == '\n'){
+                    read();
+                }
+                line++;
+                if(any || field.length() > 0){
+                    fields.add(field.toString());
+                    return fields;
+                }
+                recordLine = line; // blank line
+            } else {
+                field.append((char) c);
+                any = true;
+            }
+        }
+        if(quoted){
+            throw new IllegalStateException("Unterminated quoted field starting on line " + recordLine);
+        }
+        if(any || field.length() > 0){
+            fields.add(field.toString());
+            return fields;
+        }
+        return null;
+    }
+
+    /**
+     * Line the record returned by the last next() started on (1-based).
+     */
+    public long recordLine(){
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if(position == limit && !fill()){
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if(position == limit && !fill()){
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if(read <= 0){
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,250 @@
+package com.book_service.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hierarchical Timing Wheel (Varghese &amp; Lauck, same layout as Kafka's purgatory)
+ *
+ * Level 0: wheelSize slots, tickMillis wide each.
+ * Level n+1: wheelSize slots, each as wide as the whole of level n.
+ *
+ *   schedule → lowest level whose span covers the deadline → O(1)
+ *   slot of level n+1 comes due → its timeouts move down a level (cascade)
+ *   slot of level 0 comes due → its timeouts run on the executor
+ *
+ * Only non-empty slots are queued (by due time), so an idle wheel does no
+ * work and a sparse one doesn't tick through empty slots. A timeout never
+ * fires before its deadline and at most ~tickMillis after it.
+ *
+ * Deadlines are epoch millis (System.currentTimeMillis()).
+ */
+public class HierarchicalTimingWheel implements AutoCloseable {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // Due slots first; on equal due time lower levels first, so a cascading
+    // upper slot never lands in a level-0 slot that is still waiting to be flushed
+    private final PriorityQueue<Slot> queuedSlots = new PriorityQueue<>(
+            Comparator.comparingLong((Slot s) -> s.expiration).thenComparingInt(s -> s.level));
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Executor executor;
+    private final Level root;
+    private final Thread driver;
+    private volatile boolean running = true;
+
+    public HierarchicalTimingWheel(String name, long tickMillis, int wheelSize, Executor executor) {
+        if(tickMillis <= 0 || wheelSize < 2){
+            throw new IllegalArgumentException("tickMillis must be > 0 and wheelSize >= 2");
+        }
+        this.executor = executor;
+        this.root = new Level(0, tickMillis, wheelSize, System.currentTimeMillis());
+        this.driver = new Thread(this::drive, name);
+        this.driver.setDaemon(true);
+        this.driver.start();
+    }
+
+    /**
+     * Runs task on the executor once deadlineMillis has passed
+     * (right away if it already has).
+     */
+    public Timeout schedule(long deadlineMillis, Runnable task){
+        Timeout timeout = new Timeout(deadlineMillis, task);
+        lock.lock();
+        try{
+            long now = System.currentTimeMillis();
+            flushDue(now);
+            root.advance(now);
+            pending.incrementAndGet();
+            if(!root.add(timeout, now)){
+                fire(timeout);
+            }
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        return timeout;
+    }
+
+    /**
+     * Scheduled, not yet fired or cancelled.
+     */
+    public int pending(){
+        return pending.get();
+    }
+
+    @Override
+    public void close(){
+        running = false;
+        driver.interrupt();
+    }
+
+    private void drive(){
+        lock.lock();
+        try{
+            while(running){
+                long now = System.currentTimeMillis();
+                flushDue(now);
+                Slot next = queuedSlots.peek();
+                if(next == null){
+                    changed.await();
+                } else {
+                    changed.await(next.expiration - now, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock
+    private void flushDue(long now){
+        Slot slot;
+        while((slot = queuedSlots.peek()) != null && slot.expiration <= now){
+            queuedSlots.poll();
+            long dueAt = slot.expiration;
+            root.advance(dueAt);
+            for(Timeout timeout : slot.drain()){
+                if(timeout.isCancelled()){
+                    continue;
+                }
+                if(!root.add(timeout, dueAt)){
+                    fire(timeout);
+                }
+            }
+        }
+    }
+
+    private void fire(Timeout timeout){
+        if(!timeout.markFired()){
+            return;
+        }
+        pending.decrementAndGet();
+        try{
+            executor.execute(timeout.task);
+        } catch (RejectedExecutionException e) {
+            System.err.println("⚠️ Timing wheel executor rejected a task: " + e.getMessage());
+        }
+    }
+
+    private final class Level {
+        final int index;
+        final long tick;
+        final int size;
+        final long interval;
+        final Slot[] slots;
+        long currentTime; // multiple of tick
+        Level overflow;
+
+        Level(int index, long tick, int size, long startMillis) {
+            this.index = index;
+            this.tick = tick;
+            this.size = size;
+            this.interval = tick * size;
+            this.currentTime = startMillis - startMillis % tick;
+            this.slots = new Slot[size];
+            for(int i = 0; i < size; i++){
+                slots[i] = new Slot(index);
+            }
+        }
+
+        /**
+         * @return false if the timeout is already due
+         */
+        boolean add(Timeout timeout, long now){
+            long deadline = timeout.deadline;
+            if(deadline <= now){
+                return false;
+            }
+            long current = currentTime / tick;
+            // Level 0 rounds up so a slot never fires before its deadlines;
+            // upper levels round down so the cascade starts in time
+            long virtualId = index == 0 ? (deadline + tick - 1) / tick : deadline / tick;
+            boolean fits = index == 0 ? virtualId - current <= size : virtualId - current < size;
+            if(fits){
+                Slot slot = slots[(int) (virtualId % size)];
+                slot.timeouts.add(timeout);
+                if(slot.expiration != virtualId * tick){
+                    slot.expiration = virtualId * tick;
+                    queuedSlots.add(slot);
+                }
+                return true;
+            }
+            if(overflow == null){
+                overflow = new Level(index + 1, interval, size, currentTime);
+            }
+            return overflow.add(timeout, now);
+        }
+
+        void advance(long time){
+            if(time >= currentTime + tick){
+                currentTime = time - time % tick;
+                if(overflow != null){
+                    overflow.advance(currentTime);
+                }
+            }
+        }
+    }
+
+    private static final class Slot {
+        final int level;
+        List<Timeout> timeouts = new ArrayList<>();
+        long expiration = -1;
+
+        Slot(int level) {
+            this.level = level;
+        }
+
+        List<Timeout> drain(){
+            List<Timeout> drained = timeouts;
+            timeouts = new ArrayList<>();
+            expiration = -1;
+            return drained;
+        }
+    }
+
+    public final class Timeout {
+        private final long deadline;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(); // 0 pending, 1 fired, 2 cancelled
+
+        private Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        public long deadline(){
+            return deadline;
+        }
+
+        /**
+         * @return true if the task will not run because of this call
+         */
+        public boolean cancel(){
+            if(state.compareAndSet(0, 2)){
+                pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled(){
+            return state.get() == 2;
+        }
+
+        private boolean markFired(){
+            return state.compareAndSet(0, 1);
+        }
+    }
+}
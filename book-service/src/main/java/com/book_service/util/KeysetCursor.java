@@ -0,0 +1,33 @@
+package com.book_service.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Continuation token of a keyset (seek) scroll: the sort key and the last
+ * row's (value, id). Clients treat it as opaque and send it back as is.
+ *
+ *   encode → base64url("title:42:Dune")
+ *   decode → KeysetCursor("title", 42, "Dune")
+ */
+public record KeysetCursor(String sort, long lastId, String lastValue) {
+
+    public String encode(){
+        String raw = sort + ":" + lastId + ":" + (lastValue == null ? "" : lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token wasn't made by encode()
+     */
+    public static KeysetCursor decode(String token){
+        try{
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // value last: it may contain ':' itself
+            String[] parts = raw.split(":", 3);
+            return new KeysetCursor(parts[0], Long.parseLong(parts[1]), parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token");
+        }
+    }
+}
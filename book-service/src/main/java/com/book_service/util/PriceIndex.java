@@ -0,0 +1,319 @@
+package com.book_service.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory sorted index: (price in cents, id) → book id, with a stock hint
+ *
+ * WHY: "price <= x ORDER BY price" sorts every match on each call; the
+ * cheap shelves of the storefront run it constantly.
+ *
+ * Entries sorted by (price, id) in blocks of up to 512 (primitive arrays):
+ *   scan   → binary search to the start, then walk → O(log n + page)
+ *   put    → shift inside one block, split it when full → O(block)
+ *   remove → id → price map (primitive, open addressing) finds the entry
+ *
+ * The stock hint only narrows "in stock" scans down: 0 = sold out,
+ * UNKNOWN = may be in stock. Callers check the real stock of what they return.
+ */
+public class PriceIndex {
+
+    public static final int UNKNOWN_STOCK = -1;
+
+    private static final int BLOCK_SIZE = 512;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Block> blocks = new ArrayList<>();
+    private final LongLongMap priceById = new LongLongMap();
+
+    public record Entry(long id, long priceCents) {
+    }
+
+    /**
+     * Adds the book, or moves it to its new price.
+     */
+    public void put(long id, long priceCents, int stock){
+        lock.writeLock().lock();
+        try{
+            removeEntry(id);
+            insert(priceCents, id, stock);
+            priceById.put(id, priceCents);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id){
+        lock.writeLock().lock();
+        try{
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // No-op for books not in the index
+    public void setStock(long id, int stock){
+        lock.writeLock().lock();
+        try{
+            long price = priceById.get(id);
+            if(price == LongLongMap.MISSING){
+                return;
+            }
+            int b = blockFor(price, id);
+            Block block = blocks.get(b);
+            block.stocks[block.indexOf(price, id)] = stock;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size(){
+        lock.readLock().lock();
+        try{
+            return priceById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit entries with minCents <= price <= maxCents, in (price, id)
+     * order, starting right after (afterCents, afterId). For the first page
+     * pass afterCents = minCents, afterId = Long.MIN_VALUE.
+     *
+     * @param inStockOnly skip entries whose stock hint is 0
+     */
+    public List<Entry> scan(long minCents, long maxCents, long afterCents, long afterId,
+                            boolean inStockOnly, int limit){
+        long startCents = Math.max(minCents, afterCents);
+        long startId = afterCents < minCents ? Long.MIN_VALUE : afterId;
+        List<Entry> entries = new ArrayList<>(Math.min(limit, 1024));
+        lock.readLock().lock();
+        try{
+            int first = blockFor(startCents, startId);
+            for(int b = first; b < blocks.size(); b++){
+                Block block = blocks.get(b);
+                for(int i = b == first ? block.after(startCents, startId) : 0; i < block.size; i++){
+                    if(block.prices[i] > maxCents || entries.size() == limit){
+                        return entries;
+                    }
+                    if(!inStockOnly || block.stocks[i] != 0){
+                        entries.add(new Entry(block.ids[i], block.prices[i]));
+                    }
+                }
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void removeEntry(long id){
+        long price = priceById.remove(id);
+        if(price == LongLongMap.MISSING){
+            return;
+        }
+        int b = blockFor(price, id);
+        Block block = blocks.get(b);
+        block.remove(block.indexOf(price, id));
+        if(block.size == 0){
+            blocks.remove(b);
+        }
+    }
+
+    // Caller holds the write lock
+    private void insert(long price, long id, int stock){
+        if(blocks.isEmpty()){
+            Block block = new Block();
+            block.insert(0, price, id, stock);
+            blocks.add(block);
+            return;
+        }
+        int b = Math.min(blockFor(price, id), blocks.size() - 1);
+        Block block = blocks.get(b);
+        if(block.size == BLOCK_SIZE){
+            Block upper = block.split();
+            blocks.add(b + 1, upper);
+            if(compare(price, id, upper.prices[0], upper.ids[0]) >= 0){
+                block = upper;
+            }
+        }
+        block.insert(block.after(price, id), price, id, stock);
+    }
+
+    // First block whose last entry is >= (price, id); blocks.size() if none
+    private int blockFor(long price, long id){
+        int low = 0;
+        int high = blocks.size() - 1;
+        while(low <= high){
+            int mid = (low + high) >>> 1;
+            Block block = blocks.get(mid);
+            int last = block.size - 1;
+            if(compare(block.prices[last], block.ids[last], price, id) < 0){
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(long priceA, long idA, long priceB, long idB){
+        int byPrice = Long.compare(priceA, priceB);
+        return byPrice != 0 ? byPrice : Long.compare(idA, idB);
+    }
+
+    private static final class Block {
+        final long[] prices = new long[BLOCK_SIZE];
+        final long[] ids = new long[BLOCK_SIZE];
+        final int[] stocks = new int[BLOCK_SIZE];
+        int size;
+
+        // First position whose entry is > (price, id) - or == for indexOf
+        int after(long price, long id){
+            int low = 0;
+            int high = size - 1;
+            while(low <= high){
+                int mid = (low + high) >>> 1;
+                if(compare(prices[mid], ids[mid], price, id) <= 0){
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        int indexOf(long price, long id){
+            return after(price, id) - 1;
+        }
+
+        void insert(int at, long price, long id, int stock){
+            System.arraycopy(prices, at, prices, at + 1, size - at);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            System.arraycopy(stocks, at, stocks, at + 1, size - at);
+            prices[at] = price;
+            ids[at] = id;
+            stocks[at] = stock;
+            size++;
+        }
+
+        void remove(int at){
+            System.arraycopy(prices, at + 1, prices, at, size - at - 1);
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            System.arraycopy(stocks, at + 1, stocks, at, size - at - 1);
+            size--;
+        }
+
+        // Moves the upper half into a new block
+        Block split(){
+            Block upper = new Block();
+            int half = size / 2;
+            upper.size = size - half;
+            System.arraycopy(prices, half, upper.prices, 0, upper.size);
+            System.arraycopy(ids, half, upper.ids, 0, upper.size);
+            System.arraycopy(stocks, half, upper.stocks, 0, upper.size);
+            size = half;
+            return upper;
+        }
+    }
+
+    /**
+     * long → long hash map, open addressing with linear probing: no Long
+     * boxes, 16 bytes a slot. Deletes shift the following run back instead
+     * of leaving tombstones.
+     */
+    static final class LongLongMap {
+        static final long MISSING = Long.MIN_VALUE;
+        private static final long FREE = Long.MIN_VALUE;
+
+        private long[] keys = newKeys(16);
+        private long[] values = new long[16];
+        private int size;
+
+        int size(){
+            return size;
+        }
+
+        long get(long key){
+            for(int slot = slot(key, keys.length); ; slot = (slot + 1) & (keys.length - 1)){
+                if(keys[slot] == key){
+                    return values[slot];
+                }
+                if(keys[slot] == FREE){
+                    return MISSING;
+                }
+            }
+        }
+
+        void put(long key, long value){
+            if((size + 1) * 2 > keys.length){
+                resize();
+            }
+            int slot = slot(key, keys.length);
+            while(keys[slot] != FREE && keys[slot] != key){
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            if(keys[slot] == FREE){
+                size++;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        long remove(long key){
+            int mask = keys.length - 1;
+            int slot = slot(key, keys.length);
+            while(keys[slot] != key){
+                if(keys[slot] == FREE){
+                    return MISSING;
+                }
+                slot = (slot + 1) & mask;
+            }
+            long removed = values[slot];
+            size--;
+            // Backward shift: pull later entries of the run into the gap if
+            // their home slot doesn't lie between the gap and them
+            int gap = slot;
+            for(int next = (gap + 1) & mask; keys[next] != FREE; next = (next + 1) & mask){
+                int home = slot(keys[next], keys.length);
+                if(((next - home) & mask) >= ((next - gap) & mask)){
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    gap = next;
+                }
+            }
+            keys[gap] = FREE;
+            return removed;
+        }
+
+        private void resize(){
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = newKeys(oldKeys.length * 2);
+            values = new long[oldKeys.length * 2];
+            size = 0;
+            for(int i = 0; i < oldKeys.length; i++){
+                if(oldKeys[i] != FREE){
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static long[] newKeys(int capacity){
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, FREE);
+            return keys;
+        }
+
+        private static int slot(long key, int capacity){
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32) & (capacity - 1);
+        }
+    }
+}
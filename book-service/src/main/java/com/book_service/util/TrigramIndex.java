@@ -0,0 +1,339 @@
+package com.book_service.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over (title, author), for substring search
+ *
+ * WHY: LIKE '%x%' on lower(title) can't use a B-tree, so every search scans
+ * the books table.
+ *
+ *   "The Hobbit" → "the", "he ", "e h", " ho", "hob", "obb", "bbi", "bit"
+ *   trigram → posting list of doc ids (int[], ascending)
+ *
+ * Search "hobb tolk":
+ * 1. Intersect the posting lists of every trigram of every word, shortest
+ *    first → candidates
+ * 2. Check each candidate really contains every word (trigrams only narrow down)
+ * 3. Rank: title before author, whole word before word start before middle,
+ *    exact title on top. Only the best `limit` are kept (bounded heap), so a
+ *    common word costs a scan of its candidates, not a sort of all of them
+ *
+ * Doc ids only grow, so posting lists stay sorted by appending. Removing or
+ * re-putting a key leaves a tombstone; the index compacts itself once
+ * tombstones outnumber live docs.
+ *
+ * Text is lower-cased, accent-stripped, and anything but letters/digits
+ * becomes a space. Words shorter than 3 characters have no trigrams: they
+ * are checked against the candidates of the other words. A query with
+ * nothing longer is refused (it would have to score every doc).
+ */
+public class TrigramIndex {
+
+    private static final int[] EMPTY = new int[0];
+    private static final int MIN_COMPACT = 1024;
+    // Best first: score, then title, then key
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparing(hit -> hit.doc().title())
+            .thenComparingLong(hit -> hit.doc().key());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final List<Doc> docs = new ArrayList<>();   // by doc id, null = tombstone
+    private final Map<Long, Integer> docIds = new HashMap<>(); // key → live doc id
+
+    /**
+     * Adds the key, or replaces what was indexed for it.
+     */
+    public void put(long key, String title, String author){
+        Doc doc = new Doc(key, normalize(title), normalize(author));
+        lock.writeLock().lock();
+        try{
+            tombstone(key);
+            append(doc);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long key){
+        lock.writeLock().lock();
+        try{
+            tombstone(key);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size(){
+        lock.readLock().lock();
+        try{
+            return docIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * True if the query has a word of 3+ characters, i.e. search() can narrow
+     * it down through the trigrams.
+     */
+    public static boolean isSearchable(String query){
+        return longestWord(words(query)) >= 3;
+    }
+
+    /**
+     * @param limit how many of the best matches to return (offset + page size)
+     * @return keys of the best matches, best first, and how many matched in all
+     * @throws IllegalArgumentException when the query has no word of 3+ characters
+     */
+    public Matches search(String query, int limit){
+        String[] words = words(query);
+        if(words.length == 0){
+            return new Matches(List.of(), 0);
+        }
+        if(longestWord(words) < 3){
+            throw new IllegalArgumentException("Search needs a word of at least 3 letters or digits");
+        }
+        String phrase = String.join(" ", words);
+
+        lock.readLock().lock();
+        try{
+            int[] candidates = candidates(words);
+            // Worst of the kept hits on top, evicted by anything better
+            PriorityQueue<Hit> best = new PriorityQueue<>(Math.max(1, Math.min(limit, 1024)) + 1, RANKING.reversed());
+            int total = 0;
+            for(int docId : candidates){
+                Hit hit = score(docs.get(docId), words, phrase);
+                if(hit == null){
+                    continue;
+                }
+                total++;
+                if(best.size() < limit){
+                    best.add(hit);
+                } else if(limit > 0 && RANKING.compare(hit, best.peek()) < 0){
+                    best.poll();
+                    best.add(hit);
+                }
+            }
+            Long[] keys = new Long[best.size()];
+            for(int i = keys.length - 1; i >= 0; i--){
+                keys[i] = best.poll().doc().key();
+            }
+            return new Matches(Arrays.asList(keys), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String[] words(String query){
+        return Arrays.stream(normalize(query).split(" "))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static int longestWord(String[] words){
+        int longest = 0;
+        for(String word : words){
+            longest = Math.max(longest, word.length());
+        }
+        return longest;
+    }
+
+    /**
+     * Docs holding every trigram of every word (3+ chars). All lists are intersected shortest first, across words:
+     * one rare word keeps the work small however common the others are.
+     * Caller holds the read lock.
+     */
+    private int[] candidates(String[] words){
+        List<IntList> lists = new ArrayList<>();
+        for(String word : words){
+            for(int i = 0; i + 3 <= word.length(); i++){
+                IntList list = postings.get(trigram(word, i));
+                if(list == null){
+                    return EMPTY;
+                }
+                lists.add(list);
+            }
+        }
+        lists.sort(Comparator.comparingInt(IntList::size));
+        // Only the shortest list is copied; the others are walked in place
+        int[] result = lists.get(0).toArray();
+        for(int i = 1; i < lists.size() && result.length > 0; i++){
+            result = intersect(result, lists.get(i).values, lists.get(i).size);
+        }
+        return result;
+    }
+
+    // null: not a match
+    private static Hit score(Doc doc, String[] words, String phrase){
+        if(doc == null){
+            return null;
+        }
+        int score = doc.title().equals(phrase) ? 10 : 0;
+        for(String word : words){
+            int wordScore = fieldScore(doc.title(), word, 4, 2);
+            if(wordScore == 0){
+                wordScore = fieldScore(doc.author(), word, 3, 1);
+            }
+            if(wordScore == 0){
+                return null;
+            }
+            score += wordScore;
+        }
+        return new Hit(doc, score);
+    }
+
+    // Best occurrence of word in field: whole word, word start, or inside a word (0: none)
+    private static int fieldScore(String field, String word, int atWordStart, int inside){
+        int score = 0;
+        for(int at = field.indexOf(word); at >= 0; at = field.indexOf(word, at + 1)){
+            int end = at + word.length();
+            if(at == 0 || field.charAt(at - 1) == ' '){
+                if(end == field.length() || field.charAt(end) == ' '){
+                    return atWordStart + 1;
+                }
+                score = atWordStart;
+            } else if(score == 0){
+                score = inside;
+            }
+        }
+        return score;
+    }
+
+    // Caller holds the write lock
+    private void tombstone(long key){
+        Integer docId = docIds.remove(key);
+        if(docId != null){
+            docs.set(docId, null);
+        }
+    }
+
+    // Caller holds the write lock
+    private void append(Doc doc){
+        int docId = docs.size();
+        docs.add(doc);
+        docIds.put(doc.key(), docId);
+        Set<Long> trigrams = new HashSet<>();
+        addTrigrams(doc.title(), trigrams);
+        addTrigrams(doc.author(), trigrams);
+        for(long trigram : trigrams){
+            postings.computeIfAbsent(trigram, t -> new IntList()).add(docId);
+        }
+    }
+
+    // Caller holds the write lock
+    private void compactIfNeeded(){
+        int dead = docs.size() - docIds.size();
+        if(dead < MIN_COMPACT || dead < docIds.size()){
+            return;
+        }
+        List<Doc> live = docs.stream().filter(doc -> doc != null).toList();
+        postings.clear();
+        docs.clear();
+        docIds.clear();
+        live.forEach(this::append);
+    }
+
+    private static void addTrigrams(String text, Set<Long> trigrams){
+        for(int i = 0; i + 3 <= text.length(); i++){
+            trigrams.add(trigram(text, i));
+        }
+    }
+
+    // Three UTF-16 chars packed into one long
+    private static long trigram(String text, int i){
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    // a and b ascending. a is the (small) result so far: when b is much
+    // longer, binary-search it instead of walking every posting
+    private static int[] intersect(int[] a, int[] b, int bSize){
+        int[] out = new int[Math.min(a.length, bSize)];
+        int n = 0;
+        if((long) a.length * 16 < bSize){
+            int from = 0;
+            for(int value : a){
+                int at = Arrays.binarySearch(b, from, bSize, value);
+                if(at >= 0){
+                    out[n++] = value;
+                    from = at + 1;
+                } else {
+                    from = -at - 1;
+                }
+                if(from == bSize){
+                    break;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+        int i = 0, j = 0;
+        while(i < a.length && j < bSize){
+            if(a[i] < b[j]){
+                i++;
+            } else if(a[i] > b[j]){
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    static String normalize(String text){
+        if(text == null){
+            return "";
+        }
+        String stripped = Normalizer.normalize(text, Normalizer.Form.NFKD).replaceAll("\\p{M}+", "");
+        return stripped.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private record Doc(long key, String title, String author) {
+    }
+
+    private record Hit(Doc doc, int score) {
+    }
+
+    /**
+     * @param keys  the best matches, best first, at most the limit asked for
+     * @param total every match
+     */
+    public record Matches(List<Long> keys, int total) {
+    }
+
+    // Growable int[]: no boxing per posting
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value){
+            if(size == values.length){
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size(){
+            return size;
+        }
+
+        int[] toArray(){
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,528 @@
+package com.book_service.util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded, weight-aware cache with W-TinyLFU admission (Einziger et al.,
+ * the policy behind Caffeine)
+ *
+ *   new entry → window LRU (1% of the weight)
+ *   window full → its LRU entry is a candidate for the main SLRU
+ *   main full → candidate vs main's LRU victim: the one used more often
+ *               (count-min sketch of recent accesses) stays
+ *   main SLRU: probation (20%) → hit → protected (80%)
+ *
+ * So a burst of one-off keys (a crawler) can't flush the hot set, while
+ * a key that becomes popular still gets in.
+ *
+ * Reads never block: the map lookup is lock-free, and the policy update
+ * (sketch + LRU move) is skipped when another thread holds the lock
+ * (a lost access only makes the policy slightly less precise).
+ *
+ * getOrLoad: one load per key at a time, concurrent misses wait for it.
+ * invalidate / update while a load is running → that load isn't cached
+ * (both sides decide under the lock, so there's no window between the check
+ * and the insert).
+ */
+public class WTinyLfuCache<K, V> {
+
+    private enum Region { WINDOW, PROBATION, PROTECTED }
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final long maximumWeight;
+    private final long windowMax;
+    private final long protectedMax;
+    private final ToLongFunction<V> weigher;
+    private final long expireAfterWriteNanos;
+    private final BiConsumer<K, V> onRemoval;
+    private final FrequencySketch sketch;
+
+    // Guarded by lock. Head = least recently used.
+    private final Deque<K, V> window = new Deque<>();
+    private final Deque<K, V> probation = new Deque<>();
+    private final Deque<K, V> protectedRegion = new Deque<>();
+    private long windowWeight;
+    private long mainWeight;
+    private long protectedWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param expectedEntries sizes the frequency sketch
+     * @param onRemoval       called (under the cache lock) whenever an entry
+     *                        leaves: eviction, expiry or invalidation
+     */
+    public WTinyLfuCache(long maximumWeight, ToLongFunction<V> weigher, int expectedEntries,
+                         Duration expireAfterWrite, BiConsumer<K, V> onRemoval) {
+        if(maximumWeight <= 0 || expectedEntries <= 0){
+            throw new IllegalArgumentException("maximumWeight and expectedEntries must be > 0");
+        }
+        this.maximumWeight = maximumWeight;
+        this.windowMax = Math.max(1, maximumWeight / 100);
+        this.protectedMax = (maximumWeight - windowMax) * 8 / 10;
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.onRemoval = onRemoval;
+        this.sketch = new FrequencySketch(expectedEntries);
+    }
+
+    public V getIfPresent(K key){
+        Node<K, V> node = data.get(key);
+        if(node == null){
+            misses.increment();
+            recordMiss(key);
+            return null;
+        }
+        if(isExpired(node)){
+            misses.increment();
+            lock.lock();
+            try{
+                if(data.remove(key, node)){
+                    unlink(node);
+                    onRemoval.accept(key, node.value);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }
+        hits.increment();
+        recordHit(node);
+        return node.value;
+    }
+
+    /**
+     * Cached value, or loader's (cached unless null). Concurrent misses on the
+     * same key share one load.
+     */
+    public V getOrLoad(K key, Function<K, V> loader){
+        V value = getIfPresent(key);
+        if(value != null){
+            return value;
+        }
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = loading.putIfAbsent(key, mine);
+        if(running != null){
+            try{
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try{
+            long start = System.nanoTime();
+            V loaded = loader.apply(key);
+            loads.increment();
+            loadNanos.add(System.nanoTime() - start);
+            if(loaded != null){
+                putIfLoading(key, mine, loaded);
+            } else {
+                loading.remove(key, mine);
+            }
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            loading.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void put(K key, V value){
+        long weight = weigher.applyAsLong(value);
+        lock.lock();
+        try{
+            insert(key, value, weight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches a loaded value only if its load is still the registered one.
+     * The check and the insert happen under the lock, and invalidate / update
+     * drop the load under the same lock: whichever comes second wins, so an
+     * invalidation during the load never leaves the old value behind.
+     */
+    private void putIfLoading(K key, CompletableFuture<V> load, V value){
+        long weight = weigher.applyAsLong(value);
+        lock.lock();
+        try{
+            if(loading.remove(key, load)){
+                insert(key, value, weight);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock
+    private void insert(K key, V value, long weight){
+        sketch.increment(key.hashCode());
+        Node<K, V> node = data.get(key);
+        if(node != null){
+            adjustWeight(node, weight - node.weight);
+            node.weight = weight;
+            node.value = value;
+            node.writtenAt = System.nanoTime();
+            onAccess(node);
+        } else {
+            node = new Node<>(key, value, weight);
+            data.put(key, node);
+            node.region = Region.WINDOW;
+            window.addLast(node);
+            windowWeight += weight;
+        }
+        evict();
+    }
+
+    /**
+     * Replaces the cached value with fn(value) if there is one (write-through
+     * of a known change). A load in flight is dropped either way.
+     */
+    public void update(K key, UnaryOperator<V> fn){
+        lock.lock();
+        try{
+            loading.remove(key);
+            Node<K, V> node = data.get(key);
+            if(node == null){
+                return;
+            }
+            V value = fn.apply(node.value);
+            long weight = weigher.applyAsLong(value);
+            adjustWeight(node, weight - node.weight);
+            node.weight = weight;
+            node.value = value;
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key){
+        lock.lock();
+        try{
+            loading.remove(key);
+            Node<K, V> node = data.remove(key);
+            if(node != null){
+                unlink(node);
+                onRemoval.accept(key, node.value);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops every entry, and every load in flight along with it.
+     */
+    public void invalidateAll(){
+        lock.lock();
+        try{
+            loading.clear();
+            data.forEach((key, node) -> {
+                if(data.remove(key, node)){
+                    unlink(node);
+                    onRemoval.accept(key, node.value);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long size(){
+        return data.size();
+    }
+
+    public long weightedSize(){
+        lock.lock();
+        try{
+            return windowWeight + mainWeight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hitCount(){
+        return hits.sum();
+    }
+
+    public long missCount(){
+        return misses.sum();
+    }
+
+    public long loadCount(){
+        return loads.sum();
+    }
+
+    public long totalLoadNanos(){
+        return loadNanos.sum();
+    }
+
+    public long evictionCount(){
+        return evictions.sum();
+    }
+
+    private boolean isExpired(Node<K, V> node){
+        return System.nanoTime() - node.writtenAt > expireAfterWriteNanos;
+    }
+
+    private void recordMiss(K key){
+        if(lock.tryLock()){
+            try{
+                sketch.increment(key.hashCode());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void recordHit(Node<K, V> node){
+        if(lock.tryLock()){
+            try{
+                sketch.increment(node.key.hashCode());
+                if(node.region != null){
+                    onAccess(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private void onAccess(Node<K, V> node){
+        switch(node.region){
+            case WINDOW -> window.moveToEnd(node);
+            case PROTECTED -> protectedRegion.moveToEnd(node);
+            case PROBATION -> {
+                probation.remove(node);
+                node.region = Region.PROTECTED;
+                protectedRegion.addLast(node);
+                protectedWeight += node.weight;
+                // Protected over its share: its LRU goes back on probation
+                while(protectedWeight > protectedMax && protectedRegion.head != node){
+                    Node<K, V> demoted = protectedRegion.pollFirst();
+                    protectedWeight -= demoted.weight;
+                    demoted.region = Region.PROBATION;
+                    probation.addLast(demoted);
+                }
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private void adjustWeight(Node<K, V> node, long delta){
+        if(node.region == Region.WINDOW){
+            windowWeight += delta;
+        } else {
+            mainWeight += delta;
+            if(node.region == Region.PROTECTED){
+                protectedWeight += delta;
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private void evict(){
+        while(windowWeight > windowMax){
+            Node<K, V> candidate = window.pollFirst();
+            windowWeight -= candidate.weight;
+            candidate.region = null;
+            admit(candidate);
+        }
+        // Main grew through updates: trim from probation, then protected
+        while(windowWeight + mainWeight > maximumWeight){
+            Node<K, V> victim = probation.head != null ? probation.head : protectedRegion.head;
+            if(victim == null){
+                break;
+            }
+            evictNode(victim);
+        }
+    }
+
+    // Caller holds the lock. candidate is unlinked from the window.
+    private void admit(Node<K, V> candidate){
+        long mainMax = maximumWeight - windowMax;
+        while(mainWeight + candidate.weight > mainMax){
+            Node<K, V> victim = probation.head != null ? probation.head : protectedRegion.head;
+            if(victim == null || sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode())){
+                evictNode(candidate);
+                return;
+            }
+            evictNode(victim);
+        }
+        candidate.region = Region.PROBATION;
+        probation.addLast(candidate);
+        mainWeight += candidate.weight;
+    }
+
+    // Caller holds the lock
+    private void evictNode(Node<K, V> node){
+        unlink(node);
+        if(data.remove(node.key, node)){
+            evictions.increment();
+            onRemoval.accept(node.key, node.value);
+        }
+    }
+
+    // Caller holds the lock
+    private void unlink(Node<K, V> node){
+        if(node.region == null){
+            return;
+        }
+        switch(node.region){
+            case WINDOW -> {
+                window.remove(node);
+                windowWeight -= node.weight;
+            }
+            case PROBATION -> {
+                probation.remove(node);
+                mainWeight -= node.weight;
+            }
+            case PROTECTED -> {
+                protectedRegion.remove(node);
+                mainWeight -= node.weight;
+                protectedWeight -= node.weight;
+            }
+        }
+        node.region = null;
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        long weight;
+        volatile long writtenAt = System.nanoTime();
+        Region region;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    // Intrusive doubly linked list: O(1) move / remove without allocation
+    private static final class Deque<K, V> {
+        Node<K, V> head;
+        Node<K, V> tail;
+
+        void addLast(Node<K, V> node){
+            node.prev = tail;
+            node.next = null;
+            if(tail == null){
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        Node<K, V> pollFirst(){
+            Node<K, V> first = head;
+            if(first != null){
+                remove(first);
+            }
+            return first;
+        }
+
+        void remove(Node<K, V> node){
+            if(node.prev == null){
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if(node.next == null){
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToEnd(Node<K, V> node){
+            if(tail != node){
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * Count-min sketch, 4 rows of 4-bit-ish counters (capped at 15). Every
+     * 10 x width increments all counters are halved, so old popularity fades.
+     * Not thread-safe: used under the cache lock.
+     */
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = {0x97cb3127, 0x0ba1e3f5, 0x5b3cc6e1, 0x2f2b1d7d};
+
+        private final byte[][] rows;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int width = Integer.highestOneBit(Math.max(16, expectedEntries - 1)) << 1;
+            this.rows = new byte[SEEDS.length][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        void increment(int hash){
+            boolean added = false;
+            for(int row = 0; row < rows.length; row++){
+                int i = index(hash, row);
+                if(rows[row][i] < 15){
+                    rows[row][i]++;
+                    added = true;
+                }
+            }
+            if(added && ++additions >= sampleSize){
+                reset();
+            }
+        }
+
+        int frequency(int hash){
+            int min = 15;
+            for(int row = 0; row < rows.length; row++){
+                min = Math.min(min, rows[row][index(hash, row)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row){
+            int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void reset(){
+            for(byte[] row : rows){
+                for(int i = 0; i < row.length; i++){
+                    row[i] = (byte) (row[i] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
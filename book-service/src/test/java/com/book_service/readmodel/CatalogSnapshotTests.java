@@ -0,0 +1,110 @@
+package com.book_service.readmodel;
+
+import com.book_service.entity.Book;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSnapshotTests {
+
+    @Test
+    void booksComeBackAsLoaded() {
+        Book book = new Book(7L, "The Hobbit", "Tolkien", "0261102214", new BigDecimal("12.50"), 3,
+                "admin", LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_456_000));
+        Book odd = new Book(8L, "Odd", "Someone", "ISBN-X", null, 0, null, null);
+        CatalogSnapshot snapshot = build(book, odd);
+
+        assertThat(snapshot.toList()).containsExactly(book, odd);
+        assertThat(snapshot.size()).isEqualTo(2);
+        assertThat(snapshot.inStockCount()).isEqualTo(1);
+    }
+
+    @Test
+    void applyLeavesThePreviousVersionUntouched() {
+        CatalogSnapshot v1 = build(catalog(10_000));
+        CatalogSnapshot v2 = v1.apply(Map.of(5L, book(5, "Renamed", 99), 7L, book(7, "Title 7", 0)), Set.of(6L),
+                new StringPool());
+
+        assertThat(v2.version()).isEqualTo(v1.version() + 1);
+        assertThat(v1.size()).isEqualTo(10_000);
+        assertThat(v2.size()).isEqualTo(9_999);
+        assertThat(v1.filter("Renamed", null, null)).isEmpty();
+        assertThat(v2.filter("Renamed", null, null)).extracting(Book::getId).containsExactly(5L);
+        assertThat(v1.toList().get(6).getStock()).isEqualTo(7);
+        assertThat(v2.toList().get(5).getStock()).isEqualTo(0); // id 7, after id 6 was deleted
+    }
+
+    @Test
+    void reloadedStockCanGoBackUp() {
+        CatalogSnapshot v1 = build(book(1, "A", 10));
+        CatalogSnapshot v2 = v1.apply(Map.of(1L, book(1, "A", 0)), Set.of(), new StringPool());
+        // Restock re-read after the sale: back in stock, not pinned at the lower value
+        CatalogSnapshot v3 = v2.apply(Map.of(1L, book(1, "A", 12)), Set.of(), new StringPool());
+
+        assertThat(v2.inStockCount()).isZero();
+        assertThat(v3.toList().get(0).getStock()).isEqualTo(12);
+        assertThat(v3.inStockCount()).isEqualTo(1);
+    }
+
+    @Test
+    void newBooksAreAppendedOrSlottedInById() {
+        CatalogSnapshot v1 = build(book(1, "A", 1), book(5, "E", 1));
+        CatalogSnapshot v2 = v1.apply(Map.of(9L, book(9, "I", 1), 3L, book(3, "C", 1)), Set.of(),
+                new StringPool());
+
+        assertThat(v2.toList()).extracting(Book::getId).containsExactly(1L, 3L, 5L, 9L);
+    }
+
+    @Test
+    void inStockPagesSkipSoldOutBooks() {
+        CatalogSnapshot snapshot = build(catalog(10_000));
+        // ids 1..10000, stock = id % 10: every tenth book is sold out
+        assertThat(snapshot.inStockCount()).isEqualTo(9_000);
+
+        List<Book> page = snapshot.inStock(8_995, 10);
+        assertThat(page).extracting(Book::getId).containsExactly(9995L, 9996L, 9997L, 9998L, 9999L);
+    }
+
+    @Test
+    void filterMatchesEveryCriterionAndSortsByPrice() {
+        CatalogSnapshot snapshot = build(
+                new Book(1L, "The Hobbit", "J.R.R. Tolkien", "1111111111", new BigDecimal("12.00"), 1, null, null),
+                new Book(2L, "Silmarillion", "J.R.R. Tolkien", "2222222222", new BigDecimal("9.99"), 1, null, null),
+                new Book(3L, "The Hobbit Companion", "Someone Else", "3333333333", new BigDecimal("5.00"), 1, null, null));
+
+        assertThat(snapshot.filter("HOBBIT", null, null)).extracting(Book::getId).containsExactly(1L, 3L);
+        assertThat(snapshot.filter(null, "tolkien", new BigDecimal("12"))).extracting(Book::getId)
+                .containsExactly(2L, 1L);
+        assertThat(snapshot.filter("hobbit", null, new BigDecimal("11.999"))).extracting(Book::getId)
+                .containsExactly(3L);
+    }
+
+    private static CatalogSnapshot build(Book... books) {
+        return build(List.of(books));
+    }
+
+    private static CatalogSnapshot build(List<Book> books) {
+        CatalogSnapshot.Builder builder = CatalogSnapshot.builder(new StringPool(), 1);
+        books.forEach(builder::add);
+        return builder.build();
+    }
+
+    private static List<Book> catalog(int size) {
+        return LongStream.rangeClosed(1, size)
+                .mapToObj(id -> book(id, "Title " + id, (int) (id % 10)))
+                .toList();
+    }
+
+    private static Book book(long id, String title, int stock) {
+        return new Book(id, title, "Author " + id % 100, String.format("%013d", id), new BigDecimal("10.00"), stock,
+                "admin", LocalDateTime.of(2024, 1, 1, 0, 0));
+    }
+}
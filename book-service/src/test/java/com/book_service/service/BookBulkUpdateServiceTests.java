@@ -0,0 +1,113 @@
+package com.book_service.service;
+
+import com.book_service.dto.BulkUpdateRequest;
+import com.book_service.dto.BulkUpdateStatus;
+import com.book_service.entity.Book;
+import com.book_service.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bulk repricing / restocking jobs against a real PostgreSQL: chunks smaller
+ * than the job, books on stock buckets, ISBNs that don't exist.
+ * Needs Docker (skipped otherwise).
+ */
+@SpringBootTest(properties = {
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "book.bulk-updates.chunk-size=7",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class BookBulkUpdateServiceTests {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private BookBulkUpdateService bulkUpdateService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private StockBucketService stockBucketService;
+
+    @Test
+    void percentOffEveryBookOfAnAuthor() throws Exception {
+        List<Book> books = IntStream.range(0, 20)
+                .mapToObj(i -> bookRepository.save(book(1000 + i, "Discount Author", "20.00", 5)))
+                .toList();
+        Book other = bookRepository.save(book(1100, "Someone Else", "20.00", 5));
+
+        BulkUpdateStatus status = await(bulkUpdateService.submit(new BulkUpdateRequest(
+                new BulkUpdateRequest.Filter(null, "discount author", null, null), null,
+                BulkUpdateRequest.Operation.PRICE_PERCENT, new BigDecimal("-10")), "admin"));
+
+        assertThat(status.state()).isEqualTo("COMPLETED");
+        assertThat(status.total()).isEqualTo(20);
+        assertThat(status.updated()).isEqualTo(20);
+        for(Book book : books){
+            assertThat(bookService.getBookById(book.getId()).getPrice()).isEqualByComparingTo("18.00");
+        }
+        assertThat(bookService.getBookById(other.getId()).getPrice()).isEqualByComparingTo("20.00");
+    }
+
+    @Test
+    void restockByIsbnIncludingShardedBooksAndMissingIsbns() throws Exception {
+        Book plain = bookRepository.save(book(2000, "Restock", "9.99", 3));
+        Book sharded = bookRepository.save(book(2001, "Restock", "9.99", 8));
+        stockBucketService.enable(sharded.getId(), 4);
+
+        BulkUpdateStatus status = await(bulkUpdateService.submit(new BulkUpdateRequest(null,
+                List.of(plain.getIsbn(), sharded.getIsbn(), "9999999999999"),
+                BulkUpdateRequest.Operation.STOCK_ADD, new BigDecimal("50")), "admin"));
+
+        assertThat(status.state()).isEqualTo("COMPLETED");
+        assertThat(status.updated()).isEqualTo(2);
+        assertThat(status.missingIsbns()).containsExactly("9999999999999");
+        assertThat(bookService.getBookById(plain.getId()).getStock()).isEqualTo(53);
+        assertThat(bookService.getBookById(sharded.getId()).getStock()).isEqualTo(58);
+    }
+
+    @Test
+    void emptyFilterIsRefused() {
+        assertThatThrownBy(() -> bulkUpdateService.submit(new BulkUpdateRequest(
+                new BulkUpdateRequest.Filter(null, " ", null, null), null,
+                BulkUpdateRequest.Operation.STOCK_SET, BigDecimal.ZERO), "admin"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private BulkUpdateStatus await(BulkUpdateStatus started) throws InterruptedException {
+        for(int i = 0; i < 200; i++){
+            BulkUpdateStatus status = bulkUpdateService.status(started.id()).orElseThrow();
+            if(status.finishedAt() != null){
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Bulk update " + started.id() + " did not finish");
+    }
+
+    private static Book book(int n, String author, String price, int stock) {
+        return new Book(null, "Bulk " + n, author, String.format("978009%07d", n), new BigDecimal(price), stock,
+                "test", null);
+    }
+}
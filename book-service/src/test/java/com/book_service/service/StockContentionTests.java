@@ -0,0 +1,208 @@
+package com.book_service.service;
+
+import com.book_service.dto.BulkReservation;
+import com.book_service.dto.CartLine;
+import com.book_service.entity.Book;
+import com.book_service.entity.StockReservation;
+import com.book_service.repository.BookRepository;
+import com.book_service.repository.StockReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flash sale on one title: N threads call reduceStock(hotBook, 1) at once,
+ * with more attempts than there is stock.
+ *
+ * Must hold for every thread count:
+ * - sold == initial stock (no oversell, no lost update)
+ * - every success saw a different remaining stock (single row: each decrement applied once)
+ * - final stock == 0
+ *
+ * Run once against the single books row and once with the stock split into
+ * buckets (StockBucketService).
+ *
+ * Carts: threads reserve the same two books with the lines in opposite order
+ * → no deadlock, both books sell out together, never one without the other.
+ *
+ * Holds left overdue by a vanished instance are given back by the sweep.
+ *
+ * Prints sold/s per thread count so scaling on a hot row can be compared
+ * between runs. Needs Docker (skipped otherwise).
+ */
+@SpringBootTest(properties = {
+        "eureka.client.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=32",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class StockContentionTests {
+
+    private static final int STOCK = 2_000;
+    private static final int ATTEMPTS = STOCK + STOCK / 2;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private StockBucketService stockBucketService;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Test
+    void hotBookIsNeverOversold() throws Exception {
+        hammerHotBook(0, 0);
+    }
+
+    @Test
+    void hotBookWithStockBucketsIsNeverOversold() throws Exception {
+        hammerHotBook(100, 8);
+    }
+
+    @Test
+    void cartsInOppositeLineOrderNeverDeadlock() throws Exception {
+        Book first = bookRepository.save(hotBook(200));
+        Book second = bookRepository.save(hotBook(201));
+        stockBucketService.enable(second.getId(), 4);
+
+        AtomicInteger held = new AtomicInteger();
+        AtomicInteger calls = new AtomicInteger();
+        hammer(16, () -> {
+            List<CartLine> lines = calls.incrementAndGet() % 2 == 0
+                    ? List.of(new CartLine(first.getId(), 1), new CartLine(second.getId(), 1))
+                    : List.of(new CartLine(second.getId(), 1), new CartLine(first.getId(), 1));
+            BulkReservation reservation = reservationService.reserveAll(lines, null, "test");
+            if(reservation.isHeld()){
+                held.incrementAndGet();
+                assertThat(reservation.lines()).hasSize(2);
+            }
+        });
+
+        assertThat(held.get()).isEqualTo(STOCK);
+        assertThat(bookService.getBookById(first.getId()).getStock()).isZero();
+        assertThat(bookService.getBookById(second.getId()).getStock()).isZero();
+    }
+
+    @Test
+    void overdueHoldsAreSweptWithoutTheirTimer(){
+        Book book = bookRepository.save(hotBook(300));
+        StockReservation hold = reservationService.reserve(book.getId(), 5, null, "test").orElseThrow();
+        // As if it was made by an instance that died an hour ago
+        hold.setExpiresAt(Instant.now().minus(Duration.ofHours(1)));
+        reservationRepository.save(hold);
+
+        reservationService.sweepOverdue();
+
+        assertThat(reservationService.getReservation(hold.getId()).getStatus()).isEqualTo(StockReservation.Status.EXPIRED);
+        assertThat(bookService.getBookById(book.getId()).getStock()).isEqualTo(STOCK);
+    }
+
+    private void hammerHotBook(int isbnOffset, int buckets) throws Exception {
+        System.out.println((buckets > 0 ? buckets + " stock buckets" : "single row") + ":");
+        System.out.println("threads |  sold | rejected | sold/s");
+        for(int threads : new int[]{1, 2, 4, 8, 16, 32}){
+            Book book = bookRepository.save(hotBook(isbnOffset + threads));
+            if(buckets > 0){
+                stockBucketService.enable(book.getId(), buckets);
+            }
+
+            Set<Integer> remainingSeen = ConcurrentHashMap.newKeySet();
+            AtomicInteger sold = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            long elapsedNanos = hammer(threads, () -> {
+                Optional<Integer> remaining = bookService.reduceStock(book.getId(), 1);
+                if(remaining.isPresent()){
+                    sold.incrementAndGet();
+                    remainingSeen.add(remaining.get());
+                } else {
+                    rejected.incrementAndGet();
+                }
+            });
+
+            System.out.printf("%7d | %5d | %8d | %6.0f%n", threads, sold.get(), rejected.get(),
+                    sold.get() / (elapsedNanos / 1e9));
+
+            assertThat(sold.get()).isEqualTo(STOCK);
+            assertThat(rejected.get()).isEqualTo(ATTEMPTS - STOCK);
+            if(buckets == 0){
+                // bucket totals are read without locking the other buckets: not unique
+                assertThat(remainingSeen).hasSize(STOCK).allMatch(stock -> stock >= 0 && stock < STOCK);
+            }
+            assertThat(bookService.getBookById(book.getId()).getStock()).isZero();
+        }
+    }
+
+    /**
+     * Runs ATTEMPTS calls split over the given number of threads, all released
+     * at the same time. Returns the wall-clock time of the whole run.
+     */
+    private static long hammer(int threads, Runnable attempt) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try{
+            Future<?>[] workers = new Future<?>[threads];
+            for(int t = 0; t < threads; t++){
+                int calls = ATTEMPTS / threads + (t < ATTEMPTS % threads ? 1 : 0);
+                workers[t] = pool.submit(() -> {
+                    start.await();
+                    for(int i = 0; i < calls; i++){
+                        attempt.run();
+                    }
+                    return null;
+                });
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for(Future<?> worker : workers){
+                worker.get(2, TimeUnit.MINUTES);
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Book hotBook(int n){
+        Book book = new Book();
+        book.setTitle("Flash Sale " + n);
+        book.setAuthor("Contention Test");
+        book.setIsbn(String.format("%013d", n));
+        book.setPrice(new BigDecimal("9.99"));
+        book.setStock(STOCK);
+        book.setCreatedBy("test");
+        return book;
+    }
+}
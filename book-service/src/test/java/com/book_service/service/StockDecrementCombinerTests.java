@@ -0,0 +1,155 @@
+package com.book_service.service;
+
+import com.book_service.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * StockDecrementCombiner against an in-memory "row" (no database needed):
+ * every repository call is serialized like a row lock would serialize it.
+ */
+class StockDecrementCombinerTests {
+
+    private int stock;
+    private final AtomicInteger statements = new AtomicInteger();
+
+    @Test
+    void contendedDecrementsAreBatchedWithoutOverselling() throws Exception {
+        stock = 1_000;
+        StockDecrementCombiner combiner = combiner(500, 64);
+
+        AtomicInteger sold = new AtomicInteger();
+        Set<Integer> remainingSeen = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        List<Future<?>> workers = new ArrayList<>();
+        for(int t = 0; t < 32; t++){
+            workers.add(pool.submit(() -> {
+                for(int i = 0; i < 50; i++){
+                    combiner.decrement(1L, 1).ifPresent(remaining -> {
+                        sold.incrementAndGet();
+                        remainingSeen.add(remaining);
+                    });
+                }
+                return null;
+            }));
+        }
+        for(Future<?> worker : workers){
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertThat(sold.get()).isEqualTo(1_000);
+        assertThat(remainingSeen).hasSize(1_000);
+        assertThat(stock).isZero();
+        // 1600 decrements, far fewer statements
+        assertThat(statements.get()).isLessThan(1_600 / 4);
+    }
+
+    @Test
+    void grantsInArrivalOrderWhenNotEveryoneFits() throws Exception {
+        stock = 6;
+        // Huge window: the batch is applied once all three are queued
+        StockDecrementCombiner combiner = combiner(TimeUnit.SECONDS.toMicros(10), 3);
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        List<Future<Optional<Integer>>> results = new ArrayList<>();
+        for(int quantity : new int[]{5, 3, 1}){
+            results.add(pool.submit(() -> combiner.decrement(1L, quantity)));
+            Thread.sleep(50);
+        }
+
+        assertThat(results.get(0).get(10, TimeUnit.SECONDS)).contains(1);
+        assertThat(results.get(1).get(10, TimeUnit.SECONDS)).isEmpty();
+        assertThat(results.get(2).get(10, TimeUnit.SECONDS)).contains(0);
+        assertThat(stock).isZero();
+        pool.shutdown();
+    }
+
+    @Test
+    void interruptedCallerIsStillAnsweredAndKeepsItsFlag() throws Exception {
+        stock = 6;
+        // Alone in a 10 s window: only the interrupt ends the wait early
+        StockDecrementCombiner combiner = combiner(TimeUnit.SECONDS.toMicros(10), 64);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        AtomicReference<Thread> caller = new AtomicReference<>();
+        Future<Boolean> interruptedAfter = pool.submit(() -> {
+            caller.set(Thread.currentThread());
+            assertThat(combiner.decrement(1L, 5)).contains(1);
+            return Thread.currentThread().isInterrupted();
+        });
+        Thread.sleep(100);
+        caller.get().interrupt();
+
+        assertThat(interruptedAfter.get(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(stock).isEqualTo(1);
+        pool.shutdownNow();
+    }
+
+    private StockDecrementCombiner combiner(long windowMicros, int maxBatch){
+        return new StockDecrementCombiner(fakeRepository(), noopTransactions(), new SimpleMeterRegistry(),
+                true, windowMicros, maxBatch);
+    }
+
+    private BookRepository fakeRepository(){
+        return (BookRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{BookRepository.class}, (proxy, method, args) -> {
+                    synchronized(this){
+                        statements.incrementAndGet();
+                        switch(method.getName()){
+                            case "decrementStockIfAvailable":
+                                int quantity = (Integer) args[1];
+                                if(stock < quantity){
+                                    return Optional.empty();
+                                }
+                                stock -= quantity;
+                                return Optional.of(stock);
+                            case "lockStock":
+                                return Optional.of(stock);
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+    }
+
+    private static PlatformTransactionManager noopTransactions(){
+        return new AbstractPlatformTransactionManager() {
+            @Override
+            protected Object doGetTransaction() {
+                return new Object();
+            }
+
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+            }
+
+            @Override
+            protected void doCommit(DefaultTransactionStatus status) {
+            }
+
+            @Override
+            protected void doRollback(DefaultTransactionStatus status) {
+            }
+        };
+    }
+}
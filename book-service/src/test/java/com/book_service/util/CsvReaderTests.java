@@ -0,0 +1,41 @@
+package com.book_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTests {
+
+    @Test
+    void readsPlainAndQuotedFields() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader(
+                "title,author,isbn\r\n\"Hello, World\",\"Say \"\"hi\"\"\",0261102214\nLast,,\n"));
+
+        assertThat(csv.next()).containsExactly("title", "author", "isbn");
+        assertThat(csv.next()).containsExactly("Hello, World", "Say \"hi\"", "0261102214");
+        assertThat(csv.next()).containsExactly("Last", "", "");
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    void quotedLineBreaksStayInTheFieldAndLinesAreCounted() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,\"two\nlines\"\n\nb,c"));
+
+        assertThat(csv.next()).containsExactly("a", "two\nlines");
+        assertThat(csv.recordLine()).isEqualTo(1);
+        assertThat(csv.next()).containsExactly("b", "c"); // blank line skipped, no trailing newline
+        assertThat(csv.recordLine()).isEqualTo(4);
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    void unterminatedQuoteIsAnError() {
+        CsvReader csv = new CsvReader(new StringReader("a,\"open\n"));
+
+        assertThatThrownBy(csv::next).isInstanceOf(IllegalStateException.class);
+    }
+}
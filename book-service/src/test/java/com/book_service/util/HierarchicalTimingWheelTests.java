@@ -0,0 +1,70 @@
+package com.book_service.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTests {
+
+    // 10ms x 8 slots: anything past 80ms goes through upper levels and cascades
+    private final HierarchicalTimingWheel wheel = new HierarchicalTimingWheel("test-wheel", 10, 8, Runnable::run);
+
+    @AfterEach
+    void close(){
+        wheel.close();
+    }
+
+    @Test
+    void firesEveryTimeoutNoEarlierThanItsDeadline() throws Exception {
+        Random random = new Random(42);
+        int count = 500;
+        CountDownLatch fired = new CountDownLatch(count);
+        AtomicInteger early = new AtomicInteger();
+        long start = System.currentTimeMillis();
+        for(int i = 0; i < count; i++){
+            long deadline = start + random.nextInt(2_000);
+            wheel.schedule(deadline, () -> {
+                if(System.currentTimeMillis() < deadline){
+                    early.incrementAndGet();
+                }
+                fired.countDown();
+            });
+        }
+
+        assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(early.get()).isZero();
+        assertThat(wheel.pending()).isZero();
+    }
+
+    @Test
+    void cancelledTimeoutsNeverFire() throws Exception {
+        AtomicInteger fired = new AtomicInteger();
+        long deadline = System.currentTimeMillis() + 300;
+        List<HierarchicalTimingWheel.Timeout> timeouts = new ArrayList<>();
+        for(int i = 0; i < 10; i++){
+            timeouts.add(wheel.schedule(deadline, fired::incrementAndGet));
+        }
+        for(int i = 0; i < 10; i += 2){
+            assertThat(timeouts.get(i).cancel()).isTrue();
+        }
+
+        Thread.sleep(600);
+        assertThat(fired.get()).isEqualTo(5);
+        assertThat(timeouts.get(1).cancel()).isFalse(); // already fired
+    }
+
+    @Test
+    void overdueDeadlineFiresRightAway(){
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(System.currentTimeMillis() - 1_000, fired::incrementAndGet);
+        assertThat(fired.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,25 @@
+package com.book_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTests {
+
+    @Test
+    void roundTripsValuesContainingTheSeparator(){
+        KeysetCursor cursor = new KeysetCursor("title", 42, "Dune: Messiah");
+
+        assertThat(KeysetCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThat(cursor.encode()).doesNotContain(":", "=", "+", "/");
+    }
+
+    @Test
+    void rejectsForeignTokens(){
+        assertThatThrownBy(() -> KeysetCursor.decode("not a token"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("aWQ"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,100 @@
+package com.book_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceIndexTests {
+
+    @Test
+    void scanIsOrderedByPriceThenId() {
+        PriceIndex index = new PriceIndex();
+        index.put(3, 999, 1);
+        index.put(1, 1500, 1);
+        index.put(2, 999, 1);
+        index.put(4, 500, 1);
+
+        assertThat(ids(index.scan(0, 1000, 0, Long.MIN_VALUE, false, 10))).containsExactly(4L, 2L, 3L);
+        // Continue after (999, 2)
+        assertThat(ids(index.scan(0, 1000, 999, 2, false, 10))).containsExactly(3L);
+    }
+
+    @Test
+    void putMovesABookAndRemoveDropsIt() {
+        PriceIndex index = new PriceIndex();
+        index.put(1, 500, 1);
+        index.put(2, 700, 1);
+        index.put(1, 900, 1);
+        index.remove(2);
+
+        assertThat(index.scan(0, 10_000, 0, Long.MIN_VALUE, false, 10))
+                .containsExactly(new PriceIndex.Entry(1, 900));
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void inStockScanSkipsSoldOutHints() {
+        PriceIndex index = new PriceIndex();
+        index.put(1, 100, 0);
+        index.put(2, 200, 5);
+        index.put(3, 300, PriceIndex.UNKNOWN_STOCK);
+        index.setStock(2, 0);
+
+        assertThat(ids(index.scan(0, 1000, 0, Long.MIN_VALUE, true, 10))).containsExactly(3L);
+    }
+
+    @Test
+    void matchesASortedMapUnderRandomChanges() {
+        Random random = new Random(1);
+        PriceIndex index = new PriceIndex();
+        Map<Long, long[]> books = new TreeMap<>(); // id → {price, stock}
+        for(int op = 0; op < 100_000; op++){
+            long id = 1 + random.nextInt(3000);
+            int kind = random.nextInt(10);
+            if(kind < 6){
+                long price = random.nextInt(2000);
+                int stock = random.nextInt(3);
+                index.put(id, price, stock);
+                books.put(id, new long[]{price, stock});
+            } else if(kind < 8){
+                index.remove(id);
+                books.remove(id);
+            } else {
+                int stock = random.nextInt(2);
+                index.setStock(id, stock);
+                if(books.containsKey(id)){
+                    books.get(id)[1] = stock;
+                }
+            }
+            if(op % 500 == 0){
+                long min = random.nextInt(2000);
+                long max = min + random.nextInt(500);
+                boolean inStock = random.nextBoolean();
+                int limit = 1 + random.nextInt(100);
+
+                List<PriceIndex.Entry> expected = new ArrayList<>();
+                books.forEach((bookId, book) -> {
+                    if(book[0] >= min && book[0] <= max && (!inStock || book[1] != 0)){
+                        expected.add(new PriceIndex.Entry(bookId, book[0]));
+                    }
+                });
+                expected.sort((a, b) -> a.priceCents() != b.priceCents()
+                        ? Long.compare(a.priceCents(), b.priceCents()) : Long.compare(a.id(), b.id()));
+
+                assertThat(index.scan(min, max, min, Long.MIN_VALUE, inStock, limit))
+                        .isEqualTo(expected.subList(0, Math.min(limit, expected.size())));
+                assertThat(index.size()).isEqualTo(books.size());
+            }
+        }
+    }
+
+    private static List<Long> ids(List<PriceIndex.Entry> entries) {
+        return entries.stream().map(PriceIndex.Entry::id).toList();
+    }
+}
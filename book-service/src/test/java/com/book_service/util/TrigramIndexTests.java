@@ -0,0 +1,104 @@
+package com.book_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrigramIndexTests {
+
+    private final TrigramIndex index = new TrigramIndex();
+
+    @Test
+    void findsSubstringsOfTitleAndAuthorRankedTitleFirst(){
+        index.put(1, "The Hobbit", "J.R.R. Tolkien");
+        index.put(2, "The Silmarillion", "J.R.R. Tolkien");
+        index.put(3, "Hobbits: A Field Guide", "Somebody Else");
+        index.put(4, "Tolkien: A Biography", "Humphrey Carpenter");
+
+        // whole word before word start
+        assertThat(search("hobbit")).containsExactly(1L, 3L);
+        // title match before author-only matches
+        assertThat(search("tolkien")).containsExactly(4L, 1L, 2L);
+        // every word has to match, in either field
+        assertThat(search("silma TOLK")).containsExactly(2L);
+        // same score → by title
+        assertThat(search("obbi")).containsExactly(3L, 1L);
+        assertThat(search("dragon")).isEmpty();
+    }
+
+    @Test
+    void exactTitleWinsAndAccentsAreIgnored(){
+        index.put(1, "Dune Messiah", "Frank Herbert");
+        index.put(2, "Dune", "Frank Herbert");
+        index.put(3, "Les Misérables", "Victor Hugo");
+
+        assertThat(search("dune")).containsExactly(2L, 1L);
+        assertThat(search("miserables")).containsExactly(3L);
+    }
+
+    @Test
+    void shortWordsAreMatchedAlongsideLongerOnes(){
+        index.put(1, "It", "Stephen King");
+        index.put(2, "Kitchen Confidential", "Anthony Bourdain");
+
+        assertThat(search("it king")).containsExactly(1L);
+        assertThat(search("it bourdain")).containsExactly(2L);
+    }
+
+    @Test
+    void queriesWithoutA3CharacterWordAreRefused(){
+        index.put(1, "It", "Stephen King");
+
+        assertThat(TrigramIndex.isSearchable("j k")).isFalse();
+        assertThat(TrigramIndex.isSearchable("j tolk")).isTrue();
+        assertThatThrownBy(() -> index.search("it", 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void onlyTheBestUpToTheLimitAreReturnedButAllAreCounted(){
+        for(int i = 0; i < 50; i++){
+            index.put(i, "Book " + i, "Author");
+        }
+        index.put(100, "Book", "Author");
+        index.put(101, "Bookkeeping", "Author");
+
+        TrigramIndex.Matches matches = index.search("book", 3);
+
+        // exact title, then whole word by title, the word start (Bookkeeping) last
+        assertThat(matches.keys()).containsExactly(100L, 0L, 1L);
+        assertThat(matches.total()).isEqualTo(52);
+        assertThat(index.search("book", 100).keys()).hasSize(52).endsWith(101L);
+    }
+
+    @Test
+    void updatesAndRemovalsReplaceWhatWasIndexed(){
+        index.put(1, "Old Title", "Author");
+        index.put(1, "New Title", "Author");
+        index.put(2, "Other", "Author");
+        index.remove(2);
+
+        assertThat(search("old")).isEmpty();
+        assertThat(search("new")).containsExactly(1L);
+        assertThat(search("author")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void compactsAfterManyUpdates(){
+        for(int i = 0; i < 5_000; i++){
+            index.put(i % 10, "Title " + i, "Author");
+        }
+
+        assertThat(index.size()).isEqualTo(10);
+        assertThat(search("title 4999")).containsExactly(9L);
+        assertThat(search("title 4998")).containsExactly(8L);
+        assertThat(search("title 10")).isEmpty();
+    }
+
+    private List<Long> search(String query){
+        return index.search(query, Integer.MAX_VALUE).keys();
+    }
+}
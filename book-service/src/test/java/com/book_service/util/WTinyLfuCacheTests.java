@@ -0,0 +1,174 @@
+package com.book_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WTinyLfuCacheTests {
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        WTinyLfuCache<Integer, String> cache = cache(100, s -> 1);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<String>> results = new ArrayList<>();
+        for(int i = 0; i < 16; i++){
+            results.add(pool.submit(() -> {
+                start.await();
+                return cache.getOrLoad(7, key -> {
+                    loads.incrementAndGet();
+                    sleep(100);
+                    return "seven";
+                });
+            }));
+        }
+        start.countDown();
+        for(Future<String> result : results){
+            assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("seven");
+        }
+        pool.shutdown();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.loadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void loadRacingAnInvalidationIsNotCached() throws Exception {
+        WTinyLfuCache<Integer, String> cache = cache(100, s -> 1);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<String> load = pool.submit(() -> cache.getOrLoad(1, key -> {
+            loading.countDown();
+            await(invalidated);
+            return "stale";
+        }));
+
+        loading.await();
+        cache.invalidate(1);
+        invalidated.countDown();
+
+        assertThat(load.get(10, TimeUnit.SECONDS)).isEqualTo("stale");
+        assertThat(cache.getIfPresent(1)).isNull();
+        pool.shutdown();
+    }
+
+    @Test
+    void invalidationRightAfterTheLoadReturnsStillWins() throws Exception {
+        // The weigher runs between the loader returning and the insert
+        CountDownLatch weighing = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        WTinyLfuCache<Integer, String> cache = cache(100, value -> {
+            if(value.equals("stale")){
+                weighing.countDown();
+                await(invalidated);
+            }
+            return 1;
+        });
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<String> load = pool.submit(() -> cache.getOrLoad(1, key -> "stale"));
+
+        weighing.await();
+        cache.invalidate(1);
+        invalidated.countDown();
+
+        assertThat(load.get(10, TimeUnit.SECONDS)).isEqualTo("stale");
+        assertThat(cache.getIfPresent(1)).isNull();
+        pool.shutdown();
+    }
+
+    @Test
+    void invalidateAllDropsEveryEntry(){
+        List<Integer> removed = new ArrayList<>();
+        WTinyLfuCache<Integer, String> cache = new WTinyLfuCache<>(100, s -> 1, 1_000, Duration.ofMinutes(5),
+                (k, v) -> removed.add(k));
+        for(int i = 0; i < 50; i++){
+            cache.getOrLoad(i, String::valueOf);
+        }
+
+        cache.invalidateAll();
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.weightedSize()).isZero();
+        assertThat(removed).hasSize(50);
+        assertThat(cache.getOrLoad(1, key -> "reloaded")).isEqualTo("reloaded");
+    }
+
+    @Test
+    void oneOffKeysDoNotFlushTheHotSet(){
+        WTinyLfuCache<Integer, String> cache = cache(100, s -> 1);
+        for(int round = 0; round < 20; round++){
+            for(int hot = 0; hot < 50; hot++){
+                cache.getOrLoad(hot, String::valueOf);
+            }
+        }
+        // a scan of 10x the capacity, each key seen once
+        for(int scan = 1_000; scan < 2_000; scan++){
+            cache.getOrLoad(scan, String::valueOf);
+        }
+
+        int hotLeft = 0;
+        for(int hot = 0; hot < 50; hot++){
+            if(cache.getIfPresent(hot) != null){
+                hotLeft++;
+            }
+        }
+        assertThat(hotLeft).isGreaterThanOrEqualTo(45);
+        assertThat(cache.evictionCount()).isGreaterThan(0);
+    }
+
+    @Test
+    void staysWithinItsWeight(){
+        WTinyLfuCache<Integer, String> cache = cache(10_000, String::length);
+        for(int i = 0; i < 10_000; i++){
+            cache.put(i % 3_000, "x".repeat(1 + i % 200));
+            if(i % 5 == 0){
+                cache.update(i % 1_000, value -> value + "yy");
+            }
+        }
+
+        assertThat(cache.weightedSize()).isLessThanOrEqualTo(10_000);
+    }
+
+    @Test
+    void entriesExpireAfterWrite() throws Exception {
+        WTinyLfuCache<Integer, String> cache = new WTinyLfuCache<>(10, s -> 1, 10, Duration.ofMillis(50), (k, v) -> {});
+        cache.put(1, "one");
+        Thread.sleep(100);
+
+        assertThat(cache.getIfPresent(1)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    private static WTinyLfuCache<Integer, String> cache(long maximumWeight, ToLongFunction<String> weigher){
+        return new WTinyLfuCache<>(maximumWeight, weigher, 1_000, Duration.ofMinutes(5), (k, v) -> {});
+    }
+
+    private static void sleep(long millis){
+        try{
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch){
+        try{
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
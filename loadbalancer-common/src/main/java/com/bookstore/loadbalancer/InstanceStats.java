@@ -0,0 +1,147 @@
+package com.bookstore.loadbalancer;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live statistics for one service instance (host:port).
+ *
+ * Latency: "peak EWMA" - a slower-than-average response raises the average
+ * immediately, faster ones pull it down with decay time decayNanos. When an
+ * instance gets no traffic its average drifts back to the initial latency,
+ * so an instance that had a GC pause is probed again instead of being
+ * starved forever.
+ *
+ * Load: requests currently in flight. Each request is a token; tokens that
+ * never complete (client cancelled - the load balancer lifecycle has no
+ * cancel callback) are swept after inFlightTimeoutNanos.
+ *
+ * Ejection: failureThreshold consecutive failures (connect error or 5xx)
+ * eject the instance for baseEjectionNanos x number of ejections in a row.
+ */
+public class InstanceStats {
+
+    private final String serviceId;
+    private final String host;
+    private final int port;
+
+    private final double decayNanos;
+    private final double initialLatencyNanos;
+    private final int failureThreshold;
+    private final long baseEjectionNanos;
+    private final long inFlightTimeoutNanos;
+
+    private final Set<InFlight> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextSweep;
+
+    // guarded by this
+    private double ewmaNanos;
+    private long lastUpdateNanos;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long ejectedUntilNanos;
+    private volatile int ejections;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    InstanceStats(String serviceId, String host, int port, LoadBalancerSettings settings){
+        this.serviceId = serviceId;
+        this.host = host;
+        this.port = port;
+        this.decayNanos = TimeUnit.SECONDS.toNanos(settings.decaySeconds());
+        this.initialLatencyNanos = TimeUnit.MILLISECONDS.toNanos(settings.initialLatencyMs());
+        this.failureThreshold = settings.failureThreshold();
+        this.baseEjectionNanos = TimeUnit.SECONDS.toNanos(settings.baseEjectionSeconds());
+        this.inFlightTimeoutNanos = TimeUnit.SECONDS.toNanos(settings.inFlightTimeoutSeconds());
+        this.ewmaNanos = initialLatencyNanos;
+        this.lastUpdateNanos = System.nanoTime();
+        this.nextSweep = new AtomicLong(lastUpdateNanos);
+    }
+
+    /**
+     * Lower is better: expected latency x (requests already queued + this one).
+     */
+    public double score(long now){
+        return latencyNanos(now) * (inFlight(now) + 1);
+    }
+
+    public synchronized double latencyNanos(long now){
+        double w = Math.exp(-Math.max(0, now - lastUpdateNanos) / decayNanos);
+        return ewmaNanos * w + initialLatencyNanos * (1 - w);
+    }
+
+    public int inFlight(long now){
+        long sweepAt = nextSweep.get();
+        if(now - sweepAt >= 0 && nextSweep.compareAndSet(sweepAt, now + inFlightTimeoutNanos / 4)){
+            inFlight.removeIf(token -> now - token.startNanos > inFlightTimeoutNanos);
+        }
+        return inFlight.size();
+    }
+
+    public boolean isEjected(long now){
+        return now - ejectedUntilNanos < 0;
+    }
+
+    public long ejectedForNanos(long now){
+        return Math.max(0, ejectedUntilNanos - now);
+    }
+
+    InFlight start(long now){
+        requests.increment();
+        InFlight token = new InFlight(now);
+        inFlight.add(token);
+        return token;
+    }
+
+    void complete(InFlight token, boolean failed, long now){
+        if(!inFlight.remove(token)){
+            return; // already swept
+        }
+        observe(now - token.startNanos, now);
+        if(failed){
+            failures.increment();
+            if(consecutiveFailures.incrementAndGet() >= failureThreshold){
+                consecutiveFailures.set(0);
+                int times = Math.min(ejections + 1, 10);
+                ejections = times;
+                ejectedUntilNanos = now + baseEjectionNanos * times;
+                System.out.println("⚠️ Ejecting " + serviceId + " " + host + ":" + port
+                        + " for " + TimeUnit.NANOSECONDS.toSeconds(baseEjectionNanos * times) + "s");
+            }
+        } else {
+            consecutiveFailures.set(0);
+            ejections = 0;
+        }
+    }
+
+    private synchronized void observe(long rttNanos, long now){
+        if(rttNanos > ewmaNanos){
+            // Peak: react to a slow instance at once
+            ewmaNanos = rttNanos;
+        } else {
+            double w = Math.exp(-Math.max(0, now - lastUpdateNanos) / decayNanos);
+            ewmaNanos = ewmaNanos * w + rttNanos * (1 - w);
+        }
+        lastUpdateNanos = now;
+    }
+
+    public String getServiceId() { return serviceId; }
+    public String getHost() { return host; }
+    public int getPort() { return port; }
+    public int getConsecutiveFailures() { return consecutiveFailures.get(); }
+    public long getRequests() { return requests.sum(); }
+    public long getFailures() { return failures.sum(); }
+
+    static final class InFlight {
+        final long startNanos;
+
+        InFlight(long startNanos){
+            this.startNanos = startNanos;
+        }
+    }
+}
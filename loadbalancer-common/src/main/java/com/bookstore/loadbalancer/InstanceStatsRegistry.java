@@ -0,0 +1,103 @@
+package com.bookstore.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared instance statistics + the hook that feeds them.
+ *
+ * Lives in the main application context, so every per-service load
+ * balancer context (one per called service) sees the same registry and the
+ * same lifecycle bean. Not a @Component: this package is outside the
+ * services' component scan, each service @Imports it in its LoadBalancerConfig.
+ *
+ * Lifecycle (called by Spring Cloud around every load-balanced call):
+ *   onStartRequest → instance chosen, request goes out: in-flight + 1
+ *   onComplete     → latency recorded, in-flight - 1, failure counted
+ * The in-flight token travels in the request's attributes map.
+ */
+public class InstanceStatsRegistry implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private static final String IN_FLIGHT_ATTR = InstanceStatsRegistry.class.getName() + ".inFlight";
+
+    // serviceId → (host:port → stats)
+    private final Map<String, Map<String, InstanceStats>> services = new ConcurrentHashMap<>();
+    private final LoadBalancerSettings settings;
+
+    public InstanceStatsRegistry(@Value("${load-balancer.peak-ewma.decay-seconds:10}") long decaySeconds,
+                                 @Value("${load-balancer.peak-ewma.initial-latency-ms:50}") long initialLatencyMs,
+                                 @Value("${load-balancer.ejection.consecutive-failures:5}") int failureThreshold,
+                                 @Value("${load-balancer.ejection.base-seconds:30}") long baseEjectionSeconds,
+                                 @Value("${load-balancer.in-flight-timeout-seconds:60}") long inFlightTimeoutSeconds) {
+        this.settings = new LoadBalancerSettings(decaySeconds, initialLatencyMs, failureThreshold,
+                baseEjectionSeconds, inFlightTimeoutSeconds);
+    }
+
+    public InstanceStats stats(ServiceInstance instance){
+        String serviceId = instance.getServiceId();
+        return services.computeIfAbsent(serviceId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(instance.getHost() + ":" + instance.getPort(),
+                        key -> new InstanceStats(serviceId, instance.getHost(), instance.getPort(), settings));
+    }
+
+    public Map<String, Map<String, InstanceStats>> getServices(){
+        return services;
+    }
+
+    // ==== LoadBalancerLifecycle ====
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        Map<String, Object> attributes = attributes(request);
+        if(attributes == null || lbResponse == null || !lbResponse.hasServer()){
+            return;
+        }
+        InstanceStats stats = stats(lbResponse.getServer());
+        attributes.put(IN_FLIGHT_ATTR, new Started(stats, stats.start(System.nanoTime())));
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completion) {
+        if(completion.status() == CompletionContext.Status.DISCARD){
+            return;
+        }
+        Map<String, Object> attributes = attributes(completion.getLoadBalancerRequest());
+        if(attributes == null || !(attributes.remove(IN_FLIGHT_ATTR) instanceof Started started)){
+            return;
+        }
+        boolean failed = completion.status() == CompletionContext.Status.FAILED
+                || (completion.getClientResponse() instanceof ResponseData response
+                    && response.getHttpStatus() != null
+                    && response.getHttpStatus().is5xxServerError());
+        started.stats.complete(started.token, failed, System.nanoTime());
+    }
+
+    private static Map<String, Object> attributes(Request<?> request){
+        if(request != null && request.getContext() instanceof RequestDataContext context
+                && context.getClientRequest() != null){
+            return context.getClientRequest().getAttributes();
+        }
+        return null;
+    }
+
+    private record Started(InstanceStats stats, InstanceStats.InFlight token) {
+    }
+}
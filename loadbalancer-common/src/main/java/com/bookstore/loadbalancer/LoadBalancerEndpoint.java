@@ -0,0 +1,51 @@
+package com.bookstore.loadbalancer;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /actuator/loadbalancer
+ *
+ * Current score of every instance this application has called, per service.
+ * Lower score = preferred.
+ */
+@Endpoint(id = "loadbalancer")
+public class LoadBalancerEndpoint {
+
+    private final InstanceStatsRegistry registry;
+
+    public LoadBalancerEndpoint(InstanceStatsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public Map<String, List<Map<String, Object>>> scores(){
+        long now = System.nanoTime();
+        Map<String, List<Map<String, Object>>> result = new TreeMap<>();
+        registry.getServices().forEach((serviceId, instances) -> {
+            List<Map<String, Object>> list = new ArrayList<>();
+            instances.forEach((address, stats) -> {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("instance", address);
+                entry.put("score", Math.round(stats.score(now) / 1_000.0) / 1_000.0);
+                entry.put("ewmaLatencyMs", Math.round(stats.latencyNanos(now) / 1_000.0) / 1_000.0);
+                entry.put("inFlight", stats.inFlight(now));
+                entry.put("requests", stats.getRequests());
+                entry.put("failures", stats.getFailures());
+                entry.put("consecutiveFailures", stats.getConsecutiveFailures());
+                entry.put("ejected", stats.isEjected(now));
+                entry.put("ejectedForSeconds", TimeUnit.NANOSECONDS.toSeconds(stats.ejectedForNanos(now)));
+                list.add(entry);
+            });
+            result.put(serviceId, list);
+        });
+        return result;
+    }
+}
@@ -0,0 +1,11 @@
+package com.bookstore.loadbalancer;
+
+/**
+ * Tuning for the peak-EWMA load balancer (load-balancer.* in application.yml).
+ */
+public record LoadBalancerSettings(long decaySeconds,
+                                   long initialLatencyMs,
+                                   int failureThreshold,
+                                   long baseEjectionSeconds,
+                                   long inFlightTimeoutSeconds) {
+}
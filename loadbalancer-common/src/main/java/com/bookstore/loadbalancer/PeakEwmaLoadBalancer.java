@@ -0,0 +1,105 @@
+package com.bookstore.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-two-choices over peak-EWMA latency x in-flight requests.
+ *
+ * Round robin keeps sending 1/N of the traffic to a pod that is in a GC
+ * pause. Here every request:
+ * 1. Drops ejected instances (unless that would leave none)
+ * 2. Picks two instances at random
+ * 3. Sends to the one with the lower score (see InstanceStats#score)
+ *
+ * Two random candidates instead of "best of all" avoids the herd effect
+ * where every caller thread piles onto the same momentarily-fastest pod.
+ *
+ * A hedged attempt (api-gateway's HedgingFilter) carries the primary's
+ * "host:port" under HEDGE_EXCLUDE in its Reactor context and never goes to
+ * that instance unless it is the only one. Context, not a header: clients
+ * can't set it and it never reaches the service. Callers that don't hedge
+ * never set it.
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    public static final String HEDGE_EXCLUDE = PeakEwmaLoadBalancer.class.getName() + ".HEDGE_EXCLUDE";
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final InstanceStatsRegistry registry;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                String serviceId,
+                                InstanceStatsRegistry registry) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return Mono.deferContextual(context -> {
+            String excluded = context.getOrDefault(HEDGE_EXCLUDE, null);
+            return supplier.get(request).next().map(instances -> choose(instances, excluded));
+        });
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances, String excluded){
+        if(instances.isEmpty()){
+            System.out.println("⚠️ No servers available for service: " + serviceId);
+            return new EmptyResponse();
+        }
+        long now = System.nanoTime();
+        List<ServiceInstance> candidates = healthy(instances, now);
+        if(excluded != null && candidates.size() > 1){
+            candidates = candidates.stream()
+                    .filter(instance -> !excluded.equals(instance.getHost() + ":" + instance.getPort()))
+                    .toList();
+        }
+        int n = candidates.size();
+        if(n == 1){
+            return new DefaultResponse(candidates.get(0));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(n);
+        int j = random.nextInt(n - 1);
+        if(j >= i){
+            j++;
+        }
+        ServiceInstance a = candidates.get(i);
+        ServiceInstance b = candidates.get(j);
+        return new DefaultResponse(registry.stats(a).score(now) <= registry.stats(b).score(now) ? a : b);
+    }
+
+    private List<ServiceInstance> healthy(List<ServiceInstance> instances, long now){
+        List<ServiceInstance> healthy = null;
+        for(int k = 0; k < instances.size(); k++){
+            ServiceInstance instance = instances.get(k);
+            boolean ejected = registry.stats(instance).isEjected(now);
+            if(ejected && healthy == null){
+                healthy = new ArrayList<>(instances.subList(0, k));
+            } else if(!ejected && healthy != null){
+                healthy.add(instance);
+            }
+        }
+        if(healthy == null){
+            return instances; // nothing ejected - no copy
+        }
+        return healthy.isEmpty() ? instances : healthy; // all ejected → better than failing every call
+    }
+}
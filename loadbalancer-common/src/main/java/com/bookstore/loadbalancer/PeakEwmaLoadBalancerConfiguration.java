@@ -0,0 +1,33 @@
+package com.bookstore.loadbalancer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Per-service load balancer configuration (one child context per called service).
+ *
+ * NOT a @Configuration on purpose: it is registered through
+ * @LoadBalancerClients in LoadBalancerConfig and must not be picked up by
+ * component scanning in the main context.
+ *
+ * load-balancer.strategy=round-robin falls back to Spring's default.
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "load-balancer.strategy", havingValue = "peak-ewma", matchIfMissing = true)
+    public ReactorLoadBalancer<ServiceInstance> peakEwmaLoadBalancer(Environment environment,
+                                                                     LoadBalancerClientFactory clientFactory,
+                                                                     InstanceStatsRegistry registry){
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(
+                clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId,
+                registry);
+    }
+}
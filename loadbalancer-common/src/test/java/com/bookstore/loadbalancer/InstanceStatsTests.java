@@ -0,0 +1,89 @@
+package com.bookstore.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Times are passed in explicitly, offsets from "now": 50 ms initial latency,
+ * 10 s decay, ejection after 3 failures in a row for 30 s x ejections,
+ * abandoned requests swept after 60 s.
+ */
+class InstanceStatsTests {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final InstanceStats stats = new InstanceStats("BOOK-SERVICE", "10.0.0.1", 8082,
+            new LoadBalancerSettings(10, 50, 3, 30, 60));
+    private final long now = System.nanoTime();
+
+    @Test
+    void consecutiveFailuresEjectTheInstance(){
+        fail(2);
+        assertThat(stats.isEjected(now)).isFalse();
+
+        fail(1);
+        assertThat(stats.isEjected(now)).isTrue();
+        assertThat(stats.ejectedForNanos(now)).isEqualTo(30 * SECOND);
+        assertThat(stats.isEjected(now + 31 * SECOND)).isFalse();
+    }
+
+    @Test
+    void ejectionGrowsWhileTheInstanceKeepsFailing(){
+        fail(3);
+        fail(3);
+
+        assertThat(stats.ejectedForNanos(now)).isEqualTo(60 * SECOND);
+        assertThat(stats.getFailures()).isEqualTo(6);
+    }
+
+    @Test
+    void aSuccessResetsTheFailureStreak(){
+        fail(2);
+        stats.complete(stats.start(now), false, now);
+        fail(2);
+
+        assertThat(stats.isEjected(now)).isFalse();
+        assertThat(stats.getConsecutiveFailures()).isEqualTo(2);
+    }
+
+    @Test
+    void slowResponseCountsAtOnceAndFadesWhenIdle(){
+        stats.complete(stats.start(now), false, now + 200 * MS);
+
+        assertThat(stats.latencyNanos(now + 200 * MS)).isEqualTo(200.0 * MS);
+        // 100 s without traffic: back to the initial 50 ms, probed again
+        assertThat(stats.latencyNanos(now + 100 * SECOND)).isCloseTo(50.0 * MS, within(0.1 * MS));
+    }
+
+    @Test
+    void scoreGrowsWithRequestsInFlight(){
+        double idle = stats.score(now);
+        stats.start(now);
+        stats.start(now);
+
+        assertThat(stats.inFlight(now)).isEqualTo(2);
+        assertThat(stats.score(now)).isEqualTo(3 * idle);
+    }
+
+    @Test
+    void abandonedRequestsAreSwept(){
+        InstanceStats.InFlight abandoned = stats.start(now);
+        assertThat(stats.inFlight(now)).isEqualTo(1);
+
+        assertThat(stats.inFlight(now + 61 * SECOND)).isZero();
+        // A late completion of a swept request changes nothing
+        stats.complete(abandoned, true, now + 62 * SECOND);
+        assertThat(stats.getFailures()).isZero();
+    }
+
+    private void fail(int times){
+        for(int i = 0; i < times; i++){
+            stats.complete(stats.start(now), true, now);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.bookstore.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.cloud.loadbalancer.support.SimpleObjectProvider;
+import reactor.util.context.Context;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two instances, so both are always the random pair and the lower score wins.
+ */
+class PeakEwmaLoadBalancerTests {
+
+    private final ServiceInstance a = instance("a", "10.0.0.1");
+    private final ServiceInstance b = instance("b", "10.0.0.2");
+    private final InstanceStatsRegistry registry = new InstanceStatsRegistry(10, 50, 3, 30, 60);
+    private final PeakEwmaLoadBalancer balancer = new PeakEwmaLoadBalancer(
+            new SimpleObjectProvider<>(ServiceInstanceListSuppliers.from("BOOK-SERVICE", a, b)),
+            "BOOK-SERVICE", registry);
+
+    @Test
+    void sendsToTheLessLoadedInstance(){
+        for(int i = 0; i < 5; i++){
+            registry.stats(a).start(System.nanoTime());
+        }
+
+        for(int i = 0; i < 20; i++){
+            assertThat(balancer.choose(List.of(a, b), null).getServer()).isSameAs(b);
+        }
+    }
+
+    @Test
+    void skipsEjectedInstancesUnlessAllAre(){
+        eject(a);
+        for(int i = 0; i < 20; i++){
+            assertThat(balancer.choose(List.of(a, b), null).getServer()).isSameAs(b);
+        }
+
+        eject(b);
+        assertThat(balancer.choose(List.of(a, b), null).hasServer()).isTrue();
+    }
+
+    @Test
+    void hedgedAttemptAvoidsThePrimary(){
+        for(int i = 0; i < 20; i++){
+            ServiceInstance chosen = balancer.choose(new DefaultRequest<>())
+                    .contextWrite(Context.of(PeakEwmaLoadBalancer.HEDGE_EXCLUDE, "10.0.0.1:8082"))
+                    .block()
+                    .getServer();
+            assertThat(chosen).isSameAs(b);
+        }
+        // The only instance left is still better than no answer
+        assertThat(balancer.choose(List.of(a), "10.0.0.1:8082").getServer()).isSameAs(a);
+    }
+
+    @Test
+    void noInstancesGivesAnEmptyResponse(){
+        assertThat(balancer.choose(List.of(), null).hasServer()).isFalse();
+    }
+
+    private void eject(ServiceInstance instance){
+        InstanceStats stats = registry.stats(instance);
+        for(int i = 0; i < 3; i++){
+            stats.complete(stats.start(System.nanoTime()), true, System.nanoTime());
+        }
+    }
+
+    private static ServiceInstance instance(String id, String host){
+        return new DefaultServiceInstance(id, "BOOK-SERVICE", host, 8082, false);
+    }
+}
@@ -22,7 +22,11 @@ public class NotificationService {
         log.info("   ORDER NOTIFICATION RECEIVED");
         log.info("   Timestamp: {}", timestamp);
         log.info("   User: {}", event.getUserId());
-        log.info("   Book: {} (ID: {})", event.getBookTitle(),event.getBookId());
+        if(event.getLines() == null){
+            log.info("   Book: {} (ID: {})", event.getBookTitle(),event.getBookId());
+        } else {
+            log.info("   Cart: {} ({} books)", event.getCartId(), event.getLines().size());
+        }
         log.info("   Quantity: {}", event.getQuantity());
         log.info("============================================");
 
@@ -43,8 +47,14 @@ public class NotificationService {
         System.out.println("   Thank you for your order!");
         System.out.println("   ");
         System.out.println("   Order Details:");
-        System.out.println("   - Book: " + event.getBookTitle());
-        System.out.println("   - Quantity: " + event.getQuantity());
+        if(event.getLines() == null){
+            System.out.println("   - Book: " + event.getBookTitle());
+            System.out.println("   - Quantity: " + event.getQuantity());
+        } else {
+            for(OrderPlacedEvent.Line line : event.getLines()){
+                System.out.println("   - Book: " + line.getBookTitle() + " x " + line.getQuantity());
+            }
+        }
         System.out.println("   - Order ID: " + event.getOrderId());
         System.out.println("   ");
         System.out.println("   Your order will be processed shortly.");
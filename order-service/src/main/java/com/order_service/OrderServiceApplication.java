@@ -3,9 +3,11 @@ package com.order_service;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableScheduling // retries reservation confirms (OrderService)
 public class OrderServiceApplication {
 
 	public static void main(String[] args) {
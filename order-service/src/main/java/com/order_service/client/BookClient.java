@@ -1,10 +1,17 @@
 package com.order_service.client;
 
 
-import com.order_service.dto.BookDTO;
+import com.order_service.dto.BulkReservationDTO;
+import com.order_service.dto.CartLineDTO;
+import com.order_service.dto.ReservationSnapshotDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.List;
 
 @Service
 public class BookClient {
@@ -12,42 +19,88 @@ public class BookClient {
     @Autowired
     private WebClient.Builder webClientBuilder;
 
-    public BookDTO getBookById(Long bookId){
+    /**
+     * ONE call to look the book up and hold its stock: book-service validates
+     * and holds atomically and answers with the book snapshot.
+     *
+     * @return the snapshot (reservationId null → not enough stock),
+     *         or null if the book doesn't exist
+     */
+    public ReservationSnapshotDTO checkAndReserve(Long bookId,int quantity){
         return webClientBuilder.build()
-                .get()
-                .uri("http://book-service/books/{id}",bookId)
+                .post()
+                .uri("http://book-service/books/{id}/check-and-reserve?quantity={qty}",bookId,quantity)
                 .retrieve()
-                .bodyToMono(BookDTO.class)
+                // 409 = not enough stock; the body is still a snapshot
+                .onStatus(status -> status.value() == 409, response -> Mono.empty())
+                .bodyToMono(ReservationSnapshotDTO.class)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
                 .block();
     }
+
     /**
-     * Calls the Book Service using WebClient to fetch a book by its ID.
+     * ONE call for a whole cart: book-service holds every line in a single
+     * transaction (or none of them).
      *
-     * Flow:
-     * 1. Builds a WebClient instance
-     * 2. Sends HTTP GET request to: http://book-service/books/{id}
-     * 3. Replaces {id} with provided bookId
-     * 4. Converts JSON response body into BookDTO
-     * 5. Blocks the thread and returns BookDTO
-     * 6. Block() - wait for response . Extract value from Mono,Mono - > container for one value in future
-     * Note:
-     * Uses blocking call (.block()), suitable for non-reactive / simple services.
-     * Retrieve() - Execute Request ,Prepare to read response
+     * @return the reservation (groupId null → some lines short),
+     *         or null if a book doesn't exist
+     */
+    public BulkReservationDTO reserveAll(List<CartLineDTO> lines){
+        return webClientBuilder.build()
+                .post()
+                .uri("http://book-service/books/reservations/bulk")
+                .bodyValue(lines)
+                .retrieve()
+                // 409 = some line short; the body still lists which
+                .onStatus(status -> status.value() == 409, response -> Mono.empty())
+                .bodyToMono(BulkReservationDTO.class)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .block();
+    }
+
+    /**
+     * Outcome of a confirm / release call:
+     * DONE    → book-service acknowledged it
+     * REFUSED → book-service answered it can't (4xx: released, expired, unknown) - retrying won't help
+     * FAILED  → no answer (down, timeout, 5xx) - safe to retry later
      */
+    public enum Settlement { DONE, REFUSED, FAILED }
+
+    public Settlement confirmReservation(Long reservationId){
+        return reservationCall("reservations",reservationId,"confirm");
+    }
 
-    public boolean reduceStock(Long bookId,int quantity){
+    public Settlement releaseReservation(Long reservationId){
+        return reservationCall("reservations",reservationId,"release");
+    }
+
+    public Settlement confirmReservationGroup(String groupId){
+        return reservationCall("reservations/groups",groupId,"confirm");
+    }
+
+    public Settlement releaseReservationGroup(String groupId){
+        return reservationCall("reservations/groups",groupId,"release");
+    }
+
+    // All calls are idempotent on the book-service side: safe to retry
+    private Settlement reservationCall(String resource,Object id,String action){
         try{
             webClientBuilder.build()
                     .post()
-                    .uri("http://book-service/books/{id}/reduce-stock?quantity={qty}",bookId,quantity)
+                    .uri("http://book-service/books/" + resource + "/{id}/{action}",id,action)
                     .retrieve()
                     .bodyToMono(Void.class)
+                    .retryWhen(Retry.max(2).filter(e -> !isClientError(e)))
                     .block();
-            return true;
+            return Settlement.DONE;
         } catch (Exception e) {
-            System.err.println("Failed to reduce stock: " + e.getMessage());
-            return false;
+            System.err.println("Failed to " + action + " reservation " + id + ": " + e.getMessage());
+            return isClientError(e) ? Settlement.REFUSED : Settlement.FAILED;
         }
     }
 
+    private static boolean isClientError(Throwable e){
+        return e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError();
+    }
+
 }
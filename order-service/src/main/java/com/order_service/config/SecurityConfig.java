@@ -24,7 +24,7 @@ public class SecurityConfig {
         http
                 .csrf(csrf->csrf.disable())
                 .authorizeHttpRequests(auth->auth
-                        .requestMatchers("/orders/health").permitAll()
+                        .requestMatchers("/orders/health","/actuator/health","/actuator/loadbalancer").permitAll()
                         .anyRequest().authenticated()
                 )
                 .formLogin(form->form.disable())
@@ -1,6 +1,7 @@
 package com.order_service.controller;
 
 
+import com.order_service.dto.CartLineDTO;
 import com.order_service.entity.Order;
 import com.order_service.service.OrderService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -43,6 +44,32 @@ public class OrderController {
         }
     }
 
+    /**
+     * Place Cart Order - USER/ADMIN
+     * POST /orders/cart
+     * Body: [{"bookId":1,"quantity":2},{"bookId":7,"quantity":1}]
+     * → one order per book, all placed or none
+     */
+    @PostMapping("/cart")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public ResponseEntity<?> placeCartOrder(@RequestBody List<CartLineDTO> lines){
+        try {
+            String userId = request.getHeader("X-User-Id");
+            if(userId == null){
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error","User ID header missing"));
+            }
+            if(lines == null || lines.isEmpty()){
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error","Cart is empty"));
+            }
+            return ResponseEntity.ok(orderService.placeCartOrder(lines,userId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error",e.getMessage()));
+        }
+    }
+
     @GetMapping("/my-orders")
     @PreAuthorize("hasAnyRole('USER','ADMIN')")
     public ResponseEntity<List<Order>> getMyOrders(){
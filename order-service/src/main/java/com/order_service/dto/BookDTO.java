@@ -1,15 +0,0 @@
-package com.order_service.dto;
-
-import lombok.Data;
-
-import java.math.BigDecimal;
-
-@Data
-public class BookDTO {
-    private Long id;
-    private String title;
-    private String author;
-    private String isbn;
-    private BigDecimal price;
-    private Integer stock;
-}
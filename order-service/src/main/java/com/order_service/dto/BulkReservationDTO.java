@@ -0,0 +1,18 @@
+package com.order_service.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Answer of book-service's cart reservation. groupId is null when any line
+ * was short; lines then lists only the short books with what is available.
+ */
+@Data
+public class BulkReservationDTO {
+    private String groupId;
+    private String status;
+    private Instant expiresAt;
+    private List<ReservationSnapshotDTO> lines;
+}
@@ -0,0 +1,17 @@
+package com.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a cart order: which book and how many.
+ * Same shape as book-service's CartLine.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLineDTO {
+    private Long bookId;
+    private Integer quantity;
+}
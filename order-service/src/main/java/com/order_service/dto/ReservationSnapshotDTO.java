@@ -0,0 +1,24 @@
+package com.order_service.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Answer of book-service's check-and-reserve: the stock hold plus the book
+ * fields an order needs. reservationId is null when there wasn't enough stock
+ * (remainingStock is then what is available).
+ */
+@Data
+public class ReservationSnapshotDTO {
+    private Long reservationId;
+    private String status;
+    private Instant expiresAt;
+    private Long bookId;
+    private String title;
+    private String author;
+    private BigDecimal price;
+    private Integer quantity;
+    private Integer remainingStock;
+}
@@ -6,7 +6,10 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name="orders")
+// status + placed_at: retryPendingConfirms looks up old CONFIRM_PENDING rows
+@Table(name="orders", indexes = {
+        @Index(name = "idx_order_status_placed", columnList = "status, placed_at")
+})
 @Data
 public class Order {
     @Id
@@ -22,9 +25,19 @@ public class Order {
     @Column(nullable = false)
     private Integer quantity;
 
+    // Lines of one cart order share it (= book-service reservation group); null for single orders
+    @Column(name = "cart_id",length = 36)
+    private String cartId;
+
+    // book-service reservation of a single order; cart orders use cartId (the reservation group)
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
     @Column(name = "user_id",nullable = false)
     private String userId;
 
+    // CONFIRM_PENDING until book-service confirms the reservation → PLACED
+    // (or CONFIRM_FAILED if it refuses: the hold was already gone)
     @Column(nullable = false)
     private String status = "PLACED";
 
@@ -1,8 +1,11 @@
 package com.order_service.event;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.util.List;
 
 @Data
 public class OrderPlacedEvent implements Serializable {
@@ -11,6 +14,21 @@ public class OrderPlacedEvent implements Serializable {
     private Long bookId;
     private String bookTitle;
     private Integer quantity;
+
+    // Cart orders: one event for the whole cart. orderId is the first line's,
+    // quantity the total, bookId/bookTitle are null; the books are in lines.
+    private String cartId;
+    private List<Line> lines;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line implements Serializable {
+        private Long orderId;
+        private Long bookId;
+        private String bookTitle;
+        private Integer quantity;
+    }
 }
 
 /**
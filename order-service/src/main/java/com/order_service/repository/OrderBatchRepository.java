@@ -0,0 +1,62 @@
+package com.order_service.repository;
+
+import com.order_service.entity.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts the lines of a cart order in one JDBC batch.
+ *
+ * WHY: orders use IDENTITY ids, so Hibernate would send one INSERT per line.
+ * Runs in the caller's transaction (same connection as JPA).
+ */
+@Repository
+public class OrderBatchRepository {
+
+    private static final String INSERT_ORDER =
+            "INSERT INTO orders (book_id, book_title, quantity, cart_id, user_id, status, placed_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts every order and sets its generated id.
+     */
+    public void insertAll(List<Order> orders){
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_ORDER, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Order order = orders.get(i);
+                        ps.setLong(1, order.getBookId());
+                        ps.setString(2, order.getBookTitle());
+                        ps.setInt(3, order.getQuantity());
+                        ps.setString(4, order.getCartId());
+                        ps.setString(5, order.getUserId());
+                        ps.setString(6, order.getStatus());
+                        ps.setTimestamp(7, Timestamp.valueOf(order.getPlacedAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return orders.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> ids = keys.getKeyList();
+        for(int i = 0; i < orders.size(); i++){
+            orders.get(i).setId(((Number) ids.get(i).get("id")).longValue());
+        }
+    }
+}
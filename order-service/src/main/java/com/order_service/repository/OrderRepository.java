@@ -2,11 +2,30 @@ package com.order_service.repository;
 
 import com.order_service.entity.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order,Long> {
     List<Order> findByUserId(String userId);
+
+    List<Order> findByCartIdAndStatus(String cartId, String status);
+
+    // Oldest first, cart lines together; rows another instance is retrying are skipped
+    @Query(value = "SELECT * FROM orders WHERE status = :status AND placed_at < :before"
+            + " ORDER BY placed_at, cart_id, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Order> lockOldest(@Param("status") String status,
+                           @Param("before") LocalDateTime before,
+                           @Param("limit") int limit);
+
+    // Conditional: a retry that lost the race to another one updates 0 rows
+    @Modifying
+    @Query(value = "UPDATE orders SET status = :to WHERE id IN (:ids) AND status = :from", nativeQuery = true)
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to);
 }
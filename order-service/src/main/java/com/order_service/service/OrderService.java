@@ -2,71 +2,246 @@ package com.order_service.service;
 
 
 import com.order_service.client.BookClient;
-import com.order_service.dto.BookDTO;
+import com.order_service.dto.BulkReservationDTO;
+import com.order_service.dto.CartLineDTO;
+import com.order_service.dto.ReservationSnapshotDTO;
 import com.order_service.entity.Order;
 import com.order_service.event.OrderPlacedEvent;
 import com.order_service.kafka.KafkaProducerService;
+import com.order_service.repository.OrderBatchRepository;
 import com.order_service.repository.OrderRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
+    static final String CONFIRM_PENDING = "CONFIRM_PENDING";
+    static final String PLACED = "PLACED";
+    static final String CONFIRM_FAILED = "CONFIRM_FAILED";
+
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderBatchRepository orderBatchRepository;
+
     @Autowired
     private BookClient bookClient;
 
     @Autowired
     private KafkaProducerService kafkaProducer;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${orders.confirm-retry-grace-seconds:10}")
+    private long confirmRetryGraceSeconds;
+
+    @Value("${orders.confirm-retry-batch:100}")
+    private int confirmRetryBatch;
+
     @Transactional
     public Order placeOrder(Long bookId, int quantity, String userId){
-        //Step 1: Check book availability (SYNC REST call via WebClient)
-
-        BookDTO book = bookClient.getBookById(bookId);
+        //Step 1+2: Check availability AND hold the stock in one call (SYNC REST via WebClient)
+        // Hold is confirmed after commit, given back if this order fails
+        ReservationSnapshotDTO book = bookClient.checkAndReserve(bookId,quantity);
         if(book == null){
             throw new RuntimeException("Book not found with ID: " + bookId);
         }
 
-        if(book.getStock() < quantity){
+        if(book.getReservationId() == null){
             throw new RuntimeException("Insufficient stock.Available: "+
-                    book.getStock() + ", Requested: " + quantity);
+                    book.getRemainingStock() + ", Requested: " + quantity);
         }
+        Long reservationId = book.getReservationId();
 
-        // Step 2: Reduce stock
-        boolean stockReduced = bookClient.reduceStock(bookId,quantity);
-        if(!stockReduced){
-            throw new RuntimeException("Failed to reduce stock");
-        }
-
-        // Step 3: Save order to database
+        // Step 3: Save order to database (PLACED once book-service confirms the hold)
         Order order = new Order();
         order.setBookId(bookId);
         order.setBookTitle(book.getTitle());
         order.setQuantity(quantity);
+        order.setReservationId(reservationId);
         order.setUserId(userId);
-        order.setStatus("PLACED");
+        order.setStatus(CONFIRM_PENDING);
         Order savedOrder = orderRepository.save(order);
-
-        // Step 4: Publish kafka event (Async)
-        OrderPlacedEvent event = new OrderPlacedEvent();
-        event.setOrderId(savedOrder.getId());
-        event.setUserId(userId);
-        event.setBookId(bookId);
-        event.setBookTitle(book.getTitle());
-        event.setQuantity(quantity);
-        kafkaProducer.sendOrderEvent(event);
+        // Step 4: Kafka event once the hold is confirmed (see recordSettlement)
+        settleAfterCompletion(List.of(savedOrder), () -> bookClient.confirmReservation(reservationId),
+                () -> bookClient.releaseReservation(reservationId));
 
         System.out.println("✅ Order placed successfully: "  + savedOrder.getId());
         return savedOrder;
     }
 
+    /**
+     * Cart order: one order row per book, all placed or none.
+     *
+     * Flow:
+     * 1. ONE book-service call reserves every line (one transaction there,
+     *    lines locked in book ID order)
+     * 2. Order lines inserted in one JDBC batch, sharing cart_id
+     * 3. ONE Kafka event for the whole cart, once the group is confirmed
+     * Commit → the reservation group is confirmed, rollback → released.
+     */
+    @Transactional
+    public List<Order> placeCartOrder(List<CartLineDTO> lines, String userId){
+        BulkReservationDTO reservation = bookClient.reserveAll(lines);
+        if(reservation == null){
+            throw new RuntimeException("Cart contains a book that doesn't exist");
+        }
+
+        if(reservation.getGroupId() == null){
+            throw new RuntimeException("Insufficient stock for: " + reservation.getLines().stream()
+                    .map(line -> line.getTitle() + " (Available: " + line.getRemainingStock()
+                            + ", Requested: " + line.getQuantity() + ")")
+                    .collect(Collectors.joining(", ")));
+        }
+        String groupId = reservation.getGroupId();
+
+        // Book-service merged the lines per book and sorted them: save what was reserved
+        List<Order> orders = new ArrayList<>();
+        for(ReservationSnapshotDTO line : reservation.getLines()){
+            Order order = new Order();
+            order.setBookId(line.getBookId());
+            order.setBookTitle(line.getTitle());
+            order.setQuantity(line.getQuantity());
+            order.setCartId(groupId);
+            order.setUserId(userId);
+            order.setStatus(CONFIRM_PENDING);
+            orders.add(order);
+        }
+        orderBatchRepository.insertAll(orders);
+        settleAfterCompletion(orders, () -> bookClient.confirmReservationGroup(groupId),
+                () -> bookClient.releaseReservationGroup(groupId));
+
+        System.out.println("✅ Cart order placed successfully: " + groupId + " (" + orders.size() + " books)");
+        return orders;
+    }
+
+    /**
+     * Commit → confirm the reservation, rollback (order save failed) →
+     * release it. An unreachable book-service on release is covered by the
+     * reservation TTL.
+     *
+     * The orders are saved CONFIRM_PENDING: a confirm that doesn't get through
+     * leaves them so, and retryPendingConfirms tries again until book-service
+     * answers - well inside the reservation TTL.
+     */
+    private void settleAfterCompletion(List<Order> orders, Supplier<BookClient.Settlement> confirm, Runnable release){
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if(status == STATUS_COMMITTED){
+                    // The order's own transaction is over: status update in a new one
+                    recordSettlement(orders, confirm.get(), TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                } else {
+                    release.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Reservation confirms that didn't get through, again: cart lines by
+     * their reservation group, single orders by reservation.
+     *
+     * Only orders older than orders.confirm-retry-grace-seconds (the
+     * afterCompletion confirm is normally long done), at most
+     * orders.confirm-retry-batch per run. The rows stay locked (SKIP LOCKED)
+     * until the run commits, so other instances retry different orders.
+     * Each settlement gets its own savepoint: one failure doesn't undo the others.
+     */
+    @Scheduled(fixedDelayString = "${orders.confirm-retry-ms:5000}")
+    public void retryPendingConfirms(){
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(tx -> {
+            List<Order> pending = orderRepository.lockOldest(CONFIRM_PENDING,
+                    LocalDateTime.now().minusSeconds(confirmRetryGraceSeconds), confirmRetryBatch);
+            pending.stream()
+                    .map(Order::getCartId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    // Every pending line: a cart split across two runs is still one event
+                    .forEach(cartId -> recordSettlement(orderRepository.findByCartIdAndStatus(cartId, CONFIRM_PENDING),
+                            bookClient.confirmReservationGroup(cartId), TransactionDefinition.PROPAGATION_NESTED));
+            pending.stream()
+                    .filter(order -> order.getCartId() == null && order.getReservationId() != null)
+                    .forEach(order -> recordSettlement(List.of(order), bookClient.confirmReservation(order.getReservationId()),
+                            TransactionDefinition.PROPAGATION_NESTED));
+        });
+    }
+
+    /**
+     * CONFIRM_PENDING → PLACED (and the Kafka event) or CONFIRM_FAILED.
+     *
+     * Only whoever moves the rows publishes, and a publish that fails rolls
+     * the status back to CONFIRM_PENDING: the next retry publishes again.
+     */
+    private void recordSettlement(List<Order> orders, BookClient.Settlement settlement, int propagation){
+        String label = orders.get(0).getCartId() != null ? "Cart " + orders.get(0).getCartId()
+                : "Order " + orders.get(0).getId();
+        if(settlement == BookClient.Settlement.FAILED){
+            System.err.println("⚠️ " + label + ": reservation not confirmed yet, will retry");
+            return;
+        }
+        String status = settlement == BookClient.Settlement.DONE ? PLACED : CONFIRM_FAILED;
+        try{
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setPropagationBehavior(propagation);
+            List<Long> ids = orders.stream().map(Order::getId).toList();
+            transaction.executeWithoutResult(tx -> {
+                int updated = orderRepository.updateStatus(ids, CONFIRM_PENDING, status);
+                if(updated > 0 && status.equals(PLACED)){
+                    kafkaProducer.sendOrderEvent(orderPlacedEvent(orders));
+                }
+            });
+            orders.forEach(order -> order.setStatus(status));
+        } catch (RuntimeException e) {
+            // Still CONFIRM_PENDING: the next retry confirms (idempotent) and updates it
+            System.err.println("⚠️ " + label + ": status update failed: " + e.getMessage());
+        }
+        if(settlement == BookClient.Settlement.REFUSED){
+            System.err.println("❌ " + label + ": book-service refused the confirm (hold released or expired)"
+                    + " - order is CONFIRM_FAILED, stock may have been sold again");
+        }
+    }
+
+    // One event per single order or per cart (all its lines)
+    private static OrderPlacedEvent orderPlacedEvent(List<Order> orders){
+        Order first = orders.get(0);
+        OrderPlacedEvent event = new OrderPlacedEvent();
+        event.setOrderId(first.getId());
+        event.setUserId(first.getUserId());
+        if(first.getCartId() == null){
+            event.setBookId(first.getBookId());
+            event.setBookTitle(first.getBookTitle());
+            event.setQuantity(first.getQuantity());
+            return event;
+        }
+        event.setQuantity(orders.stream().mapToInt(Order::getQuantity).sum());
+        event.setCartId(first.getCartId());
+        event.setLines(orders.stream()
+                .map(order -> new OrderPlacedEvent.Line(order.getId(), order.getBookId(),
+                        order.getBookTitle(), order.getQuantity()))
+                .toList());
+        return event;
+    }
+
     public List<Order> getMyOrders(String userId){
         return orderRepository.findByUserId(userId);
     }